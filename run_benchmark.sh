@@ -26,7 +26,7 @@ rm -rf ${OUTPUT_DIR}/*
 for GROUP_SIZE in 1 2 3 6; do
     echo "Lancement du benchmark de $DATA_FILE_NAME divisé en $GROUP_SIZE groupe(s) avec $MEMORY MB"
     # Exécuter le programme Java avec les paramètres nécessaires
-    java -Xmx${MEMORY}m -jar target/benchmark-jar-with-dependencies.jar "$DATA_FILE" "$QUERY_FILE" "$MELANGE" "$GROUP_SIZE"
+    java -Xmx${MEMORY}m --add-modules jdk.incubator.vector -jar target/benchmark-jar-with-dependencies.jar "$DATA_FILE" "$QUERY_FILE" "$MELANGE" "$GROUP_SIZE"
 done
 
 # Fusionner les fichiers CSV en un seul
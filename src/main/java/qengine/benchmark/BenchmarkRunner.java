@@ -1,23 +1,25 @@
 package qengine.benchmark;
 
 import jdk.swing.interop.SwingInterOpUtils;
-import org.eclipse.rdf4j.rio.RDFFormat;
-import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
-import qengine.parser.RDFAtomParser;
+import qengine.parser.ParallelNTriplesLoader;
 import qengine.parser.StarQuerySparQLParser;
+import qengine.storage.Permutation;
 import qengine.storage.RDFHexaStore;
 
 import java.io.*;
 import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Path;
 import java.util.*;
 
 public class BenchmarkRunner {
 
     public static void main(String[] args) throws IOException {
         if (args.length < 4) {
-            System.err.println("Usage: java -jar benchmark.jar <fichier_triplet> <fichier_requete> <melange> <group_size>");
+            System.err.println("Usage: java -jar benchmark.jar <fichier_triplet> <fichier_requete> <melange> <group_size> [permutations]");
+            System.err.println("  fichier_triplet : fichier N-Triples, ou répertoire écrit par HexaStoreWriter (ouvert sans parsage)");
+            System.err.println("  permutations : ALL (défaut), THREE, FOUR ou une liste telle que SPO,POS,OSP");
             System.exit(1);
         }
 
@@ -25,6 +27,7 @@ public class BenchmarkRunner {
         String fichierRequetes = args[1];
         boolean melange = Boolean.parseBoolean(args[2]);
         int groupSize = Integer.parseInt(args[3]);
+        Set<Permutation> permutations = args.length > 4 ? Permutation.parse(args[4]) : Permutation.ALL;
 
         Runtime runtime = Runtime.getRuntime();
         long memory = runtime.maxMemory() / (1024 * 1024);
@@ -72,19 +75,33 @@ public class BenchmarkRunner {
             writer.write("Etat de Machine :\n" + machineInfo + "\n");
             writer.write("Temps de récupération des informations de la machine : " + (endTime - startTime) / 1_000_000 + " ms\n\n");
 
-            // Charger les données RDF
-            System.out.println("Parsage des triplets...");
-            writer.write("Parsage des triplets...\n");
-            startTime = System.nanoTime();
-            List<RDFAtom> rdfAtoms = parserDonneesRDF(fichierDonnees);
-            endTime = System.nanoTime();
-            writer.write(rdfAtoms.size() + " triplets récupérés en " + (endTime - startTime) / 1_000_000 + " ms\n\n");
-
-            RDFHexaStore hexastore = new RDFHexaStore();
-
-            System.out.println("Chargement des donnees RDF dans le Hexastore...");
-            hexastore.addAll(rdfAtoms);
-            System.out.println("Donnees RDF chargées dans le Hexastore");
+            RDFHexaStore hexastore;
+            if (RDFHexaStore.isStoreDirectory(Path.of(fichierDonnees))) {
+                // Ouvrir un store déjà écrit sur disque : ni parsage ni construction des index
+                System.out.println("Ouverture du store...");
+                startTime = System.nanoTime();
+                hexastore = RDFHexaStore.open(Path.of(fichierDonnees));
+                endTime = System.nanoTime();
+                writer.write(hexastore.size() + " triplets ouverts depuis " + fichierDonnees + " en "
+                        + (endTime - startTime) / 1_000_000 + " ms\n\n");
+                writer.write("Permutations indexées : " + hexastore.getPermutations() + "\n\n");
+            } else {
+                hexastore = new RDFHexaStore(permutations);
+                writer.write("Permutations indexées : " + permutations + "\n");
+
+                // Charger les données RDF : parsage parallèle par blocs, directement en identifiants
+                System.out.println("Chargement des donnees RDF dans le Hexastore...");
+                writer.write("Chargement des triplets...\n");
+                ParallelNTriplesLoader.Result chargement = ParallelNTriplesLoader.load(Path.of(fichierDonnees), hexastore);
+                System.out.println("Donnees RDF chargées dans le Hexastore : " + chargement);
+                writer.write(chargement + " (" + Runtime.getRuntime().availableProcessors() + " cœurs)\n\n");
+
+                // Les requêtes sont en lecture seule : compacter les index au format CSR
+                startTime = System.nanoTime();
+                hexastore.freeze();
+                endTime = System.nanoTime();
+                writer.write("Gel des index effectué en " + (endTime - startTime) / 1_000_000 + " ms\n\n");
+            }
 
             // Charger les requêtes
             System.out.println("Parsage des requetes...");
@@ -109,27 +126,13 @@ public class BenchmarkRunner {
             List<List<StarQuery>> queryGroups = splitQueriesIntoGroups(queries, queries.size() / groupSize);
             runBenchmarks(hexastore, queryGroups, writer, csvWriter, executionTimes);
             writer.write("\n");
+            writer.write(hexastore.permutationReport());
             System.out.println("Fin du benchmark");
 
 
         }
     }
 
-    private static List<RDFAtom> parserDonneesRDF(String cheminFichierRDF) throws IOException {
-        List<RDFAtom> rdfAtoms = new ArrayList<>();
-        long count = 0;
-        try (RDFAtomParser rdfAtomParser = new RDFAtomParser(new FileReader(cheminFichierRDF), RDFFormat.NTRIPLES)) {
-            while (rdfAtomParser.hasNext()) {
-                if (count % 200_000 == 0 && count != 0) {
-                    System.out.println("Parsage de " + count + " triplets...");
-                }
-                count++;
-                rdfAtoms.add(rdfAtomParser.next());
-            }
-        }
-        return rdfAtoms;
-    }
-
     private static List<StarQuery> parserToutesRequetes(String fichierRequetes) throws IOException {
         List<StarQuery> allQueries = new ArrayList<>();
         try (StarQuerySparQLParser parser = new StarQuerySparQLParser(fichierRequetes)) {
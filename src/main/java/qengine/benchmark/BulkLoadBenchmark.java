@@ -0,0 +1,96 @@
+package qengine.benchmark;
+
+import qengine.parser.NTriplesReader;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.primitive.TripleBuffer;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compare deux façons de construire les index gelés d'un store à partir des mêmes triplets encodés :
+ * ajouts incrémentaux ({@link RDFHexaStore#addAll(int[], int)}) suivis de {@link RDFHexaStore#freeze()},
+ * et chargement en bloc par tri ({@link RDFHexaStore#bulkLoad(int[], int)}).
+ * <p>
+ * Le fichier N-Triples n'est analysé qu'une fois : seule la construction des index et des statistiques
+ * est mesurée. Chaque méthode est exécutée sur un store neuf, une fois à vide puis sur plusieurs passes
+ * dont on retient la médiane.
+ */
+public class BulkLoadBenchmark {
+    private static final int PASSES_A_VIDE = 1;
+    private static final int PASSES = 3;
+
+    /**
+     * Construction des index d'un store vide.
+     */
+    @FunctionalInterface
+    private interface Construction {
+        long construire(RDFHexaStore store, int[] triplets, int nombre);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java -cp benchmark.jar qengine.benchmark.BulkLoadBenchmark <fichier_triplet>");
+            System.exit(1);
+        }
+
+        String fichierDonnees = args[0];
+        long memory = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        String dataFileName = fichierDonnees.substring(fichierDonnees.lastIndexOf('_') + 1, fichierDonnees.lastIndexOf('.'));
+
+        File outputDir = new File("benchmark/" + dataFileName + "_" + memory + "MB");
+        if (!outputDir.exists()) {
+            outputDir.mkdirs();
+        }
+        File txtFile = new File(outputDir, "bulkload_" + dataFileName + "_" + memory + "MB.txt");
+
+        System.out.println("Analyse des triplets...");
+        TripleBuffer triplets = new TripleBuffer();
+        try (NTriplesReader reader = new NTriplesReader(Path.of(fichierDonnees), new RDFHexaStore().getDictionary())) {
+            reader.read(triplets::add);
+        }
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(txtFile))) {
+            String entete = String.format("%,d triplets encodés, %d passes", triplets.size(), PASSES);
+            System.out.println(entete);
+            writer.write(entete + "\n");
+
+            mesurer("addAll + freeze", (store, t, n) -> {
+                long ajoutes = store.addAll(t, n);
+                store.freeze();
+                return ajoutes;
+            }, triplets, writer);
+            mesurer("bulkLoad", RDFHexaStore::bulkLoad, triplets, writer);
+        }
+        System.out.println("Résultats écrits dans " + txtFile.getPath());
+    }
+
+    /**
+     * Exécute la construction sur des stores neufs, à vide puis en mesurant chaque passe, et écrit la médiane.
+     * Le nombre de triplets distincts sert de somme de contrôle : il doit être le même pour les deux méthodes.
+     */
+    private static void mesurer(String nom, Construction construction, TripleBuffer triplets,
+                                BufferedWriter writer) throws IOException {
+        long distincts = 0;
+        for (int passe = 0; passe < PASSES_A_VIDE; passe++) {
+            distincts = construction.construire(new RDFHexaStore(), triplets.array(), triplets.size());
+        }
+        long[] durees = new long[PASSES];
+        for (int passe = 0; passe < PASSES; passe++) {
+            // Libère le store de la passe précédente avant de mesurer
+            System.gc();
+            RDFHexaStore store = new RDFHexaStore();
+            long startTime = System.nanoTime();
+            distincts = construction.construire(store, triplets.array(), triplets.size());
+            durees[passe] = System.nanoTime() - startTime;
+        }
+        Arrays.sort(durees);
+
+        long mediane = durees[PASSES / 2];
+        String ligne = String.format("  %-16s médiane %,d ms, %,.0f triplets/s (min %,d ms, %,d triplets distincts)",
+                nom, mediane / 1_000_000, triplets.size() * 1e9 / mediane, durees[0] / 1_000_000, distincts);
+        System.out.println(ligne);
+        writer.write(ligne + "\n");
+    }
+}
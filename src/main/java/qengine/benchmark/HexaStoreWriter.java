@@ -0,0 +1,67 @@
+package qengine.benchmark;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import qengine.parser.ParallelNTriplesLoader;
+import qengine.parser.RDFAtomParser;
+import qengine.storage.ExternalIndexBuilder;
+import qengine.storage.Permutation;
+import qengine.storage.RDFHexaStore;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Parse un fichier N-Triples une seule fois et écrit le store correspondant sur disque.
+ * Le répertoire produit peut ensuite être donné à {@link BenchmarkRunner} (ou ouvert par
+ * {@link RDFHexaStore#open(Path)}) à la place du fichier N-Triples.
+ * <p>
+ * Avec un budget mémoire, les index sont construits hors du tas par {@link ExternalIndexBuilder},
+ * pour les fichiers dont les triplets ne tiennent pas en mémoire.
+ */
+public class HexaStoreWriter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java -cp benchmark.jar qengine.benchmark.HexaStoreWriter <fichier_triplet> <repertoire_store> [permutations] [budget_Mo]");
+            System.err.println("  permutations : ALL (défaut), THREE, FOUR ou une liste telle que SPO,POS,OSP");
+            System.err.println("  budget_Mo    : construit les index sur disque avec ce budget mémoire (en Mo)");
+            System.exit(1);
+        }
+
+        String fichierDonnees = args[0];
+        Path repertoire = Path.of(args[1]);
+        Set<Permutation> permutations = args.length > 2 ? Permutation.parse(args[2]) : Permutation.ALL;
+
+        if (args.length > 3) {
+            long budget = Long.parseLong(args[3]) << 20;
+            System.out.println("Parsage des triplets et construction des index sur disque...");
+            long startTime = System.nanoTime();
+            RDFHexaStore store;
+            try (ExternalIndexBuilder builder = new ExternalIndexBuilder(repertoire, permutations, budget);
+                 RDFAtomParser rdfAtomParser = new RDFAtomParser(new FileReader(fichierDonnees), RDFFormat.NTRIPLES)) {
+                while (rdfAtomParser.hasNext()) {
+                    builder.add(rdfAtomParser.next());
+                }
+                store = builder.finish();
+            }
+            long endTime = System.nanoTime();
+            System.out.println(store.size() + " triplets écrits dans " + repertoire + " en " + (endTime - startTime) / 1_000_000 + " ms");
+            return;
+        }
+
+        System.out.println("Parsage et chargement des triplets...");
+        long startTime = System.nanoTime();
+        RDFHexaStore store = new RDFHexaStore(permutations);
+        // Le store est écrit tel quel : les index gelés sont construits directement par tri
+        ParallelNTriplesLoader.bulkLoad(Path.of(fichierDonnees), store);
+        long endTime = System.nanoTime();
+        System.out.println(store.size() + " triplets chargés en " + (endTime - startTime) / 1_000_000 + " ms");
+
+        startTime = System.nanoTime();
+        store.save(repertoire);
+        endTime = System.nanoTime();
+        System.out.println("Store écrit dans " + repertoire + " en " + (endTime - startTime) / 1_000_000 + " ms");
+    }
+}
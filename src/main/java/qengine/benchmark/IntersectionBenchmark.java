@@ -0,0 +1,199 @@
+package qengine.benchmark;
+
+import qengine.parser.NTriplesReader;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.SortedInts;
+import qengine.storage.StatisticsCatalog;
+import qengine.storage.posting.IntersectionKernel;
+
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compare les noyaux d'intersection de deux listes triées d'identifiants : fusion avec branchements,
+ * recherche galopante, et les noyaux par blocs de {@link IntersectionKernel} (scalaire et SIMD).
+ * <p>
+ * Les tailles des listes suivent la distribution observée sur un jeu de données WatDiv : nombre de
+ * sujets de chaque prédicat (listes de clés de PSO) et nombre de sujets des couples (prédicat, objet)
+ * les plus fréquents (listes de POS), tirés dans le catalogue de statistiques du store chargé.
+ * Chaque noyau est d'abord exécuté à vide pour laisser le JIT compiler, puis mesuré sur plusieurs passes
+ * dont on retient la médiane. Le noyau SIMD n'est mesuré qu'avec {@code --add-modules jdk.incubator.vector}.
+ */
+public class IntersectionBenchmark {
+    private static final int LISTES = 1_000;
+    private static final int PAIRES = 2_000;
+    private static final int PASSES_A_VIDE = 5;
+    private static final int PASSES = 7;
+
+    /**
+     * Intersection de deux tableaux triés complets.
+     */
+    @FunctionalInterface
+    private interface Noyau {
+        int intersecter(int[] a, int[] b, int[] out);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java --add-modules jdk.incubator.vector -cp benchmark.jar qengine.benchmark.IntersectionBenchmark <fichier_triplet>");
+            System.exit(1);
+        }
+
+        String fichierDonnees = args[0];
+        long memory = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        String dataFileName = fichierDonnees.substring(fichierDonnees.lastIndexOf('_') + 1, fichierDonnees.lastIndexOf('.'));
+
+        File outputDir = new File("benchmark/" + dataFileName + "_" + memory + "MB");
+        if (!outputDir.exists()) {
+            outputDir.mkdirs();
+        }
+        File txtFile = new File(outputDir, "intersection_" + dataFileName + "_" + memory + "MB.txt");
+
+        System.out.println("Chargement des triplets...");
+        RDFHexaStore store = new RDFHexaStore();
+        NTriplesReader.load(Path.of(fichierDonnees), store);
+        StatisticsCatalog statistics = store.getStatistics();
+        int[] tailles = taillesObservees(statistics);
+        int plage = statistics.distinctSubjects() + statistics.distinctObjects();
+        List<int[]> listes = genererListes(new Random(1), tailles, plage);
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(txtFile))) {
+            String entete = String.format("%d listes de %d à %d identifiants (tailles de %d listes observées), %d paires",
+                    listes.size(), Arrays.stream(tailles).min().orElse(0), Arrays.stream(tailles).max().orElse(0),
+                    tailles.length, PAIRES);
+            System.out.println(entete);
+            writer.write(entete + "\n");
+
+            int[][] paires = tirerPaires(new Random(7), listes.size());
+            mesurer("Fusion (branches)", IntersectionBenchmark::fusion, listes, paires, writer);
+            mesurer("Galop", IntersectionBenchmark::galop, listes, paires, writer);
+            mesurer("Blocs scalaires", (a, b, out) ->
+                    IntersectionKernel.intersectScalar(a, 0, a.length, b, 0, b.length, out), listes, paires, writer);
+            if (IntersectionKernel.VECTORIZED) {
+                mesurer("Blocs SIMD", (a, b, out) ->
+                        IntersectionKernel.intersectVector(a, 0, a.length, b, 0, b.length, out), listes, paires, writer);
+            } else {
+                String ligne = "  Blocs SIMD : non mesuré, lancer avec --add-modules jdk.incubator.vector";
+                System.out.println(ligne);
+                writer.write(ligne + "\n");
+            }
+        }
+        System.out.println("Résultats écrits dans " + txtFile.getPath());
+    }
+
+    /**
+     * @return les tailles des listes que les requêtes en étoile intersectent : sujets de chaque prédicat
+     *         et sujets des couples (prédicat, objet) fréquents
+     */
+    private static int[] taillesObservees(StatisticsCatalog statistics) {
+        List<Integer> tailles = new ArrayList<>();
+        for (StatisticsCatalog.PredicateStatistics predicate : statistics.predicates()) {
+            tailles.add(predicate.distinctSubjects());
+            for (StatisticsCatalog.ObjectFrequency frequency : predicate.topObjects()) {
+                tailles.add((int) frequency.count());
+            }
+        }
+        return tailles.stream().mapToInt(Integer::intValue).filter(taille -> taille > 0).toArray();
+    }
+
+    /**
+     * Génère des listes triées d'identifiants tirés dans {@code [1, plage]}, de tailles tirées parmi celles observées.
+     */
+    private static List<int[]> genererListes(Random random, int[] tailles, int plage) {
+        List<int[]> listes = new ArrayList<>(LISTES);
+        for (int i = 0; i < LISTES; i++) {
+            int taille = Math.min(plage, tailles[random.nextInt(tailles.length)]);
+            listes.add(random.ints(taille, 1, plage + 1).sorted().distinct().toArray());
+        }
+        return listes;
+    }
+
+    private static int[][] tirerPaires(Random random, int listes) {
+        int[][] paires = new int[PAIRES][];
+        for (int i = 0; i < PAIRES; i++) {
+            paires[i] = new int[]{random.nextInt(listes), random.nextInt(listes)};
+        }
+        return paires;
+    }
+
+    /**
+     * Exécute le noyau sur toutes les paires, à vide puis en mesurant chaque passe, et écrit la médiane.
+     * Le total des résultats sert de somme de contrôle : il doit être le même pour tous les noyaux.
+     */
+    private static void mesurer(String nom, Noyau noyau, List<int[]> listes, int[][] paires,
+                                BufferedWriter writer) throws IOException {
+        int[] out = new int[listes.stream().mapToInt(valeurs -> valeurs.length).max().orElse(0)];
+        long resultats = 0;
+        for (int passe = 0; passe < PASSES_A_VIDE; passe++) {
+            resultats = executer(noyau, listes, paires, out);
+        }
+        long[] durees = new long[PASSES];
+        for (int passe = 0; passe < PASSES; passe++) {
+            long startTime = System.nanoTime();
+            resultats = executer(noyau, listes, paires, out);
+            durees[passe] = System.nanoTime() - startTime;
+        }
+        Arrays.sort(durees);
+
+        String ligne = String.format("  %-18s médiane %.2f ms pour %d intersections (min %.2f ms, %d résultats)",
+                nom, durees[PASSES / 2] / 1e6, paires.length, durees[0] / 1e6, resultats);
+        System.out.println(ligne);
+        writer.write(ligne + "\n");
+    }
+
+    private static long executer(Noyau noyau, List<int[]> listes, int[][] paires, int[] out) {
+        long resultats = 0;
+        for (int[] paire : paires) {
+            resultats += noyau.intersecter(listes.get(paire[0]), listes.get(paire[1]), out);
+        }
+        return resultats;
+    }
+
+    /**
+     * Fusion classique : avance dans la liste dont la valeur courante est la plus petite.
+     */
+    private static int fusion(int[] a, int[] b, int[] out) {
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Recherche galopante de chaque valeur de la plus petite liste dans la plus grande.
+     */
+    private static int galop(int[] a, int[] b, int[] out) {
+        if (a.length > b.length) {
+            return galop(b, a, out);
+        }
+        IntBuffer grande = IntBuffer.wrap(b);
+        int j = 0;
+        int n = 0;
+        for (int valeur : a) {
+            j = SortedInts.gallop(grande, j, b.length, valeur);
+            if (j == b.length) {
+                break;
+            }
+            if (b[j] == valeur) {
+                out[n++] = valeur;
+            }
+        }
+        return n;
+    }
+}
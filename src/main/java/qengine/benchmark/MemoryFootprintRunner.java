@@ -0,0 +1,108 @@
+package qengine.benchmark;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import qengine.model.RDFAtom;
+import qengine.parser.RDFAtomParser;
+import qengine.storage.Permutation;
+import qengine.storage.PrimitiveRDFHexaStore;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.RDFStorage;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Compare l'occupation mémoire (en octets par triplet) des différentes implémentations de {@link RDFStorage}.
+ * La mémoire est mesurée sur le tas après ramasse-miettes, avant et après le chargement des triplets ;
+ * le dictionnaire est donc compté avec les index.
+ */
+public class MemoryFootprintRunner {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java -cp benchmark.jar qengine.benchmark.MemoryFootprintRunner <fichier_triplet>");
+            System.exit(1);
+        }
+
+        String fichierDonnees = args[0];
+        long memory = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        String dataFileName = fichierDonnees.substring(fichierDonnees.lastIndexOf('_') + 1, fichierDonnees.lastIndexOf('.'));
+
+        File outputDir = new File("benchmark/" + dataFileName + "_" + memory + "MB");
+        if (!outputDir.exists()) {
+            outputDir.mkdirs();
+        }
+        File txtFile = new File(outputDir, "memory_" + dataFileName + "_" + memory + "MB.txt");
+
+        System.out.println("Parsage des triplets...");
+        List<RDFAtom> rdfAtoms = parserDonneesRDF(fichierDonnees);
+        System.out.println(rdfAtoms.size() + " triplets récupérés");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(txtFile))) {
+            writer.write("Occupation mémoire pour " + rdfAtoms.size() + " triplets (" + memory + " MB de tas)\n");
+            mesurer("RDFHexaStore", RDFHexaStore::new, rdfAtoms, writer);
+            mesurer("RDFHexaStore (3 index)", () -> new RDFHexaStore(Permutation.THREE), rdfAtoms, writer);
+            mesurer("PrimitiveRDFHexaStore", PrimitiveRDFHexaStore::new, rdfAtoms, writer);
+            mesurer("RDFHexaStore (compact)", RDFHexaStore::new, store -> {
+                RDFHexaStore hexaStore = (RDFHexaStore) store;
+                hexaStore.freeze();
+                hexaStore.compactDictionary();
+            }, rdfAtoms, writer);
+        }
+        System.out.println("Résultats écrits dans " + txtFile.getPath());
+    }
+
+    private static void mesurer(String nom, Supplier<RDFStorage> fabrique, List<RDFAtom> rdfAtoms,
+                                BufferedWriter writer) throws IOException {
+        mesurer(nom, fabrique, store -> {
+        }, rdfAtoms, writer);
+    }
+
+    /**
+     * Charge les triplets dans un nouveau store, applique la finalisation donnée (gel, compactage)
+     * et écrit le nombre d'octets par triplet.
+     */
+    private static void mesurer(String nom, Supplier<RDFStorage> fabrique, Consumer<RDFStorage> finaliser,
+                                List<RDFAtom> rdfAtoms, BufferedWriter writer) throws IOException {
+        long before = usedMemory();
+        long startTime = System.nanoTime();
+        RDFStorage store = fabrique.get();
+        store.addAll(rdfAtoms);
+        finaliser.accept(store);
+        long endTime = System.nanoTime();
+        long after = usedMemory();
+
+        // Le store est encore utilisé après la mesure, il ne peut donc pas avoir été collecté
+        long triplets = store.size();
+        long bytes = after - before;
+        String ligne = String.format("%-24s %,d triplets, %,d octets, %.1f octets/triplet, chargé en %d ms",
+                nom, triplets, bytes, triplets == 0 ? 0.0 : (double) bytes / triplets, (endTime - startTime) / 1_000_000);
+        if (store instanceof PrimitiveRDFHexaStore primitive) {
+            ligne += String.format(" (index estimés : %.1f octets/triplet)",
+                    triplets == 0 ? 0.0 : (double) primitive.indexFootprint() / triplets);
+        }
+        System.out.println(ligne);
+        writer.write(ligne + "\n");
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<RDFAtom> parserDonneesRDF(String cheminFichierRDF) throws IOException {
+        List<RDFAtom> rdfAtoms = new ArrayList<>();
+        try (RDFAtomParser rdfAtomParser = new RDFAtomParser(new FileReader(cheminFichierRDF), RDFFormat.NTRIPLES)) {
+            while (rdfAtomParser.hasNext()) {
+                rdfAtoms.add(rdfAtomParser.next());
+            }
+        }
+        return rdfAtoms;
+    }
+}
@@ -0,0 +1,144 @@
+package qengine.benchmark;
+
+import qengine.storage.posting.CompressedPostingList;
+import qengine.storage.posting.PostingList;
+import qengine.storage.posting.RoaringBitmap;
+import qengine.storage.posting.SortedIntPostingList;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Compare les représentations du troisième niveau des index : les {@code HashSet<Integer>} d'origine,
+ * les tableaux triés non compressés, les {@link RoaringBitmap} et les {@link CompressedPostingList}.
+ * Pour chacune, on mesure l'occupation mémoire (octets par identifiant, sur le tas après ramasse-miettes)
+ * et le temps d'intersection de listes tirées au hasard, sur des identifiants creux puis denses.
+ */
+public class PostingListBenchmark {
+    private static final int LISTES = 2_000;
+    private static final int INTERSECTIONS = 20_000;
+
+    public static void main(String[] args) throws IOException {
+        // Ordre de grandeur des jeux de données visés : 2M triplets, autant d'identifiants
+        int identifiants = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        long memory = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+
+        File outputDir = new File("benchmark/postings_" + memory + "MB");
+        if (!outputDir.exists()) {
+            outputDir.mkdirs();
+        }
+        File txtFile = new File(outputDir, "postings_" + identifiants + ".txt");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(txtFile))) {
+            // Identifiants creux : tirés dans tout l'espace ; denses : tirés dans une plage étroite
+            comparer("creux", genererListes(new Random(1), identifiants, identifiants), writer);
+            comparer("denses", genererListes(new Random(2), identifiants, identifiants / 50), writer);
+        }
+        System.out.println("Résultats écrits dans " + txtFile.getPath());
+    }
+
+    /**
+     * Génère des listes triées de tailles variées (de quelques identifiants à quelques milliers),
+     * comme les listes de sujets des couples (prédicat, objet).
+     */
+    private static List<int[]> genererListes(Random random, int identifiants, int plage) {
+        List<int[]> listes = new ArrayList<>();
+        int base = random.nextInt(Math.max(1, identifiants - plage));
+        for (int i = 0; i < LISTES; i++) {
+            int taille = 1 + (int) Math.min(plage - 1, Math.exp(random.nextDouble() * Math.log(20_000)));
+            int[] valeurs = random.ints(taille, 1 + base, 1 + base + plage).sorted().distinct().toArray();
+            listes.add(valeurs);
+        }
+        return listes;
+    }
+
+    private static void comparer(String nom, List<int[]> listes, BufferedWriter writer) throws IOException {
+        long total = listes.stream().mapToLong(valeurs -> valeurs.length).sum();
+        String entete = String.format("Identifiants %s : %d listes, %,d identifiants", nom, listes.size(), total);
+        System.out.println(entete);
+        writer.write(entete + "\n");
+
+        mesurer("HashSet<Integer>", listes, total, valeurs -> {
+            Set<Integer> set = new HashSet<>();
+            for (int valeur : valeurs) {
+                set.add(valeur);
+            }
+            return set;
+        }, PostingListBenchmark::intersecterSets, writer);
+        // Copie des valeurs : les tableaux générés sont déjà sur le tas et ne doivent pas être comptés
+        mesurer("Tableau trié", listes, total, valeurs -> SortedIntPostingList.of(valeurs.clone()),
+                PostingListBenchmark::intersecterListes, writer);
+        mesurer("RoaringBitmap", listes, total, RoaringBitmap::of,
+                PostingListBenchmark::intersecterListes, writer);
+        mesurer("CompressedPostingList", listes, total, CompressedPostingList::of,
+                PostingListBenchmark::intersecterListes, writer);
+        writer.write("\n");
+    }
+
+    /**
+     * Construit chaque liste dans la représentation donnée, mesure la mémoire occupée,
+     * puis le temps d'intersection de couples et de triplets de listes tirés au hasard.
+     */
+    private static <T> void mesurer(String nom, List<int[]> listes, long total, Function<int[], T> construire,
+                                    Function<List<T>, Integer> intersecter, BufferedWriter writer) throws IOException {
+        long before = usedMemory();
+        List<T> representations = new ArrayList<>(listes.size());
+        for (int[] valeurs : listes) {
+            representations.add(construire.apply(valeurs));
+        }
+        long bytes = usedMemory() - before;
+
+        Random random = new Random(7);
+        long resultats = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < INTERSECTIONS; i++) {
+            int arite = 2 + random.nextInt(2);
+            List<T> operandes = new ArrayList<>(arite);
+            for (int k = 0; k < arite; k++) {
+                operandes.add(representations.get(random.nextInt(representations.size())));
+            }
+            resultats += intersecter.apply(operandes);
+        }
+        long endTime = System.nanoTime();
+
+        // Les représentations sont utilisées par les intersections, après la mesure mémoire :
+        // elles ne peuvent donc pas avoir été collectées avant
+        String ligne = String.format("  %-22s %.2f octets/identifiant, %d intersections en %d ms (%d résultats)",
+                nom, (double) bytes / total, INTERSECTIONS, (endTime - startTime) / 1_000_000, resultats);
+        System.out.println(ligne);
+        writer.write(ligne + "\n");
+    }
+
+    /**
+     * Intersection telle que réalisée sur les ensembles d'origine : copie du plus petit puis retainAll.
+     */
+    private static int intersecterSets(List<Set<Integer>> sets) {
+        List<Set<Integer>> tries = new ArrayList<>(sets);
+        tries.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        Set<Integer> resultat = new HashSet<>(tries.get(0));
+        for (int i = 1; i < tries.size() && !resultat.isEmpty(); i++) {
+            resultat.retainAll(tries.get(i));
+        }
+        return resultat.size();
+    }
+
+    private static int intersecterListes(List<? extends PostingList> listes) {
+        return PostingList.intersect(listes).length;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,28 +1,26 @@
 package qengine.benchmark;
 
 import fr.boreal.model.logicalElements.api.Substitution;
-import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
-import qengine.parser.RDFAtomParser;
+import qengine.parser.NTriplesReader;
 import qengine.parser.StarQuerySparQLParser;
 import qengine.storage.RDFHexaStore;
 
-import org.eclipse.rdf4j.rio.RDFFormat;
-
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
 
 public class QueryTester {
 
     private static final String DOSSIER_REQUETES = "watdiv/testsuite/queries";
     private static final String FICHIER_DONNEES = "watdiv/testsuite/dataset/data_500k.nt";
+    // Store écrit par HexaStoreWriter : s'il existe, il est ouvert à la place du parsage des données
+    private static final String DOSSIER_STORE = "watdiv/testsuite/dataset/data_500k.hexa";
     private static final String FICHIER_REQUETES_VALIDES = "watdiv/testsuite/finalQueries/valid_queries.queryset";
 
     public static void main(String[] args) throws IOException {
-        // etape 1 : Parser les donnees
-        System.out.println("Parsage des donnees RDF...");
-        List<RDFAtom> rdfAtoms = parserDonneesRDF(FICHIER_DONNEES);
-        System.out.printf("⚛ %d triplets RDF parses.%n", rdfAtoms.size());
+        // etape 1 : Charger les donnees
+        RDFHexaStore store = chargerStore();
 
         // etape 2 : Parser les requetes
         System.out.println("Parsage des requetes...");
@@ -31,7 +29,7 @@ public class QueryTester {
 
         // etape 3 : Filtrer les requetes valides (sans doublons, sans resultats vides sauf 5%)
         System.out.println("Filtrage des requetes valides...");
-        FilterResult filterResult = filtrerRequetesValides(rdfAtoms, queries);
+        FilterResult filterResult = filtrerRequetesValides(store, queries);
 
         // etape 4 : ecrire les requetes valides dans un nouveau fichier
         System.out.println("ecriture des requetes valides dans le fichier...");
@@ -50,16 +48,21 @@ public class QueryTester {
     }
 
     /**
-     * Parse les triplets RDF depuis un fichier.
+     * Ouvre le store écrit sur disque s'il existe, sinon parse les donnees et construit le store.
      */
-    private static List<RDFAtom> parserDonneesRDF(String cheminFichierRDF) throws IOException {
-        List<RDFAtom> rdfAtoms = new ArrayList<>();
-        try (RDFAtomParser rdfAtomParser = new RDFAtomParser(new FileReader(cheminFichierRDF), RDFFormat.NTRIPLES)) {
-            while (rdfAtomParser.hasNext()) {
-                rdfAtoms.add(rdfAtomParser.next());
-            }
+    private static RDFHexaStore chargerStore() throws IOException {
+        if (RDFHexaStore.isStoreDirectory(Path.of(DOSSIER_STORE))) {
+            System.out.println("Ouverture du store " + DOSSIER_STORE + "...");
+            RDFHexaStore store = RDFHexaStore.open(Path.of(DOSSIER_STORE));
+            System.out.printf("⚛ %d triplets RDF ouverts.%n", store.size());
+            return store;
         }
-        return rdfAtoms;
+        System.out.println("Chargement des donnees RDF...");
+        RDFHexaStore store = new RDFHexaStore();
+        long triplets = NTriplesReader.loadPipelined(Path.of(FICHIER_DONNEES), store);
+        System.out.printf("⚛ %d triplets RDF charges.%n", triplets);
+        store.freeze();
+        return store;
     }
 
     /**
@@ -85,11 +88,7 @@ public class QueryTester {
     /**
      * Filtre les requetes valides, c'est-à-dire sans doublons, avec des resultats, et conserve 5% des vides.
      */
-    private static FilterResult filtrerRequetesValides(List<RDFAtom> rdfAtoms, List<StarQuery> queries)  {
-        // Charger les donnees dans le RDFHexaStore
-        RDFHexaStore store = new RDFHexaStore();
-        store.addAll(rdfAtoms);
-
+    private static FilterResult filtrerRequetesValides(RDFHexaStore store, List<StarQuery> queries)  {
         // Set pour suivre les requetes uniques
         Set<String> uniqueQueries = new HashSet<>();
         List<StarQuery> validQueries = new ArrayList<>();
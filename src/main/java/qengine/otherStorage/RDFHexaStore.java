@@ -6,11 +6,14 @@ import com.google.common.collect.Streams;
 import fr.boreal.model.logicalElements.api.Atom;
 import fr.boreal.model.logicalElements.api.Substitution;
 import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
 import org.apache.commons.collections4.BidiMap;
 import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
 import qengine.storage.RDFStorage;
+import qengine.storage.primitive.IntTupleSet;
 
 import java.util.*;
 
@@ -24,6 +27,11 @@ import static fr.lirmm.graphik.util.stream.Iterators.emptyIterator;
  */
 public class RDFHexaStore implements RDFStorage {
 
+    /**
+     * Indexe retourné par {@link #lookup(Term)} pour un terme absent, jamais attribué.
+     */
+    static final int UNKNOWN = 0;
+
     final BidiMap<Integer, Term> dict = new DualHashBidiMap<>();
 
     final Map<Integer, Map<Integer, Set<Integer>>> spo = new HashMap<>();
@@ -47,6 +55,43 @@ public class RDFHexaStore implements RDFStorage {
         return dict.inverseBidiMap().computeIfAbsent(term, k -> dict.size() + 1);
     }
 
+    /**
+     * Retourne l'indexe d'un terme sans l'ajouter à {@link RDFHexaStore#dict} : les constantes
+     * des requêtes absentes de la base ne doivent pas faire grossir le dictionnaire.
+     *
+     * @param term Term
+     * @return Index, ou {@link RDFHexaStore#UNKNOWN} si le terme est absent
+     */
+    int lookup(Term term) {
+        return dict.inverseBidiMap().getOrDefault(term, UNKNOWN);
+    }
+
+    /**
+     * @return true si une constante de l'atome est absente du dictionnaire
+     */
+    private boolean hasUnknownConstant(RDFAtom atom) {
+        for (Term term : atom.getTerms()) {
+            if (!term.isVariable() && lookup(term) == UNKNOWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return la substitution restreinte aux variables réponses qu'elle lie
+     */
+    private static Substitution project(Substitution substitution, List<Variable> answers) {
+        Substitution projected = new SubstitutionImpl();
+        for (Variable variable : answers) {
+            Term image = substitution.createImageOf(variable);
+            if (!image.equals(variable)) {
+                projected.add(variable, image);
+            }
+        }
+        return projected;
+    }
+
     private Term term(int index) {
         return dict.get(index);
     }
@@ -101,6 +146,9 @@ public class RDFHexaStore implements RDFStorage {
 
     @Override
     public Iterator<Substitution> match(RDFAtom atom) {
+        if (hasUnknownConstant(atom)) {
+            return emptyIterator();
+        }
         for (var matcher : RDFMatcher.values()) {
             if (matcher.matches(atom)) {
                 return matcher.substitution(this, atom);
@@ -109,28 +157,90 @@ public class RDFHexaStore implements RDFStorage {
         return emptyIterator();
     }
 
+    /**
+     * Estime le nombre de correspondances d'un atome à partir de l'index qui sert son motif
+     * (taille de pos[p][o], spo[s][p], etc.).
+     *
+     * @param atom RDFAtom
+     * @return Nombre de triplets correspondants (exact, sauf pour le motif sans variable : 0 ou 1)
+     */
     private long estimateMatchNumbers(RDFAtom atom) {
-        return ops
-                .getOrDefault(index(atom.getTripleObject()), new HashMap<>())
-                .getOrDefault(index(atom.getTriplePredicate()), new HashSet<>())
-                .size();
+        boolean s = !atom.getTripleSubject().isVariable();
+        boolean p = !atom.getTriplePredicate().isVariable();
+        boolean o = !atom.getTripleObject().isVariable();
+        int sI = s ? lookup(atom.getTripleSubject()) : UNKNOWN;
+        int pI = p ? lookup(atom.getTriplePredicate()) : UNKNOWN;
+        int oI = o ? lookup(atom.getTripleObject()) : UNKNOWN;
+
+        if (s && p && o) {
+            return level3(spo, sI, pI).contains(oI) ? 1 : 0;
+        } else if (s && p) {
+            return level3(spo, sI, pI).size();
+        } else if (s && o) {
+            return level3(sop, sI, oI).size();
+        } else if (p && o) {
+            return level3(pos, pI, oI).size();
+        } else if (s) {
+            return level2Size(spo, sI);
+        } else if (p) {
+            return level2Size(pso, pI);
+        } else if (o) {
+            return level2Size(ops, oI);
+        }
+        return size;
+    }
+
+    private static Set<Integer> level3(Map<Integer, Map<Integer, Set<Integer>>> indexes, int a, int b) {
+        return indexes.getOrDefault(a, Collections.emptyMap()).getOrDefault(b, Collections.emptySet());
+    }
+
+    private static long level2Size(Map<Integer, Map<Integer, Set<Integer>>> indexes, int a) {
+        return indexes.getOrDefault(a, Collections.emptyMap()).values().stream().mapToLong(Set::size).sum();
     }
 
     @Override
     public Iterator<Substitution> match(StarQuery q) {
+        return match(q, false);
+    }
+
+    /**
+     * Matcher une StarQuery en projetant chaque réponse sur les variables réponses.
+     * Avec {@code distinct}, les doublons sont éliminés sur les n-uplets d'indexes des termes projetés.
+     *
+     * @param q        StarQuery
+     * @param distinct true pour éliminer les réponses en double
+     * @return Itérateur de substitutions des variables réponses
+     */
+    public Iterator<Substitution> match(StarQuery q, boolean distinct) {
         List<RDFAtom> queryAtoms = new ArrayList<>(q.getRdfAtoms());
+        if (queryAtoms.stream().anyMatch(this::hasUnknownConstant)) {
+            return emptyIterator();
+        }
 
-        var smallestSubstitutionOpt = queryAtoms.stream()
-                .min((q1, q2) -> Math.toIntExact(estimateMatchNumbers(q1) - estimateMatchNumbers(q2)));
-        if (!smallestSubstitutionOpt.isPresent()) {
+        // Évaluer à partir de l'atome le plus sélectif, et s'arrêter si l'un d'eux n'a aucune correspondance
+        Map<RDFAtom, Long> estimates = new HashMap<>();
+        for (RDFAtom atom : queryAtoms) {
+            long estimate = estimateMatchNumbers(atom);
+            if (estimate == 0) {
+                return emptyIterator();
+            }
+            estimates.put(atom, estimate);
+        }
+        queryAtoms.sort(Comparator.comparingLong(estimates::get));
+        if (queryAtoms.isEmpty()) {
             return emptyIterator();
         }
-        var smallestQuery = smallestSubstitutionOpt.get();
-        queryAtoms.remove(smallestQuery);
+        var smallestQuery = queryAtoms.remove(0);
 
+        List<Variable> answers = List.copyOf(q.getAnswerVariables());
         var subs = Streams.stream(match(smallestQuery))
                 .filter(sub -> queryAtoms.stream().allMatch(query -> Streams.stream(match(query))
-                        .anyMatch(sub::equals)));
+                        .anyMatch(sub::equals)))
+                .map(sub -> project(sub, answers));
+        if (distinct) {
+            IntTupleSet seen = new IntTupleSet(answers.size());
+            subs = subs.filter(sub -> seen.add(answers.stream().mapToInt(v -> lookup(sub.createImageOf(v))).toArray()));
+        }
 
         return subs.iterator();
 
@@ -21,8 +21,8 @@ public enum RDFMatcher {
             atom -> atom.getTripleSubject().isVariable() && !atom.getTriplePredicate().isVariable()
                     && !atom.getTripleObject().isVariable(),
             (store, atom) -> {
-                var results = store.pos.getOrDefault(store.index(atom.getTriplePredicate()), new HashMap<>())
-                        .getOrDefault(store.index(atom.getTripleObject()), new HashSet<>())
+                var results = store.pos.getOrDefault(store.lookup(atom.getTriplePredicate()), new HashMap<>())
+                        .getOrDefault(store.lookup(atom.getTripleObject()), new HashSet<>())
                         .stream()
                         .map(i -> (Substitution) new SubstitutionImpl(Map.of((Variable) atom.getTripleSubject(), store.dict.get(i))))
                         .collect(Collectors.toSet());
@@ -33,7 +33,7 @@ public enum RDFMatcher {
             atom -> atom.getTripleSubject().isVariable() && atom.getTriplePredicate().isVariable()
                     && !atom.getTripleObject().isVariable(),
             (store, atom) -> {
-                var results = store.ops.getOrDefault(store.index(atom.getTripleObject()), new HashMap<>())
+                var results = store.ops.getOrDefault(store.lookup(atom.getTripleObject()), new HashMap<>())
                         .entrySet().stream()
                         .flatMap(entry -> entry.getValue().stream()
                                 .map(i -> (Substitution) new SubstitutionImpl(Map.of(
@@ -62,7 +62,7 @@ public enum RDFMatcher {
             atom -> !atom.getTripleSubject().isVariable() && atom.getTriplePredicate().isVariable()
                     && atom.getTripleObject().isVariable(),
             (store, atom) -> {
-                var results = store.spo.getOrDefault(store.index(atom.getTripleSubject()), new HashMap<>())
+                var results = store.spo.getOrDefault(store.lookup(atom.getTripleSubject()), new HashMap<>())
                         .entrySet().stream()
                         .flatMap(predicateEntry -> predicateEntry.getValue().stream()
                                 .map(objectId -> (Substitution) new SubstitutionImpl(Map.of(
@@ -76,8 +76,8 @@ public enum RDFMatcher {
             atom -> !atom.getTripleSubject().isVariable() && !atom.getTriplePredicate().isVariable()
                     && atom.getTripleObject().isVariable(),
             (store, atom) -> {
-                var results = store.spo.getOrDefault(store.index(atom.getTripleSubject()), new HashMap<>())
-                        .getOrDefault(store.index(atom.getTriplePredicate()), new HashSet<>())
+                var results = store.spo.getOrDefault(store.lookup(atom.getTripleSubject()), new HashMap<>())
+                        .getOrDefault(store.lookup(atom.getTriplePredicate()), new HashSet<>())
                         .stream()
                         .map(objectId -> (Substitution) new SubstitutionImpl(Map.of(
                                 (Variable) atom.getTripleObject(), store.dict.get(objectId))))
@@ -89,9 +89,9 @@ public enum RDFMatcher {
             atom -> !atom.getTripleSubject().isVariable() && atom.getTriplePredicate().isVariable()
                     && !atom.getTripleObject().isVariable(),
             (store, atom) -> {
-                var results = store.spo.getOrDefault(store.index(atom.getTripleSubject()), new HashMap<>())
+                var results = store.spo.getOrDefault(store.lookup(atom.getTripleSubject()), new HashMap<>())
                         .entrySet().stream()
-                        .filter(entry -> entry.getValue().contains(store.index(atom.getTripleObject())))
+                        .filter(entry -> entry.getValue().contains(store.lookup(atom.getTripleObject())))
                         .map(entry -> (Substitution) new SubstitutionImpl(Map.of(
                                 (Variable) atom.getTriplePredicate(), store.dict.get(entry.getKey()))))
                         .collect(Collectors.toSet());
@@ -0,0 +1,394 @@
+package qengine.parser;
+
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import qengine.storage.IndexPipeline;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.TermDictionary;
+import qengine.storage.primitive.TripleBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lecteur N-Triples travaillant directement sur les octets du fichier, lus par blocs dans un
+ * {@link FileChannel}. Les IRI et littéraux sont délimités sur place dans le tampon et chaque triplet
+ * est remis sous forme d'identifiants {@code (sujet, prédicat, objet)} du dictionnaire donné, sans
+ * créer d'{@code Atom} ni de {@link qengine.model.RDFAtom}.
+ * <p>
+ * Les termes sont ceux de la traduction Raw de {@link RDFAtomParser} : un littéral de l'IRI sans chevrons,
+ * de la forme lexicale d'un littéral (sans langue ni type) ou de l'étiquette d'un nœud blanc. Un terme
+ * n'est créé qu'au premier passage de son libellé : un cache à correspondance directe associe les octets
+ * des libellés récents à leur identifiant, ce qui couvre les prédicats et les sujets consécutifs.
+ * <p>
+ * Le lecteur peut aussi ne lire qu'un bloc de lignes du fichier et remettre les libellés à un
+ * {@link LabelEncoder} plutôt qu'à un dictionnaire, comme le fait {@link ParallelNTriplesLoader}.
+ */
+public class NTriplesReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Nombre de cases du cache de libellés (puissance de 2)
+    private static final int CACHE_SIZE = 1 << 16;
+
+    /**
+     * Attribution des identifiants à partir des libellés des termes, dans les deux espaces de
+     * {@link TermDictionary} : les identifiants de prédicats sont marqués par {@link TermDictionary#PREDICATE_TAG}.
+     */
+    @FunctionalInterface
+    public interface LabelEncoder {
+        /**
+         * @param label    le libellé du terme, échappements résolus
+         * @param position 0 pour le sujet, 1 pour le prédicat, 2 pour l'objet
+         * @return l'identifiant du terme dans l'espace de sa position
+         */
+        int encode(String label, int position);
+    }
+
+    /**
+     * Destinataire des triplets encodés.
+     */
+    @FunctionalInterface
+    public interface TripleHandler {
+        void triple(int subjectId, int predicateId, int objectId);
+    }
+
+    private final FileChannel channel;
+    private final LabelEncoder encoder;
+    // Bloc [position, end) du fichier restant à lire
+    private long position;
+    private final long end;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    // Cache des libellés : octets bruts du libellé et identifiant, dans l'espace de sa position
+    private final byte[][] cachedLabels = new byte[CACHE_SIZE][];
+    private final int[] cachedIds = new int[CACHE_SIZE];
+
+    // Identifiant du dernier terme lu et numéro de la ligne courante
+    private int termId;
+    private long line;
+
+    /**
+     * @param file       le fichier N-Triples
+     * @param dictionary le dictionnaire qui attribue les identifiants, modifiable
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    public NTriplesReader(Path file, TermDictionary dictionary) throws IOException {
+        this(file, (label, position) ->
+                dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral(label), position), 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param file    le fichier N-Triples
+     * @param encoder l'attribution des identifiants
+     * @param from    le début du bloc lu, au début d'une ligne
+     * @param to      la fin (exclue) du bloc lu, à la fin d'une ligne ou du fichier
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    public NTriplesReader(Path file, LabelEncoder encoder, long from, long to) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.encoder = encoder;
+        this.position = from;
+        this.end = to;
+    }
+
+    /**
+     * Charge un fichier N-Triples dans un store, triplet par triplet, sans passer par les termes.
+     *
+     * @param file  le fichier N-Triples
+     * @param store le store, non gelé
+     * @return le nombre de triplets lus, doublons compris
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si une ligne n'est pas un triplet N-Triples
+     * @throws IllegalStateException    si le store est gelé
+     */
+    public static long load(Path file, RDFHexaStore store) throws IOException {
+        if (store.isFrozen()) {
+            throw new IllegalStateException("Le store est gelé : aucun ajout n'est possible après freeze().");
+        }
+        try (NTriplesReader reader = new NTriplesReader(file, store.getDictionary())) {
+            return reader.read(store::add);
+        }
+    }
+
+    /**
+     * Charge un fichier N-Triples dans un store en pipeline ({@link IndexPipeline}) : le thread appelant
+     * lit et encode les triplets pendant que chaque index est construit par son propre thread. L'analyse
+     * et l'encodage restent dans le même étage, le cache de libellés évitant la plupart des créations de
+     * chaînes qu'imposerait un échange de libellés entre deux étages.
+     *
+     * @param file  le fichier N-Triples
+     * @param store le store, non gelé
+     * @return le nombre de triplets lus, doublons compris
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si une ligne n'est pas un triplet N-Triples
+     * @throws IllegalStateException    si le store est gelé
+     */
+    public static long loadPipelined(Path file, RDFHexaStore store) throws IOException {
+        try (IndexPipeline pipeline = store.openPipeline(IndexPipeline.DEFAULT_CAPACITY);
+             NTriplesReader reader = new NTriplesReader(file, store.getDictionary())) {
+            long triples = reader.read(pipeline::add);
+            pipeline.finish();
+            return triples;
+        }
+    }
+
+    /**
+     * Charge un fichier N-Triples dans un store vide en construisant ses index par tri
+     * ({@link RDFHexaStore#bulkLoad(int[], int)}) une fois tous les triplets lus. Le store est gelé au retour.
+     *
+     * @param file  le fichier N-Triples
+     * @param store le store, vide et non gelé
+     * @return le nombre de triplets lus, doublons compris
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si une ligne n'est pas un triplet N-Triples
+     * @throws IllegalStateException    si le store n'est pas vide ou est gelé
+     */
+    public static long bulkLoad(Path file, RDFHexaStore store) throws IOException {
+        if (store.isFrozen() || store.size() != 0) {
+            throw new IllegalStateException("Le chargement en bloc exige un store vide et non gelé.");
+        }
+        TripleBuffer triples = new TripleBuffer();
+        try (NTriplesReader reader = new NTriplesReader(file, store.getDictionary())) {
+            reader.read(triples::add);
+        }
+        store.bulkLoad(triples.array(), triples.size());
+        return triples.size();
+    }
+
+    /**
+     * Lit tout le bloc et remet chaque triplet encodé au destinataire, dans l'ordre du fichier.
+     * Les lignes vides et les commentaires sont ignorés.
+     *
+     * @param handler le destinataire des triplets
+     * @return le nombre de triplets lus
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si une ligne n'est pas un triplet N-Triples
+     */
+    public long read(TripleHandler handler) throws IOException {
+        long triples = 0;
+        int length = 0;
+        while (true) {
+            int read = position < end
+                    ? channel.read(ByteBuffer.wrap(buffer, length, (int) Math.min(buffer.length - length, end - position)), position)
+                    : -1;
+            if (read > 0) {
+                length += read;
+                position += read;
+            }
+
+            // Analyse les lignes complètes du tampon
+            int start = 0;
+            for (int newline = indexOf((byte) '\n', start, length); newline >= 0; newline = indexOf((byte) '\n', start, length)) {
+                triples += parseLine(start, newline, handler);
+                start = newline + 1;
+            }
+            if (read < 0) {
+                return start < length ? triples + parseLine(start, length, handler) : triples;
+            }
+
+            // Ramène la ligne incomplète au début du tampon, agrandi si elle le remplit
+            System.arraycopy(buffer, start, buffer, 0, length - start);
+            length -= start;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Analyse la ligne {@code [from, to)} du tampon.
+     *
+     * @return 1 si la ligne contient un triplet, 0 si elle est vide ou en commentaire
+     */
+    private int parseLine(int from, int to, TripleHandler handler) {
+        line++;
+        int i = skipSpaces(from, to);
+        if (i == to || buffer[i] == '#') {
+            return 0;
+        }
+
+        i = term(i, to, 0);
+        int subjectId = termId;
+        i = term(i, to, 1);
+        int predicateId = termId;
+        i = term(i, to, 2);
+        int objectId = termId;
+
+        i = skipSpaces(i, to);
+        if (i == to || buffer[i] != '.') {
+            throw malformed("point final attendu");
+        }
+        i = skipSpaces(i + 1, to);
+        if (i != to && buffer[i] != '#') {
+            throw malformed("contenu inattendu après le point final");
+        }
+        handler.triple(subjectId, predicateId, objectId);
+        return 1;
+    }
+
+    /**
+     * Lit le terme commençant après les blancs à partir de {@code i} et range son identifiant dans {@code termId}.
+     *
+     * @param position 0 pour le sujet, 1 pour le prédicat, 2 pour l'objet
+     * @return l'indice qui suit le terme
+     */
+    private int term(int i, int to, int position) {
+        i = skipSpaces(i, to);
+        if (i == to) {
+            throw malformed("terme manquant en position " + position);
+        }
+
+        int labelFrom;
+        int labelTo;
+        int next;
+        if (buffer[i] == '<') {
+            labelFrom = i + 1;
+            labelTo = indexOf((byte) '>', labelFrom, to);
+            if (labelTo < 0) {
+                throw malformed("IRI non fermée");
+            }
+            next = labelTo + 1;
+        } else if (buffer[i] == '"' && position == 2) {
+            labelFrom = i + 1;
+            labelTo = labelFrom;
+            while (labelTo < to && buffer[labelTo] != '"') {
+                labelTo += buffer[labelTo] == '\\' ? 2 : 1;
+            }
+            if (labelTo >= to) {
+                throw malformed("littéral non fermé");
+            }
+            next = skipLiteralSuffix(labelTo + 1, to);
+        } else if (buffer[i] == '_' && position != 1 && i + 1 < to && buffer[i + 1] == ':') {
+            labelFrom = i + 2;
+            labelTo = labelFrom;
+            // Une étiquette peut contenir des points, mais pas se terminer par un point
+            while (labelTo < to && !isSpace(buffer[labelTo])
+                    && !(buffer[labelTo] == '.' && (labelTo + 1 == to || isSpace(buffer[labelTo + 1])))) {
+                labelTo++;
+            }
+            next = labelTo;
+        } else {
+            throw malformed("terme invalide en position " + position);
+        }
+        termId = encode(labelFrom, labelTo, position);
+        return next;
+    }
+
+    /**
+     * Saute l'étiquette de langue ({@code @fr}) ou le type ({@code ^^<iri>}) d'un littéral,
+     * que la traduction Raw ne conserve pas.
+     */
+    private int skipLiteralSuffix(int i, int to) {
+        if (i < to && buffer[i] == '@') {
+            i++;
+            while (i < to && (Character.isLetterOrDigit(buffer[i]) || buffer[i] == '-')) {
+                i++;
+            }
+        } else if (i + 2 < to && buffer[i] == '^' && buffer[i + 1] == '^' && buffer[i + 2] == '<') {
+            int end = indexOf((byte) '>', i + 3, to);
+            if (end < 0) {
+                throw malformed("type de littéral non fermé");
+            }
+            i = end + 1;
+        }
+        return i;
+    }
+
+    /**
+     * Retourne l'identifiant du libellé {@code [from, to)} du tampon, depuis le cache si possible.
+     * Sinon le libellé (échappements résolus) est encodé par {@code encoder}.
+     */
+    private int encode(int from, int to, int position) {
+        boolean predicate = position == 1;
+        int hash = predicate ? 1 : 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        hash *= 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+
+        byte[] cached = cachedLabels[slot];
+        if (cached != null && TermDictionary.isPredicate(cachedIds[slot]) == predicate
+                && Arrays.equals(cached, 0, cached.length, buffer, from, to)) {
+            return cachedIds[slot];
+        }
+
+        String label = new String(buffer, from, to - from, StandardCharsets.UTF_8);
+        int id = encoder.encode(label.indexOf('\\') < 0 ? label : unescape(label), position);
+        cachedLabels[slot] = Arrays.copyOfRange(buffer, from, to);
+        cachedIds[slot] = id;
+        return id;
+    }
+
+    /**
+     * Résout les échappements N-Triples : {@code \t \b \n \r \f \" \' \\}, {@code \}{@code uXXXX}
+     * et {@code \}{@code UXXXXXXXX}.
+     */
+    private String unescape(String label) {
+        StringBuilder unescaped = new StringBuilder(label.length());
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c != '\\') {
+                unescaped.append(c);
+                continue;
+            }
+            if (++i == label.length()) {
+                throw malformed("échappement incomplet");
+            }
+            switch (label.charAt(i)) {
+                case 't' -> unescaped.append('\t');
+                case 'b' -> unescaped.append('\b');
+                case 'n' -> unescaped.append('\n');
+                case 'r' -> unescaped.append('\r');
+                case 'f' -> unescaped.append('\f');
+                case '"', '\'', '\\' -> unescaped.append(label.charAt(i));
+                case 'u', 'U' -> {
+                    int digits = label.charAt(i) == 'u' ? 4 : 8;
+                    if (i + digits >= label.length()) {
+                        throw malformed("échappement Unicode incomplet");
+                    }
+                    try {
+                        unescaped.appendCodePoint(Integer.parseInt(label, i + 1, i + 1 + digits, 16));
+                    } catch (IllegalArgumentException e) {
+                        throw malformed("échappement Unicode invalide");
+                    }
+                    i += digits;
+                }
+                default -> throw malformed("échappement inconnu \\" + label.charAt(i));
+            }
+        }
+        return unescaped.toString();
+    }
+
+    private int indexOf(byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int skipSpaces(int i, int to) {
+        while (i < to && isSpace(buffer[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Ligne " + line + " mal formée : " + reason + ".");
+    }
+}
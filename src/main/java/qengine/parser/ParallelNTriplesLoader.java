@@ -0,0 +1,279 @@
+package qengine.parser;
+
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.TermDictionary;
+import qengine.storage.primitive.TripleBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Chargement parallèle d'un fichier N-Triples dans un {@link RDFHexaStore}.
+ * <p>
+ * Le fichier est découpé en blocs de lignes complètes, analysés en parallèle sur un {@link ForkJoinPool}
+ * par des {@link NTriplesReader}. Chaque bloc a son propre dictionnaire de libellés : les triplets y sont
+ * encodés en identifiants locaux, sans synchronisation. Les dictionnaires des blocs sont ensuite fusionnés
+ * dans celui du store, dans l'ordre du fichier, et les triplets renumérotés sont ajoutés en bloc
+ * ({@link RDFHexaStore#addAll(int[], int)}). Les identifiants attribués sont donc ceux d'un chargement
+ * séquentiel : un terme reçoit son identifiant à sa première apparition dans le fichier.
+ * <p>
+ * {@link #bulkLoad(Path, RDFHexaStore, ForkJoinPool, long)} rassemble plutôt tous les triplets renumérotés
+ * et construit les index gelés par tri ({@link RDFHexaStore#bulkLoad(int[], int)}).
+ */
+public final class ParallelNTriplesLoader {
+    /**
+     * Taille par défaut des blocs, en octets.
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 32L << 20;
+
+    /**
+     * Bilan d'un chargement.
+     *
+     * @param triples le nombre de triplets lus, doublons compris
+     * @param added   le nombre de triplets ajoutés au store
+     * @param chunks  le nombre de blocs analysés
+     * @param nanos   la durée du chargement, en nanosecondes
+     */
+    public record Result(long triples, long added, int chunks, long nanos) {
+
+        /**
+         * @return le débit du chargement, en triplets lus par seconde
+         */
+        public double triplesPerSecond() {
+            return nanos == 0 ? 0 : triples * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d triplets lus (%,d ajoutés) en %d blocs, %d ms, %,.0f triplets/s",
+                    triples, added, chunks, nanos / 1_000_000, triplesPerSecond());
+        }
+    }
+
+    private ParallelNTriplesLoader() {
+    }
+
+    /**
+     * Charge un fichier sur le pool commun, par blocs de {@value #DEFAULT_CHUNK_SIZE} octets.
+     *
+     * @see #load(Path, RDFHexaStore, ForkJoinPool, long)
+     */
+    public static Result load(Path file, RDFHexaStore store) throws IOException {
+        return load(file, store, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Charge un fichier N-Triples dans un store.
+     *
+     * @param file      le fichier N-Triples
+     * @param store     le store, non gelé
+     * @param pool      le pool qui analyse les blocs
+     * @param chunkSize la taille visée des blocs, en octets
+     * @return le bilan du chargement
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si une ligne n'est pas un triplet N-Triples
+     * @throws IllegalStateException    si le store est gelé
+     */
+    public static Result load(Path file, RDFHexaStore store, ForkJoinPool pool, long chunkSize) throws IOException {
+        return load(file, store, pool, chunkSize, false);
+    }
+
+    /**
+     * Charge un fichier sur le pool commun et construit les index par tri.
+     *
+     * @see #bulkLoad(Path, RDFHexaStore, ForkJoinPool, long)
+     */
+    public static Result bulkLoad(Path file, RDFHexaStore store) throws IOException {
+        return bulkLoad(file, store, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Charge un fichier N-Triples dans un store vide, dont les index sont construits par tri une fois
+     * tous les blocs analysés. Le store est gelé au retour.
+     *
+     * @param file      le fichier N-Triples
+     * @param store     le store, vide et non gelé
+     * @param pool      le pool qui analyse les blocs
+     * @param chunkSize la taille visée des blocs, en octets
+     * @return le bilan du chargement, les triplets ajoutés étant les triplets distincts
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si une ligne n'est pas un triplet N-Triples
+     * @throws IllegalStateException    si le store n'est pas vide ou est gelé
+     */
+    public static Result bulkLoad(Path file, RDFHexaStore store, ForkJoinPool pool, long chunkSize) throws IOException {
+        if (store.size() != 0) {
+            throw new IllegalStateException("Le chargement en bloc exige un store vide et non gelé.");
+        }
+        return load(file, store, pool, chunkSize, true);
+    }
+
+    private static Result load(Path file, RDFHexaStore store, ForkJoinPool pool, long chunkSize, boolean bulk)
+            throws IOException {
+        if (store.isFrozen()) {
+            throw new IllegalStateException("Le store est gelé : aucun ajout n'est possible après freeze().");
+        }
+        long startTime = System.nanoTime();
+        long[] boundaries = boundaries(file, chunkSize);
+
+        // Analyse des blocs en parallèle
+        List<RecursiveTask<Chunk>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            long from = boundaries[i];
+            long to = boundaries[i + 1];
+            tasks.add(new RecursiveTask<>() {
+                @Override
+                protected Chunk compute() {
+                    try {
+                        return Chunk.parse(file, from, to);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+        tasks.forEach(pool::execute);
+
+        // Fusion des dictionnaires et ajout des triplets, dans l'ordre du fichier
+        TermDictionary dictionary = store.getDictionary();
+        TripleBuffer all = bulk ? new TripleBuffer() : null;
+        long triples = 0;
+        long added = 0;
+        for (RecursiveTask<Chunk> task : tasks) {
+            Chunk chunk;
+            try {
+                chunk = task.join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            chunk.renumber(dictionary);
+            triples += chunk.triples.size();
+            if (bulk) {
+                all.addAll(chunk.triples);
+            } else {
+                added += store.addAll(chunk.triples.array(), chunk.triples.size());
+            }
+        }
+        if (bulk) {
+            added = store.bulkLoad(all.array(), all.size());
+        }
+        return new Result(triples, added, tasks.size(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Découpe le fichier en blocs d'environ {@code chunkSize} octets, chaque limite étant placée
+     * juste après une fin de ligne.
+     *
+     * @return les limites croissantes des blocs, de 0 à la taille du fichier
+     */
+    static long[] boundaries(Path file, long chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> boundaries = new ArrayList<>();
+            boundaries.add(0L);
+            ByteBuffer probe = ByteBuffer.allocate(8192);
+            long target = chunkSize;
+            while (target < size) {
+                long boundary = nextLineStart(channel, probe, target, size);
+                if (boundary >= size) {
+                    break;
+                }
+                boundaries.add(boundary);
+                target = boundary + chunkSize;
+            }
+            boundaries.add(size);
+            return boundaries.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    /**
+     * @return la position qui suit la première fin de ligne à partir de {@code from}, ou {@code size}
+     */
+    private static long nextLineStart(FileChannel channel, ByteBuffer probe, long from, long size) throws IOException {
+        for (long position = from; position < size; ) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Un bloc analysé : triplets en identifiants locaux, et libellés de ces identifiants.
+     */
+    private static final class Chunk implements NTriplesReader.LabelEncoder {
+        // Libellés par rang local (case 0 inutilisée), et rang de chaque libellé
+        private final List<String> entityLabels = new ArrayList<>(List.of(""));
+        private final List<String> predicateLabels = new ArrayList<>(List.of(""));
+        private final Map<String, Integer> entityRanks = new HashMap<>();
+        private final Map<String, Integer> predicateRanks = new HashMap<>();
+
+        private final TripleBuffer triples = new TripleBuffer();
+
+        static Chunk parse(Path file, long from, long to) throws IOException {
+            Chunk chunk = new Chunk();
+            try (NTriplesReader reader = new NTriplesReader(file, chunk, from, to)) {
+                reader.read(chunk.triples::add);
+            }
+            return chunk;
+        }
+
+        @Override
+        public int encode(String label, int position) {
+            if (position == 1) {
+                return TermDictionary.predicateId(rank(label, predicateRanks, predicateLabels));
+            }
+            return rank(label, entityRanks, entityLabels);
+        }
+
+        private static int rank(String label, Map<String, Integer> ranks, List<String> labels) {
+            return ranks.computeIfAbsent(label, l -> {
+                labels.add(l);
+                return labels.size() - 1;
+            });
+        }
+
+        /**
+         * Encode les libellés du bloc dans le dictionnaire du store, dans leur ordre d'apparition,
+         * et remplace les identifiants locaux des triplets par ceux du store.
+         */
+        void renumber(TermDictionary dictionary) {
+            SameObjectTermFactory factory = SameObjectTermFactory.instance();
+            int[] triples = this.triples.array();
+            int[] entities = new int[entityLabels.size()];
+            int[] predicates = new int[predicateLabels.size()];
+            // Les rangs locaux des deux espaces suivent l'ordre d'apparition : les parcourir ligne par
+            // ligne attribue les identifiants du store dans l'ordre d'un chargement séquentiel
+            for (int i = 0; i < 3 * this.triples.size(); i++) {
+                int local = triples[i];
+                if (TermDictionary.isPredicate(local)) {
+                    int rank = TermDictionary.predicateRank(local);
+                    if (predicates[rank] == TermDictionary.UNKNOWN) {
+                        predicates[rank] = dictionary.encodePredicate(factory.createOrGetLiteral(predicateLabels.get(rank)));
+                    }
+                    triples[i] = predicates[rank];
+                } else {
+                    if (entities[local] == TermDictionary.UNKNOWN) {
+                        entities[local] = dictionary.encode(factory.createOrGetLiteral(entityLabels.get(local)));
+                    }
+                    triples[i] = entities[local];
+                }
+            }
+        }
+    }
+}
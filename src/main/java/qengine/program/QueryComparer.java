@@ -43,26 +43,18 @@ public final class QueryComparer {
      * Compare les résultats des requêtes avec les données RDF et les requêtes fournies.
      */
     private static void comparerAvecFichiers(String cheminFichierDonnees, String cheminFichierRequetes) throws IOException {
-        // Parser les données RDF
-        System.out.println("Parsage des atomes... ⏳");
-        List<RDFAtom> rdfAtoms = parserDonneesRDF(cheminFichierDonnees);
-        System.out.printf("⚛\uFE0F %d atomes ont été récupérées.%n\n", rdfAtoms.size());
+        // Créer et peupler le RDFHexaStore et le SimpleInMemoryGraphStore avec les mêmes atomes
+        System.out.println("Chargement des atomes... ⏳");
+        RDFHexaStore store = new RDFHexaStore();
+        FactBase factBase = new SimpleInMemoryGraphStore();
+        long triplets = peuplerBases(cheminFichierDonnees, store, factBase);
+        System.out.printf("⚛\uFE0F %d atomes ont été récupérées.%n\n", triplets);
 
         // Parser les requêtes
         System.out.println("Parsage des requêtes... ⏳");
         List<StarQuery> starQueries = parserRequetesSparQL(cheminFichierRequetes);
         System.out.printf("⁉\uFE0F %d requêtes ont été récupérés.%n\n", starQueries.size());
 
-        // Créer et peupler le RDFHexaStore
-        RDFHexaStore store = new RDFHexaStore();
-        store.addAll(rdfAtoms);
-
-        // Créer et peupler le SimpleInMemoryGraphStore
-        FactBase factBase = new SimpleInMemoryGraphStore();
-        for (RDFAtom atom : rdfAtoms) {
-            factBase.add(atom);
-        }
-
         // Comparer les résultats pour chaque requête
         System.out.println("Exécution et comparaison des résultats des requêtes avec Integraal et notre implémentation... ⏳");
         int testsReussis = 0;
@@ -90,19 +82,24 @@ public final class QueryComparer {
     }
 
     /**
-     * Parse les données RDF à partir d'un fichier.
+     * Parse les données RDF à partir d'un fichier et ajoute chaque atome au store et à la base de faits,
+     * sans les conserver : les deux implémentations reçoivent exactement les mêmes termes.
+     *
+     * @return le nombre d'atomes parsés
      */
-    private static List<RDFAtom> parserDonneesRDF(String cheminFichierRDF) throws IOException {
+    private static long peuplerBases(String cheminFichierRDF, RDFHexaStore store, FactBase factBase) throws IOException {
         FileReader rdfFile = new FileReader(cheminFichierRDF);
-        List<RDFAtom> rdfAtoms = new ArrayList<>();
+        long atomes = 0;
 
         try (RDFAtomParser rdfAtomParser = new RDFAtomParser(rdfFile, RDFFormat.NTRIPLES)) { // Créer un parser pour les atomes RDF
             while (rdfAtomParser.hasNext()) { // Tant qu'il y a des atomes à parser
-                RDFAtom atom = rdfAtomParser.next(); // Parser l'atome RDF
-                rdfAtoms.add(atom); // Ajouter l'atome RDF à la liste
+                RDFAtom atom = rdfAtomParser.next();
+                store.add(atom); // Ajouter l'atome RDF au store
+                factBase.add(atom); // Ajouter le même atome à la base de faits
+                atomes++;
             }
         }
-        return rdfAtoms;
+        return atomes;
     }
 
     /**
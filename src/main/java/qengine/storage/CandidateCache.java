@@ -0,0 +1,234 @@
+package qengine.storage;
+
+import qengine.storage.posting.PostingList;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des listes de valeurs candidates de la variable centrale par triplet, partagé par toutes les
+ * requêtes en étoile d'un store : deux requêtes différentes contenant le même triplet, par exemple
+ * {@code (?v0, eligibleRegion, Country137)}, réutilisent la même liste au lieu de relire les index.
+ * <p>
+ * Une entrée est désignée par le motif lié du triplet ({@link Key}) et contient la liste triée des
+ * identifiants. Les entrées sont évincées dans l'ordre LRU pour respecter un budget en octets ;
+ * l'admission suit la politique TinyLFU : une liste qui ne tient qu'en évinçant des entrées n'est admise
+ * que si son motif a été demandé plus souvent que chacune d'elles, d'après un sketch de fréquences
+ * ({@link FrequencySketch}). Les grandes listes rarement demandées ne chassent donc pas les petites
+ * listes fréquentes. Tout ajout au store invalide le cache.
+ * <p>
+ * Le cache est partagé par les threads qui évaluent des requêtes en même temps : chaque lecture réordonne la
+ * liste LRU et incrémente le sketch, aussi {@link #get(Key)}, {@link #offer(Key, PostingList)} et
+ * {@link #invalidate()} sont exclusifs (verrou du cache), et les compteurs sont atomiques.
+ */
+public class CandidateCache {
+    // Surcoût estimé d'une entrée : nœud de la table, clé et en-tête du tableau
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Motif lié d'un triplet : identifiants de ses constantes (0 pour une variable)
+     * et position de la variable centrale.
+     */
+    public record Key(int centralPosition, int subject, int predicate, int object) {
+
+        /**
+         * @param pattern         les identifiants des positions liées, 0 aux positions des variables
+         * @param centralPosition la position de la variable centrale
+         */
+        public static Key of(int[] pattern, int centralPosition) {
+            return new Key(centralPosition, pattern[0], pattern[1], pattern[2]);
+        }
+    }
+
+    /**
+     * @param maxBytes la taille totale estimée maximale des listes conservées, en octets
+     * @throws IllegalArgumentException si le budget n'est pas positif
+     */
+    public CandidateCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Le budget du cache doit être positif : " + maxBytes + " octets.");
+        }
+        this.maxBytes = maxBytes;
+        // Un compteur par entrée de 1 Ko environ
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64, maxBytes / 1024)));
+    }
+
+    /**
+     * Recherche la liste d'un motif ; la demande est comptée dans le sketch de fréquences.
+     *
+     * @return la liste triée, ou null si elle n'est pas conservée
+     */
+    public synchronized int[] get(Key key) {
+        sketch.increment(key.hashCode());
+        int[] ids = entries.get(key);
+        if (ids == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return ids;
+    }
+
+    /**
+     * Propose la liste d'un motif au cache. Elle n'est copiée dans un tableau que si elle est admise.
+     *
+     * @param key  le motif
+     * @param list la liste lue dans les index
+     * @return true si la liste a été admise
+     */
+    public synchronized boolean offer(Key key, PostingList list) {
+        long size = footprint(list.size());
+        if (size > maxBytes) {
+            rejections.incrementAndGet();
+            return false;
+        }
+
+        // Victimes LRU nécessaires pour faire de la place : toutes doivent être moins fréquentes que le candidat
+        int frequency = sketch.frequency(key.hashCode());
+        long freed = 0;
+        for (Iterator<Map.Entry<Key, int[]>> it = entries.entrySet().iterator();
+             it.hasNext() && bytes - freed + size > maxBytes; ) {
+            Map.Entry<Key, int[]> victim = it.next();
+            if (sketch.frequency(victim.getKey().hashCode()) >= frequency) {
+                rejections.incrementAndGet();
+                return false;
+            }
+            freed += footprint(victim.getValue().length);
+        }
+
+        Iterator<Map.Entry<Key, int[]>> eldest = entries.entrySet().iterator();
+        while (bytes + size > maxBytes) {
+            bytes -= footprint(eldest.next().getValue().length);
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+        entries.put(key, list.toArray());
+        bytes += size;
+        return true;
+    }
+
+    /**
+     * Vide le cache après une modification du store. Les fréquences sont conservées.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private static long footprint(int length) {
+        return ENTRY_OVERHEAD + 4L * length;
+    }
+
+    /**
+     * @return le nombre de listes conservées
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return la taille totale estimée des listes conservées, en octets
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return le nombre de listes servies par le cache
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return le nombre de listes absentes du cache
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return le nombre de listes refusées par la politique d'admission ou trop grandes pour le budget
+     */
+    public long rejections() {
+        return rejections.get();
+    }
+
+    /**
+     * @return le nombre de listes évincées pour faire place à une liste admise
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Cache de candidats : %d listes (%,d octets), %d succès, %d échecs, %d refus, %d évictions",
+                entries.size(), bytes, hits.get(), misses.get(), rejections.get(), evictions.get());
+    }
+
+    /**
+     * Sketch count-min de fréquences approchées, à compteurs de 4 bits plafonnés à 15 : quatre lignes
+     * de compteurs, chacune indexée par un hachage différent, la fréquence estimée étant le minimum des
+     * quatre. Tous les compteurs sont divisés par deux après {@code 10 × largeur} incréments, pour que
+     * les fréquences reflètent les demandes récentes. Le sketch n'est utilisé que sous le verrou du cache.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            int capacity = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+            this.counters = new byte[DEPTH][capacity];
+            this.mask = capacity - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        void increment(int hash) {
+            for (int row = 0; row < DEPTH; row++) {
+                int i = index(hash, row);
+                if (counters[row][i] < 15) {
+                    counters[row][i]++;
+                }
+            }
+            if (++additions == sampleSize) {
+                for (byte[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package qengine.storage;
+
+import qengine.model.RDFAtom;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Construction sur disque d'un store trop volumineux pour le tas, dans un budget mémoire fixé.
+ * <p>
+ * Les triplets ajoutés sont encodés par le dictionnaire du constructeur et rangés dans un tampon ; quand le
+ * tampon est plein, il est vidé dans un fichier temporaire. {@link #finish()} construit ensuite chaque
+ * permutation : le fichier est relu par blocs de la taille du tampon, chaque bloc est réordonné, trié par base
+ * ({@link TripleSort}) et écrit sans doublons comme une suite triée ; les suites sont enfin fusionnées
+ * (fusion à k voies) et l'index est écrit au fil de la fusion au format de {@link FrozenTripleIndex#map(Path)}.
+ * Si les suites sont trop nombreuses pour que leurs tampons de lecture tiennent ensemble dans le budget,
+ * elles sont d'abord fusionnées par groupes en suites plus longues, en autant de passes que nécessaire.
+ * Le dictionnaire et le catalogue de statistiques sont écrits à côté, comme par {@link RDFHexaStore#save(Path)},
+ * et le store est ouvert par {@link RDFHexaStore#open(Path)}. Si tous les triplets tiennent dans le tampon,
+ * rien n'est écrit dans les fichiers temporaires.
+ * <p>
+ * Le budget couvre le tampon, les deux tableaux et les histogrammes du tri, les tampons de lecture de la fusion
+ * et les tampons d'écriture des fichiers. Restent en dehors du budget : le dictionnaire et le catalogue de
+ * statistiques, tenus sur le tas, et la liste du troisième niveau du couple en cours d'écriture dans l'index,
+ * dont la taille dépend des données. Les fichiers temporaires sont placés dans le répertoire du store et
+ * supprimés à la fin de la construction.
+ */
+public class ExternalIndexBuilder implements AutoCloseable {
+    /**
+     * Budget mémoire par défaut, en octets.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+    /**
+     * Budget mémoire minimal, en octets.
+     */
+    public static final long MIN_MEMORY_BUDGET = 4L << 20;
+
+    // Octets par triplet du tampon : le tampon lui-même, sa copie réordonnée et le tableau de travail du tri
+    private static final int BYTES_PER_TRIPLE = 3 * 12;
+    private static final int IO_BUFFER = 1 << 16;
+    private static final int MIN_RUN_BUFFER = 12 << 10;
+    private static final int MAX_RUN_BUFFER = 1 << 20;
+    // Mémoire indépendante de la taille du tampon : histogrammes du tri, tampon d'entrées-sorties, écrivain d'index
+    private static final long FIXED_BYTES = TripleSort.HISTOGRAM_BYTES + IO_BUFFER + FrozenTripleIndex.Writer.BUFFER_BYTES;
+
+    /**
+     * Destination des triplets d'une permutation, dans l'ordre de l'index.
+     */
+    @FunctionalInterface
+    private interface TripleSink {
+        void accept(int first, int second, int third) throws IOException;
+    }
+
+    private final Path directory;
+    private final Set<Permutation> permutations;
+    private final long memoryBudget;
+    private final Path workDirectory;
+    private final TermDictionary dictionary = new RDFDictionary();
+
+    private final int[] buffer;
+    private int count;
+    private final int[][] histograms = TripleSort.newHistograms();
+    // Mémoire des tampons de lecture de la fusion, et nombre de suites fusionnées à la fois
+    private final long mergeBytes;
+    private final int maxFanIn;
+    // Triplets déjà vidés dans le fichier temporaire, dans leur ordre d'arrivée
+    private final Path spillFile;
+    private FileChannel spill;
+    private long spilled;
+    private final ByteBuffer io = ByteBuffer.allocate(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    private boolean finished;
+
+    /**
+     * Prépare la construction d'un store avec les six index et le budget par défaut.
+     *
+     * @param directory le répertoire du store, créé s'il n'existe pas
+     * @throws IOException si le répertoire ou les fichiers temporaires ne peuvent être créés
+     */
+    public ExternalIndexBuilder(Path directory) throws IOException {
+        this(directory, Permutation.ALL, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Prépare la construction d'un store.
+     *
+     * @param directory    le répertoire du store, créé s'il n'existe pas
+     * @param permutations les permutations à indexer
+     * @param memoryBudget la mémoire consacrée aux triplets, en octets
+     * @throws IOException              si le répertoire ou les fichiers temporaires ne peuvent être créés
+     * @throws IllegalArgumentException si aucune permutation n'est donnée ou si le budget est inférieur à
+     *                                  {@value #MIN_MEMORY_BUDGET} octets
+     */
+    public ExternalIndexBuilder(Path directory, Set<Permutation> permutations, long memoryBudget) throws IOException {
+        this(directory, permutations, memoryBudget, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxFanIn borne supplémentaire du nombre de suites fusionnées à la fois
+     */
+    ExternalIndexBuilder(Path directory, Set<Permutation> permutations, long memoryBudget, int maxFanIn)
+            throws IOException {
+        if (permutations.isEmpty()) {
+            throw new IllegalArgumentException("Au moins une permutation doit être indexée.");
+        }
+        if (memoryBudget < MIN_MEMORY_BUDGET) {
+            throw new IllegalArgumentException("Budget mémoire insuffisant : " + memoryBudget + " octets.");
+        }
+        this.directory = directory;
+        this.permutations = EnumSet.copyOf(permutations);
+        this.memoryBudget = memoryBudget;
+        // Le tampon occupe le tiers de la mémoire des triplets pendant le tri et la fusion : les deux autres tiers
+        // servent aux tableaux du tri, puis aux tampons de lecture de la fusion
+        this.buffer = new int[3 * (int) Math.min((memoryBudget - FIXED_BYTES) / BYTES_PER_TRIPLE, Integer.MAX_VALUE / 6)];
+        this.mergeBytes = memoryBudget - FIXED_BYTES - 4L * buffer.length;
+        this.maxFanIn = (int) Math.max(2, Math.min(maxFanIn, mergeBytes / MIN_RUN_BUFFER));
+        Files.createDirectories(directory);
+        this.workDirectory = Files.createTempDirectory(directory, "tri-");
+        this.spillFile = workDirectory.resolve("triplets.bin");
+    }
+
+    /**
+     * Encode un triplet par le dictionnaire du constructeur et l'ajoute.
+     *
+     * @param atom le triplet
+     * @throws IOException en cas d'erreur d'écriture du fichier temporaire
+     */
+    public void add(RDFAtom atom) throws IOException {
+        add(dictionary.encode(atom.getTripleSubject()), dictionary.encodePredicate(atom.getTriplePredicate()),
+                dictionary.encode(atom.getTripleObject()));
+    }
+
+    /**
+     * Ajoute un triplet déjà encodé par le dictionnaire du constructeur ({@link #getDictionary()}).
+     *
+     * @throws IOException           en cas d'erreur d'écriture du fichier temporaire
+     * @throws IllegalStateException si la construction est terminée
+     */
+    public void add(int subjectId, int predicateId, int objectId) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("La construction du store est terminée.");
+        }
+        if (3 * count == buffer.length) {
+            spill();
+        }
+        int base = 3 * count++;
+        buffer[base] = subjectId;
+        buffer[base + 1] = predicateId;
+        buffer[base + 2] = objectId;
+    }
+
+    /**
+     * @return le dictionnaire qui encode les triplets ajoutés
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return le nombre de triplets ajoutés, doublons compris
+     */
+    public long size() {
+        return spilled + count;
+    }
+
+    /**
+     * @return le budget mémoire consacré aux triplets, en octets
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Construit et écrit les index, le dictionnaire et les statistiques, supprime les fichiers temporaires
+     * et ouvre le store obtenu.
+     *
+     * @return le store, gelé et servi depuis ses fichiers
+     * @throws IOException           en cas d'erreur de lecture ou d'écriture
+     * @throws IllegalStateException si la construction est déjà terminée
+     */
+    public RDFHexaStore finish() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("La construction du store est terminée.");
+        }
+        finished = true;
+        if (spilled > 0) {
+            spill();
+        }
+
+        // Le catalogue de statistiques est rempli avec les triplets distincts du premier index
+        StatisticsCatalog statistics = new StatisticsCatalog();
+        boolean first = true;
+        for (Permutation permutation : permutations) {
+            Path file = directory.resolve(permutation + RDFHexaStore.INDEX_EXTENSION);
+            try (FrozenTripleIndex.Writer writer = new FrozenTripleIndex.Writer(file, workDirectory)) {
+                TripleSink sink = writer::add;
+                if (first) {
+                    int[] triple = new int[3];
+                    sink = (a, b, c) -> {
+                        if (writer.add(a, b, c)) {
+                            triple[permutation.position(0)] = a;
+                            triple[permutation.position(1)] = b;
+                            triple[permutation.position(2)] = c;
+                            statistics.add(triple[0], triple[1], triple[2]);
+                        }
+                    };
+                }
+                if (spilled == 0) {
+                    int[] sorted = sortRun(buffer, count, permutation, new int[3 * count], new int[3 * count], histograms);
+                    for (int i = 0, base = 0; i < count; i++, base += 3) {
+                        sink.accept(sorted[base], sorted[base + 1], sorted[base + 2]);
+                    }
+                } else {
+                    mergeRuns(permutation, sink);
+                }
+                writer.finish();
+            }
+            first = false;
+        }
+        statistics.write(directory.resolve(RDFHexaStore.STATISTICS_FILE));
+        MappedDictionary.write(dictionary, directory.resolve(RDFHexaStore.DICTIONARY_FILE));
+        close();
+        return RDFHexaStore.open(directory);
+    }
+
+    /**
+     * Supprime les fichiers temporaires ; une construction inachevée est abandonnée.
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
+        if (Files.exists(workDirectory)) {
+            try (Stream<Path> files = Files.walk(workDirectory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vide le tampon à la fin du fichier temporaire.
+     */
+    private void spill() throws IOException {
+        if (spill == null) {
+            spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        writeInts(spill, 12 * spilled, buffer, 3 * count);
+        spilled += count;
+        count = 0;
+    }
+
+    /**
+     * Écrit les suites triées de la permutation, les fusionne par groupes tant qu'elles sont trop nombreuses,
+     * puis transmet la fusion finale à la destination.
+     */
+    private void mergeRuns(Permutation permutation, TripleSink sink) throws IOException {
+        Path runsFile = workDirectory.resolve(permutation + ".runs");
+        List<long[]> runs = writeRuns(permutation, runsFile);
+        for (int pass = 1; runs.size() > maxFanIn; pass++) {
+            Path mergedFile = workDirectory.resolve(permutation + ".runs" + pass);
+            List<long[]> merged = new ArrayList<>();
+            try (FileChannel in = FileChannel.open(runsFile, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(mergedFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int from = 0; from < runs.size(); from += maxFanIn) {
+                    List<long[]> group = runs.subList(from, Math.min(from + maxFanIn, runs.size()));
+                    long start = out.size();
+                    // Les doublons entre suites d'un groupe sont conservés : l'écrivain d'index les élimine
+                    io.clear();
+                    merge(in, group, (a, b, c) -> {
+                        if (io.remaining() < 12) {
+                            drain(out);
+                        }
+                        io.putInt(a).putInt(b).putInt(c);
+                    });
+                    drain(out);
+                    merged.add(new long[]{start / 12, (out.size() - start) / 12});
+                }
+            }
+            Files.delete(runsFile);
+            runsFile = mergedFile;
+            runs = merged;
+        }
+        try (FileChannel in = FileChannel.open(runsFile, StandardOpenOption.READ)) {
+            merge(in, runs, sink);
+        }
+        Files.delete(runsFile);
+    }
+
+    /**
+     * Relit le fichier temporaire par blocs de la taille du tampon, et écrit chaque bloc trié dans l'ordre
+     * de la permutation, sans doublons, dans le fichier des suites.
+     *
+     * @return les suites écrites : position du premier triplet et nombre de triplets
+     */
+    private List<long[]> writeRuns(Permutation permutation, Path runsFile) throws IOException {
+        List<long[]> runs = new ArrayList<>();
+        int[] permuted = new int[buffer.length];
+        int[] scratch = new int[buffer.length];
+        try (FileChannel runsChannel = FileChannel.open(runsFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = 0;
+            for (long read = 0; read < spilled; ) {
+                int n = (int) Math.min(spilled - read, buffer.length / 3);
+                readInts(spill, 12 * read, buffer, 3 * n);
+                read += n;
+                int[] sorted = sortRun(buffer, n, permutation, permuted, scratch, histograms);
+                int distinct = dedup(sorted, n);
+                writeInts(runsChannel, 12 * written, sorted, 3 * distinct);
+                runs.add(new long[]{written, distinct});
+                written += distinct;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Fusionne des suites triées d'un même fichier et transmet leurs triplets dans l'ordre, doublons compris.
+     * Les tampons de lecture des suites se partagent la mémoire de la fusion.
+     */
+    private void merge(FileChannel channel, List<long[]> runs, TripleSink sink) throws IOException {
+        int bufferBytes = (int) (Math.min(mergeBytes / runs.size(), MAX_RUN_BUFFER) / 12 * 12);
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(runs.size());
+        for (long[] run : runs) {
+            RunReader reader = new RunReader(channel, run[0], run[1], bufferBytes);
+            if (reader.next()) {
+                heap.add(reader);
+            }
+        }
+        while (!heap.isEmpty()) {
+            RunReader run = heap.poll();
+            sink.accept(run.first, run.second, run.third);
+            if (run.next()) {
+                heap.add(run);
+            }
+        }
+    }
+
+    /**
+     * Écrit le contenu du tampon d'entrées-sorties à la fin du fichier et le vide.
+     */
+    private void drain(FileChannel channel) throws IOException {
+        io.flip();
+        while (io.hasRemaining()) {
+            channel.write(io, channel.size());
+        }
+        io.clear();
+    }
+
+    /**
+     * Réordonne les {@code n} premiers triplets du tableau selon la permutation et les trie.
+     *
+     * @return le tableau qui contient les triplets triés : {@code permuted} ou {@code scratch}
+     */
+    private static int[] sortRun(int[] triples, int n, Permutation permutation, int[] permuted, int[] scratch,
+                                 int[][] histograms) {
+        int first = permutation.position(0);
+        int second = permutation.position(1);
+        int third = permutation.position(2);
+        for (int i = 0, base = 0; i < n; i++, base += 3) {
+            permuted[base] = triples[base + first];
+            permuted[base + 1] = triples[base + second];
+            permuted[base + 2] = triples[base + third];
+        }
+        return TripleSort.sort(permuted, n, scratch, histograms);
+    }
+
+    /**
+     * Élimine les doublons, consécutifs, des {@code n} premiers triplets triés du tableau.
+     *
+     * @return le nombre de triplets distincts, rangés en tête du tableau
+     */
+    private static int dedup(int[] triples, int n) {
+        int distinct = 0;
+        for (int i = 0, base = 0; i < n; i++, base += 3) {
+            int last = 3 * (distinct - 1);
+            if (distinct == 0 || triples[base] != triples[last] || triples[base + 1] != triples[last + 1]
+                    || triples[base + 2] != triples[last + 2]) {
+                int to = 3 * distinct++;
+                triples[to] = triples[base];
+                triples[to + 1] = triples[base + 1];
+                triples[to + 2] = triples[base + 2];
+            }
+        }
+        return distinct;
+    }
+
+    private void writeInts(FileChannel channel, long position, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; ) {
+            int n = Math.min(length - i, IO_BUFFER / 4);
+            io.clear();
+            io.asIntBuffer().put(values, i, n);
+            io.limit(4 * n);
+            while (io.hasRemaining()) {
+                position += channel.write(io, position);
+            }
+            i += n;
+        }
+    }
+
+    private void readInts(FileChannel channel, long position, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; ) {
+            int n = Math.min(length - i, IO_BUFFER / 4);
+            io.clear().limit(4 * n);
+            while (io.hasRemaining()) {
+                int read = channel.read(io, position);
+                if (read < 0) {
+                    throw new IOException("Fichier temporaire tronqué : " + spillFile);
+                }
+                position += read;
+            }
+            io.flip();
+            io.asIntBuffer().get(values, i, n);
+            i += n;
+        }
+    }
+
+    /**
+     * Lecture séquentielle d'une suite triée de triplets, par lectures positionnées dans le fichier des suites.
+     */
+    private static final class RunReader implements Comparable<RunReader> {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        private long position;
+        private long remaining;
+        private int first;
+        private int second;
+        private int third;
+
+        RunReader(FileChannel channel, long start, long count, int bufferBytes) {
+            this.channel = channel;
+            this.bytes = ByteBuffer.allocate(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+            this.bytes.limit(0);
+            this.position = 12 * start;
+            this.remaining = 12 * count;
+        }
+
+        /**
+         * Avance au triplet suivant de la suite.
+         *
+         * @return false si la suite est épuisée
+         */
+        boolean next() throws IOException {
+            if (!bytes.hasRemaining()) {
+                if (remaining == 0) {
+                    return false;
+                }
+                bytes.clear().limit((int) Math.min(bytes.capacity(), remaining));
+                while (bytes.hasRemaining()) {
+                    int read = channel.read(bytes, position);
+                    if (read < 0) {
+                        throw new IOException("Fichier de suites tronqué.");
+                    }
+                    position += read;
+                    remaining -= read;
+                }
+                bytes.flip();
+            }
+            first = bytes.getInt();
+            second = bytes.getInt();
+            third = bytes.getInt();
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            if (first != other.first) {
+                return Integer.compare(first, other.first);
+            }
+            if (second != other.second) {
+                return Integer.compare(second, other.second);
+            }
+            return Integer.compare(third, other.third);
+        }
+    }
+}
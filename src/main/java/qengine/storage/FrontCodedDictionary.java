@@ -0,0 +1,292 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionnaire en lecture seule stockant les libellés triés, codés en UTF-8 par préfixes communs
+ * (front coding), par blocs de {@value #BLOCK_SIZE} libellés :
+ * <ul>
+ *     <li>le premier libellé d'un bloc est écrit comme un espace de noms (indice dans la table
+ *     {@code namespaces}, par exemple {@code http://db.uwaterloo.ca/~galuc/wsdbm/}) suivi du nom local ;</li>
+ *     <li>chaque libellé suivant est écrit comme la longueur du préfixe partagé avec le précédent
+ *     suivie du suffixe restant.</li>
+ * </ul>
+ * Les entiers sont codés en octets variables. Les identifiants d'origine sont conservés :
+ * {@code ranks} et {@code ids} associent chaque identifiant à son rang dans l'ordre trié.
+ * L'encodage cherche le bloc par dichotomie sur les premiers libellés puis parcourt le bloc ;
+ * le décodage reconstruit le libellé puis le terme, créé seulement à ce moment.
+ * <p>
+ * Seul l'espace des entités est compacté : les prédicats, peu nombreux, restent dans un tableau.
+ */
+public class FrontCodedDictionary implements TermDictionary {
+    /**
+     * Nombre de libellés par bloc.
+     */
+    public static final int BLOCK_SIZE = 16;
+
+    private final byte[][] namespaces;
+    private final byte[] data;
+    private final int[] blockOffsets;
+    // ids[rang] est l'identifiant du libellé de ce rang ; ranks[id] est le rang de l'identifiant
+    private final int[] ids;
+    private final int[] ranks;
+    // predicates[rang] est le prédicat de ce rang ; la case 0 reste vide
+    private final Term[] predicates;
+    private final Map<Term, Integer> predicateRanks;
+
+    private FrontCodedDictionary(byte[][] namespaces, byte[] data, int[] blockOffsets, int[] ids, int[] ranks,
+                                 Term[] predicates) {
+        this.namespaces = namespaces;
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.ids = ids;
+        this.ranks = ranks;
+        this.predicates = predicates;
+        this.predicateRanks = new HashMap<>();
+        for (int rank = 1; rank < predicates.length; rank++) {
+            predicateRanks.put(predicates[rank], rank);
+        }
+    }
+
+    /**
+     * Construit la version compacte d'un dictionnaire, en conservant ses identifiants.
+     *
+     * @param source le dictionnaire à compacter
+     * @return le dictionnaire compact équivalent
+     */
+    public static FrontCodedDictionary of(TermDictionary source) {
+        int n = source.size();
+        byte[][] labels = new byte[n + 1][];
+        Integer[] order = new Integer[n];
+        for (int id = 1; id <= n; id++) {
+            labels[id] = TermDictionary.labelOf(source.decode(id)).getBytes(StandardCharsets.UTF_8);
+            order[id - 1] = id;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(labels[a], labels[b]));
+
+        int[] ids = new int[n];
+        int[] ranks = new int[n + 1];
+        for (int rank = 0; rank < n; rank++) {
+            ids[rank] = order[rank];
+            ranks[order[rank]] = rank;
+        }
+
+        Map<String, Integer> namespaceIndex = new HashMap<>();
+        int[] blockOffsets = new int[(n + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] previous = null;
+        for (int rank = 0; rank < n; rank++) {
+            byte[] label = labels[ids[rank]];
+            if (rank % BLOCK_SIZE == 0) {
+                blockOffsets[rank / BLOCK_SIZE] = out.size();
+                int split = namespaceLength(label);
+                String namespace = new String(label, 0, split, StandardCharsets.UTF_8);
+                Integer index = namespaceIndex.get(namespace);
+                if (index == null) {
+                    index = namespaceIndex.size();
+                    namespaceIndex.put(namespace, index);
+                }
+                writeVarInt(out, index);
+                writeVarInt(out, label.length - split);
+                out.write(label, split, label.length - split);
+            } else {
+                int shared = Arrays.mismatch(previous, label);
+                shared = shared < 0 ? label.length : shared;
+                writeVarInt(out, shared);
+                writeVarInt(out, label.length - shared);
+                out.write(label, shared, label.length - shared);
+            }
+            previous = label;
+        }
+
+        byte[][] namespaces = new byte[namespaceIndex.size()][];
+        namespaceIndex.forEach((namespace, index) -> namespaces[index] = namespace.getBytes(StandardCharsets.UTF_8));
+        Term[] predicates = new Term[source.predicateCount() + 1];
+        for (int rank = 1; rank < predicates.length; rank++) {
+            predicates[rank] = source.decode(TermDictionary.predicateId(rank));
+        }
+        return new FrontCodedDictionary(namespaces, out.toByteArray(), blockOffsets, ids, ranks, predicates);
+    }
+
+    /**
+     * @return la longueur de l'espace de noms d'un libellé : jusqu'au dernier '/' ou '#' inclus
+     */
+    private static int namespaceLength(byte[] label) {
+        for (int i = label.length - 1; i >= 0; i--) {
+            if (label[i] == '/' || label[i] == '#') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Le dictionnaire étant en lecture seule, un terme absent n'est pas ajouté :
+     * {@link TermDictionary#UNKNOWN} est retourné, comme par {@link #lookup(Term)}.
+     */
+    @Override
+    public int encode(Term term) {
+        return lookup(term);
+    }
+
+    @Override
+    public int lookup(Term term) {
+        if (blockOffsets.length == 0) {
+            return UNKNOWN;
+        }
+        byte[] key = TermDictionary.labelOf(term).getBytes(StandardCharsets.UTF_8);
+        Cursor cursor = new Cursor();
+
+        // Dernier bloc dont le premier libellé est inférieur ou égal à la clé
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            cursor.seekBlock(mid);
+            if (cursor.compareTo(key) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        cursor.seekBlock(low);
+        int end = Math.min(ids.length, (low + 1) * BLOCK_SIZE);
+        for (int rank = low * BLOCK_SIZE; rank < end; rank++) {
+            if (rank > low * BLOCK_SIZE) {
+                cursor.next();
+            }
+            int comparison = cursor.compareTo(key);
+            if (comparison == 0) {
+                return ids[rank];
+            }
+            if (comparison > 0) {
+                break;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Le dictionnaire étant en lecture seule, un terme absent n'est pas ajouté :
+     * {@link TermDictionary#UNKNOWN} est retourné, comme par {@link #lookupPredicate(Term)}.
+     */
+    @Override
+    public int encodePredicate(Term term) {
+        return lookupPredicate(term);
+    }
+
+    @Override
+    public int lookupPredicate(Term term) {
+        Integer rank = predicateRanks.get(term);
+        return rank == null ? UNKNOWN : TermDictionary.predicateId(rank);
+    }
+
+    @Override
+    public Term decode(int id) {
+        if (TermDictionary.isPredicate(id)) {
+            int rank = TermDictionary.predicateRank(id);
+            return rank >= 1 && rank < predicates.length ? predicates[rank] : null;
+        }
+        if (id < 1 || id >= ranks.length) {
+            return null;
+        }
+        int rank = ranks[id];
+        Cursor cursor = new Cursor();
+        cursor.seekBlock(rank / BLOCK_SIZE);
+        for (int i = 0; i < rank % BLOCK_SIZE; i++) {
+            cursor.next();
+        }
+        return SameObjectTermFactory.instance().createOrGetLiteral(cursor.label());
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public int predicateCount() {
+        return predicates.length - 1;
+    }
+
+    /**
+     * @return une estimation du nombre d'octets occupés par le dictionnaire
+     */
+    public long footprint() {
+        long bytes = 16L * 4 + data.length + 4L * (blockOffsets.length + ids.length + ranks.length);
+        for (byte[] namespace : namespaces) {
+            bytes += 16 + namespace.length;
+        }
+        return bytes;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reconstruit les libellés d'un bloc l'un après l'autre dans un tampon réutilisé.
+     */
+    private final class Cursor {
+        private byte[] label = new byte[64];
+        private int length;
+        private int pos;
+
+        void seekBlock(int block) {
+            pos = blockOffsets[block];
+            byte[] namespace = namespaces[readVarInt()];
+            int localLength = readVarInt();
+            length = 0;
+            append(namespace, 0, namespace.length);
+            append(data, pos, localLength);
+            pos += localLength;
+        }
+
+        void next() {
+            length = readVarInt();
+            int suffixLength = readVarInt();
+            append(data, pos, suffixLength);
+            pos += suffixLength;
+        }
+
+        int compareTo(byte[] key) {
+            return Arrays.compareUnsigned(label, 0, length, key, 0, key.length);
+        }
+
+        String label() {
+            return new String(label, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void append(byte[] source, int from, int count) {
+            if (length + count > label.length) {
+                label = Arrays.copyOf(label, Math.max(length + count, label.length * 2));
+            }
+            System.arraycopy(source, from, label, length, count);
+            length += count;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
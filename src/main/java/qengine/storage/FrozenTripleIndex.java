@@ -0,0 +1,557 @@
+package qengine.storage;
+
+import qengine.storage.posting.CompressedPostingList;
+import qengine.storage.posting.PostingIterator;
+import qengine.storage.posting.SortedIntPostingList;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Index en lecture seule au format CSR (compressed sparse row).
+ * <ul>
+ *     <li>{@code firstKeys} : identifiants triés du premier niveau ;</li>
+ *     <li>{@code firstOffsets[i] .. firstOffsets[i + 1]} : tranche de {@code secondKeys} associée à {@code firstKeys[i]} ;</li>
+ *     <li>{@code secondKeys} : identifiants du deuxième niveau, triés dans chaque tranche ;</li>
+ *     <li>{@code secondOffsets[j]} : position dans {@code postings} de la liste du troisième niveau
+ *     associée à {@code secondKeys[j]} ;</li>
+ *     <li>{@code postings} : les listes du troisième niveau, compressées par différences et octets variables
+ *     avec une table de sauts ({@link CompressedPostingList}).</li>
+ * </ul>
+ * Les recherches dans les deux premiers niveaux se font par dichotomie, sauf si les clés du premier
+ * niveau sont consécutives (les prédicats des index PSO et POS) : leur position se calcule alors
+ * directement. Le troisième niveau, qui contient un identifiant par triplet, est décodé à la volée
+ * lors des parcours.
+ * <p>
+ * Les tableaux sont manipulés à travers des tampons : sur le tas après {@link #of(TripleIndex)},
+ * ou projetés directement depuis un fichier par {@link #map(Path)}, sans aucune désérialisation.
+ * Le fichier ({@link #write(Path)}) contient un en-tête de six entiers (signature, version, tailles
+ * des deux premiers niveaux, nombre de triplets et taille des listes en octets) suivi des quatre
+ * tableaux d'entiers puis des listes, en petit-boutiste.
+ */
+public class FrozenTripleIndex implements TripleIndex {
+    private static final int MAGIC = 0x48584958; // "HXIX"
+    private static final int VERSION = 2;
+    private static final int HEADER_INTS = 6;
+
+    private final IntBuffer firstKeys;
+    private final IntBuffer firstOffsets;
+    private final IntBuffer secondKeys;
+    private final IntBuffer secondOffsets;
+    private final ByteBuffer postings;
+    private final int size;
+    // Première clé du premier niveau si les clés sont consécutives, 0 sinon
+    private final int denseBase;
+
+    private FrozenTripleIndex(IntBuffer firstKeys, IntBuffer firstOffsets, IntBuffer secondKeys,
+                              IntBuffer secondOffsets, ByteBuffer postings, int size) {
+        this.firstKeys = firstKeys;
+        this.firstOffsets = firstOffsets;
+        this.secondKeys = secondKeys;
+        this.secondOffsets = secondOffsets;
+        this.postings = postings;
+        this.size = size;
+        int n = firstKeys.limit();
+        this.denseBase = n > 0 && firstKeys.get(n - 1) - firstKeys.get(0) == n - 1 ? firstKeys.get(0) : 0;
+    }
+
+    /**
+     * Construit la représentation CSR d'un index.
+     *
+     * @param source l'index à compacter
+     * @return l'index gelé équivalent
+     */
+    public static FrozenTripleIndex of(TripleIndex source) {
+        long total = source.size();
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Trop de triplets pour un index gelé : " + total);
+        }
+        int[] firstKeys = SortedInts.sorted(source.firstKeys());
+        int[] firstOffsets = new int[firstKeys.length + 1];
+        int[] secondKeys = new int[Math.max(firstKeys.length, 16)];
+        int[] secondOffsets = new int[secondKeys.length + 1];
+        ByteArrayOutputStream postings = new ByteArrayOutputStream();
+        int[] thirds = new int[16];
+
+        int n2 = 0;
+        for (int i = 0; i < firstKeys.length; i++) {
+            int first = firstKeys[i];
+            int[] seconds = SortedInts.sorted(source.secondKeys(first));
+            if (n2 + seconds.length > secondKeys.length) {
+                int capacity = Math.max(n2 + seconds.length, secondKeys.length * 2);
+                secondKeys = Arrays.copyOf(secondKeys, capacity);
+                secondOffsets = Arrays.copyOf(secondOffsets, capacity + 1);
+            }
+            for (int second : seconds) {
+                secondKeys[n2] = second;
+                secondOffsets[n2] = postings.size();
+                int n3 = 0;
+                for (PrimitiveIterator.OfInt it = source.thirds(first, second); it.hasNext(); ) {
+                    if (n3 == thirds.length) {
+                        thirds = Arrays.copyOf(thirds, n3 * 2);
+                    }
+                    thirds[n3++] = it.nextInt();
+                }
+                Arrays.sort(thirds, 0, n3);
+                CompressedPostingList.encode(thirds, 0, n3, postings);
+                n2++;
+            }
+            firstOffsets[i + 1] = n2;
+        }
+        secondOffsets[n2] = postings.size();
+
+        return new FrozenTripleIndex(IntBuffer.wrap(firstKeys), IntBuffer.wrap(firstOffsets),
+                IntBuffer.wrap(Arrays.copyOf(secondKeys, n2)), IntBuffer.wrap(Arrays.copyOf(secondOffsets, n2 + 1)),
+                ByteBuffer.wrap(postings.toByteArray()).order(ByteOrder.LITTLE_ENDIAN), (int) total);
+    }
+
+    /**
+     * Construit la représentation CSR à partir de triplets déjà triés dans l'ordre de l'index, en une
+     * passe de comptage, qui dimensionne exactement les tableaux, puis une passe de remplissage.
+     * Les doublons, consécutifs après le tri, sont éliminés au passage.
+     *
+     * @param triples les triplets (premier, deuxième, troisième niveau) rangés bout à bout, triés
+     * @param count   le nombre de triplets
+     * @return l'index gelé contenant ces triplets
+     */
+    static FrozenTripleIndex ofSorted(int[] triples, int count) {
+        int n1 = 0;
+        int n2 = 0;
+        int size = 0;
+        for (int i = 0, base = 0; i < count; i++, base += 3) {
+            boolean newFirst = i == 0 || triples[base] != triples[base - 3];
+            boolean newSecond = newFirst || triples[base + 1] != triples[base - 2];
+            if (newSecond || triples[base + 2] != triples[base - 1]) {
+                n1 += newFirst ? 1 : 0;
+                n2 += newSecond ? 1 : 0;
+                size++;
+            }
+        }
+
+        int[] firstKeys = new int[n1];
+        int[] firstOffsets = new int[n1 + 1];
+        int[] secondKeys = new int[n2];
+        int[] secondOffsets = new int[n2 + 1];
+        ByteArrayOutputStream postings = new ByteArrayOutputStream();
+        int[] thirds = new int[16];
+        int i1 = 0;
+        int i2 = 0;
+        for (int i = 0; i < count; ) {
+            int first = triples[3 * i];
+            int second = triples[3 * i + 1];
+            if (i1 == 0 || firstKeys[i1 - 1] != first) {
+                firstOffsets[i1] = i2;
+                firstKeys[i1++] = first;
+            }
+            secondKeys[i2] = second;
+            secondOffsets[i2++] = postings.size();
+
+            // Troisièmes niveaux distincts du couple (first, second)
+            int n3 = 0;
+            for (; i < count && triples[3 * i] == first && triples[3 * i + 1] == second; i++) {
+                int third = triples[3 * i + 2];
+                if (n3 == 0 || thirds[n3 - 1] != third) {
+                    if (n3 == thirds.length) {
+                        thirds = Arrays.copyOf(thirds, 2 * n3);
+                    }
+                    thirds[n3++] = third;
+                }
+            }
+            CompressedPostingList.encode(thirds, 0, n3, postings);
+        }
+        firstOffsets[n1] = n2;
+        secondOffsets[n2] = postings.size();
+
+        return new FrozenTripleIndex(IntBuffer.wrap(firstKeys), IntBuffer.wrap(firstOffsets),
+                IntBuffer.wrap(secondKeys), IntBuffer.wrap(secondOffsets),
+                ByteBuffer.wrap(postings.toByteArray()).order(ByteOrder.LITTLE_ENDIAN), size);
+    }
+
+    /**
+     * Projette en mémoire un index écrit par {@link #write(Path)}. Les tableaux restent dans le
+     * fichier : seules les pages effectivement parcourues par les requêtes sont chargées par le système.
+     *
+     * @param file le fichier de l'index
+     * @return l'index gelé servi depuis le fichier
+     * @throws IOException si le fichier est illisible ou n'est pas un index
+     */
+    public static FrozenTripleIndex map(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index trop volumineux pour une seule projection : " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (mapped.capacity() < 4 * HEADER_INTS || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException("Fichier d'index invalide : " + file);
+        }
+        int n1 = mapped.getInt(8);
+        int n2 = mapped.getInt(12);
+        int size = mapped.getInt(16);
+        int postingBytes = mapped.getInt(20);
+        long expected = 4L * (HEADER_INTS + n1 + (n1 + 1) + n2 + (n2 + 1)) + postingBytes;
+        if (mapped.capacity() != expected) {
+            throw new IOException("Fichier d'index tronqué : " + file);
+        }
+
+        int position = 4 * HEADER_INTS;
+        IntBuffer firstKeys = slice(mapped, position, n1);
+        position += 4 * n1;
+        IntBuffer firstOffsets = slice(mapped, position, n1 + 1);
+        position += 4 * (n1 + 1);
+        IntBuffer secondKeys = slice(mapped, position, n2);
+        position += 4 * n2;
+        IntBuffer secondOffsets = slice(mapped, position, n2 + 1);
+        position += 4 * (n2 + 1);
+        ByteBuffer postings = mapped.slice(position, postingBytes).order(ByteOrder.LITTLE_ENDIAN);
+        return new FrozenTripleIndex(firstKeys, firstOffsets, secondKeys, secondOffsets, postings, size);
+    }
+
+    private static IntBuffer slice(ByteBuffer buffer, int position, int ints) {
+        return buffer.slice(position, 4 * ints).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Écrit l'index dans un fichier, au format lu par {@link #map(Path)}.
+     *
+     * @param file le fichier à créer (remplacé s'il existe)
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION)
+                    .putInt(firstKeys.limit()).putInt(secondKeys.limit()).putInt(size).putInt(postings.limit());
+            for (IntBuffer values : new IntBuffer[]{firstKeys, firstOffsets, secondKeys, secondOffsets}) {
+                for (int i = 0; i < values.limit(); i++) {
+                    if (!buffer.hasRemaining()) {
+                        drain(channel, buffer);
+                    }
+                    buffer.putInt(values.get(i));
+                }
+            }
+            drain(channel, buffer);
+            ByteBuffer bytes = postings.duplicate().clear();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public boolean add(int first, int second, int third) {
+        throw new UnsupportedOperationException("Un index gelé est en lecture seule.");
+    }
+
+    @Override
+    public boolean contains(int first, int second, int third) {
+        return postings(first, second).contains(third);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt firstKeys() {
+        return iterator(firstKeys, 0, firstKeys.limit());
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt secondKeys(int first) {
+        int i = firstPosition(first);
+        return i < 0 ? iterator(secondKeys, 0, 0) : iterator(secondKeys, firstOffsets.get(i), firstOffsets.get(i + 1));
+    }
+
+    /**
+     * La tranche de {@code secondKeys} associée à {@code first}, sans copie.
+     */
+    @Override
+    public SortedIntPostingList secondKeyList(int first) {
+        int i = firstPosition(first);
+        return i < 0
+                ? new SortedIntPostingList(secondKeys, 0, 0)
+                : new SortedIntPostingList(secondKeys, firstOffsets.get(i), firstOffsets.get(i + 1));
+    }
+
+    /**
+     * Retourne la liste du troisième niveau associée à {@code (first, second)}, décodée à la volée
+     * depuis le tampon sans copie. La liste est vide si le couple est absent.
+     */
+    @Override
+    public CompressedPostingList postings(int first, int second) {
+        int j = secondPosition(first, second);
+        return j < 0 ? CompressedPostingList.EMPTY : new CompressedPostingList(postings, secondOffsets.get(j));
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(TripleConsumer action) {
+        for (int i = 0; i < firstKeys.limit(); i++) {
+            int first = firstKeys.get(i);
+            for (int j = firstOffsets.get(i); j < firstOffsets.get(i + 1); j++) {
+                int second = secondKeys.get(j);
+                for (PostingIterator it = new CompressedPostingList(postings, secondOffsets.get(j)).iterator(); it.hasNext(); ) {
+                    action.accept(first, second, it.nextInt());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Un index gelé est en lecture seule.");
+    }
+
+    /**
+     * @return le nombre d'octets occupés par les tableaux et les listes de l'index,
+     *         sur le tas ou dans le fichier projeté
+     */
+    public long footprint() {
+        return 4L * (firstKeys.limit() + firstOffsets.limit() + secondKeys.limit() + secondOffsets.limit())
+                + postings.limit();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < firstKeys.limit(); i++) {
+            sb.append(' ').append(firstKeys.get(i)).append(" -> {");
+            for (int j = firstOffsets.get(i); j < firstOffsets.get(i + 1); j++) {
+                sb.append(j == firstOffsets.get(i) ? "" : ", ").append(secondKeys.get(j)).append('=')
+                        .append(new CompressedPostingList(postings, secondOffsets.get(j)));
+            }
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return la position de {@code first} dans {@code firstKeys}, ou -1
+     */
+    private int firstPosition(int first) {
+        if (denseBase != 0) {
+            int i = first - denseBase;
+            return i >= 0 && i < firstKeys.limit() ? i : -1;
+        }
+        return SortedInts.indexOf(firstKeys, 0, firstKeys.limit(), first);
+    }
+
+    /**
+     * @return la position de {@code second} dans {@code secondKeys} sous {@code first}, ou -1
+     */
+    private int secondPosition(int first, int second) {
+        int i = firstPosition(first);
+        return i < 0 ? -1 : SortedInts.indexOf(secondKeys, firstOffsets.get(i), firstOffsets.get(i + 1), second);
+    }
+
+    private static PrimitiveIterator.OfInt iterator(IntBuffer values, int from, int to) {
+        return new PrimitiveIterator.OfInt() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values.get(next++);
+            }
+        };
+    }
+
+    /**
+     * Écrit un index dans un fichier, au format lu par {@link #map(Path)}, à partir de triplets reçus
+     * dans l'ordre de l'index, sans jamais le construire en mémoire : chaque tableau est écrit au fil de
+     * l'eau dans son propre fichier temporaire, et ces fichiers sont concaténés derrière l'en-tête par
+     * {@link #finish()}. Seule la liste du troisième niveau du couple courant est gardée en mémoire.
+     * Les doublons, consécutifs dans l'ordre de l'index, sont ignorés.
+     */
+    static final class Writer implements Closeable {
+        private static final int PART_BUFFER = 1 << 16;
+        /**
+         * Mémoire des tampons d'écriture d'un écrivain, en octets.
+         */
+        static final int BUFFER_BYTES = 5 * PART_BUFFER;
+
+        private final Path file;
+        // Parties du fichier, dans leur ordre : firstKeys, firstOffsets, secondKeys, secondOffsets, postings
+        private final Path[] parts = new Path[5];
+        private final OutputStream[] outputs = new OutputStream[5];
+        private final byte[] intBytes = new byte[4];
+        private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        private int[] thirds = new int[16];
+        private int n3;
+
+        private int n1;
+        private int n2;
+        private long size;
+        private long postingBytes;
+        private int lastFirst;
+        private int lastSecond;
+        private int lastThird;
+
+        /**
+         * @param file          le fichier de l'index à créer (remplacé s'il existe)
+         * @param workDirectory le répertoire des fichiers temporaires
+         * @throws IOException si les fichiers temporaires ne peuvent être créés
+         */
+        Writer(Path file, Path workDirectory) throws IOException {
+            this.file = file;
+            try {
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = Files.createTempFile(workDirectory, file.getFileName() + ".", ".part");
+                    outputs[i] = new BufferedOutputStream(Files.newOutputStream(parts[i]), PART_BUFFER);
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Ajoute un triplet, qui ne doit pas précéder le dernier triplet ajouté dans l'ordre de l'index.
+         *
+         * @return false si le triplet est identique au précédent (doublon)
+         * @throws IOException              en cas d'erreur d'écriture, ou si l'index dépasse les limites du format
+         * @throws IllegalArgumentException si le triplet précède le dernier triplet ajouté
+         */
+        boolean add(int first, int second, int third) throws IOException {
+            if (size > 0) {
+                int order = first != lastFirst ? Integer.compare(first, lastFirst)
+                        : second != lastSecond ? Integer.compare(second, lastSecond)
+                        : Integer.compare(third, lastThird);
+                if (order < 0) {
+                    throw new IllegalArgumentException("Triplets non triés dans l'ordre de l'index : (" + first + ", "
+                            + second + ", " + third + ") après (" + lastFirst + ", " + lastSecond + ", " + lastThird + ")");
+                }
+                if (order == 0) {
+                    return false;
+                }
+            }
+            if (size > 0 && first == lastFirst && second == lastSecond) {
+                if (n3 == thirds.length) {
+                    thirds = Arrays.copyOf(thirds, 2 * n3);
+                }
+                thirds[n3++] = third;
+            } else {
+                flushPostings();
+                if (size == 0 || first != lastFirst) {
+                    writeInt(0, first);
+                    writeInt(1, n2);
+                    n1++;
+                }
+                writeInt(2, second);
+                writeInt(3, (int) postingBytes);
+                n2++;
+                thirds[0] = third;
+                n3 = 1;
+            }
+            if (++size == Integer.MAX_VALUE) {
+                throw new IOException("Trop de triplets pour un index gelé : " + file);
+            }
+            lastFirst = first;
+            lastSecond = second;
+            lastThird = third;
+            return true;
+        }
+
+        /**
+         * Termine l'écriture du fichier de l'index et supprime les fichiers temporaires.
+         *
+         * @throws IOException en cas d'erreur d'écriture
+         */
+        void finish() throws IOException {
+            flushPostings();
+            writeInt(1, n2);
+            writeInt(3, (int) postingBytes);
+            for (OutputStream output : outputs) {
+                output.close();
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(4 * HEADER_INTS).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(n1).putInt(n2).putInt((int) size).putInt((int) postingBytes);
+                drain(channel, header);
+                for (Path part : parts) {
+                    try (FileChannel source = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long length = source.size();
+                        for (long position = 0; position < length; ) {
+                            position += source.transferTo(position, length - position, channel);
+                        }
+                    }
+                }
+            }
+            close();
+        }
+
+        /**
+         * Abandonne l'écriture si elle n'est pas terminée, et supprime les fichiers temporaires.
+         */
+        @Override
+        public void close() throws IOException {
+            for (int i = 0; i < parts.length; i++) {
+                if (outputs[i] != null) {
+                    outputs[i].close();
+                }
+                if (parts[i] != null) {
+                    Files.deleteIfExists(parts[i]);
+                }
+            }
+        }
+
+        /**
+         * Encode la liste du troisième niveau du couple courant à la suite des listes déjà écrites.
+         */
+        private void flushPostings() throws IOException {
+            if (n3 == 0) {
+                return;
+            }
+            encoded.reset();
+            CompressedPostingList.encode(thirds, 0, n3, encoded);
+            encoded.writeTo(outputs[4]);
+            postingBytes += encoded.size();
+            n3 = 0;
+            if (postingBytes > Integer.MAX_VALUE) {
+                throw new IOException("Listes trop volumineuses pour un index gelé : " + file);
+            }
+        }
+
+        private void writeInt(int part, int value) throws IOException {
+            intBytes[0] = (byte) value;
+            intBytes[1] = (byte) (value >>> 8);
+            intBytes[2] = (byte) (value >>> 16);
+            intBytes[3] = (byte) (value >>> 24);
+            outputs[part].write(intBytes);
+        }
+    }
+}
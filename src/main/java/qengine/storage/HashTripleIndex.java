@@ -0,0 +1,96 @@
+package qengine.storage;
+
+import qengine.storage.posting.PostingList;
+import qengine.storage.posting.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * Index modifiable à base de tables de hachage imbriquées.
+ * C'est la représentation utilisée pendant le chargement des données.
+ * Le troisième niveau est un {@link RoaringBitmap}, compact pour les plages denses
+ * d'identifiants et directement intersectable lors de l'évaluation des requêtes en étoile.
+ */
+public class HashTripleIndex implements TripleIndex {
+    private final Map<Integer, Map<Integer, RoaringBitmap>> index = new HashMap<>();
+
+    @Override
+    public boolean add(int first, int second, int third) {
+        return index.computeIfAbsent(first, k -> new HashMap<>())
+                .computeIfAbsent(second, k -> new RoaringBitmap())
+                .add(third);
+    }
+
+    @Override
+    public boolean contains(int first, int second, int third) {
+        RoaringBitmap thirds = level3(first, second);
+        return thirds != null && thirds.contains(third);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt firstKeys() {
+        return unbox(index.keySet().iterator());
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt secondKeys(int first) {
+        Map<Integer, RoaringBitmap> level2 = index.get(first);
+        return level2 == null ? EMPTY : unbox(level2.keySet().iterator());
+    }
+
+    @Override
+    public PostingList postings(int first, int second) {
+        RoaringBitmap thirds = level3(first, second);
+        return thirds == null ? new RoaringBitmap() : thirds;
+    }
+
+    @Override
+    public long size() {
+        return index.values().stream()
+                .flatMap(map -> map.values().stream())
+                .mapToLong(RoaringBitmap::size)
+                .sum();
+    }
+
+    @Override
+    public void forEach(TripleConsumer action) {
+        index.forEach((first, level2) -> level2.forEach((second, thirds) -> {
+            for (PrimitiveIterator.OfInt it = thirds.iterator(); it.hasNext(); ) {
+                action.accept(first, second, it.nextInt());
+            }
+        }));
+    }
+
+    @Override
+    public void clear() {
+        index.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        index.forEach((key, value) -> sb.append(' ').append(key).append(" -> ").append(value).append('\n'));
+        return sb.toString();
+    }
+
+    private RoaringBitmap level3(int first, int second) {
+        Map<Integer, RoaringBitmap> level2 = index.get(first);
+        return level2 == null ? null : level2.get(second);
+    }
+
+    private static final PrimitiveIterator.OfInt EMPTY = unbox(Collections.emptyIterator());
+
+    private static PrimitiveIterator.OfInt unbox(Iterator<Integer> iterator) {
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return iterator.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package qengine.storage;
+
+import qengine.storage.primitive.TripleRingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Chargement en pipeline d'un {@link RDFHexaStore} : le thread appelant produit les triplets encodés
+ * ({@link #add(int, int, int)}), et chaque index est construit par son propre thread, qui lit les triplets
+ * dans un tampon circulaire borné commun ({@link TripleRingBuffer}). Le producteur est ralenti dès que
+ * l'index le plus lent a trop de retard : aucun triplet n'est conservé une fois ajouté à tous les index.
+ * <p>
+ * Le thread du premier index tient aussi à jour le catalogue de statistiques avec les triplets nouveaux.
+ * Le store ne doit être ni interrogé ni modifié autrement avant {@link #finish()}.
+ */
+public final class IndexPipeline implements AutoCloseable {
+    /**
+     * Nombre par défaut de triplets en attente dans le tampon.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final TripleRingBuffer buffer;
+    private final List<Thread> builders = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Runnable onAdded;
+
+    // Nombre de triplets nouveaux, compté par le thread du premier index et lu après sa fin
+    private long added;
+    private boolean finished;
+
+    IndexPipeline(Map<Permutation, TripleIndex> indexes, StatisticsCatalog statistics, int capacity, Runnable onAdded) {
+        this.buffer = new TripleRingBuffer(capacity, indexes.size());
+        this.onAdded = onAdded;
+        for (Map.Entry<Permutation, TripleIndex> entry : indexes.entrySet()) {
+            int consumer = builders.size();
+            Thread builder = new Thread(() -> build(consumer, entry.getKey(), entry.getValue(), consumer == 0 ? statistics : null),
+                    "indexeur-" + entry.getKey());
+            builder.setDaemon(true);
+            builders.add(builder);
+        }
+        builders.forEach(Thread::start);
+    }
+
+    /**
+     * Ajoute un triplet encodé par le dictionnaire du store, en attendant si le tampon est plein.
+     *
+     * @throws IllegalStateException si la construction d'un index a échoué ou si le chargement est terminé
+     */
+    public void add(int subjectId, int predicateId, int objectId) {
+        if (finished) {
+            throw new IllegalStateException("Le chargement en pipeline est terminé.");
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Échec de la construction d'un index.", failure.get());
+        }
+        buffer.put(subjectId, predicateId, objectId);
+    }
+
+    /**
+     * Termine le chargement : attend que tous les index aient reçu tous les triplets.
+     *
+     * @return le nombre de triplets qui n'étaient pas déjà dans le store
+     * @throws IllegalStateException si la construction d'un index a échoué ou si l'attente a été interrompue
+     */
+    public long finish() {
+        if (finished) {
+            return added;
+        }
+        finished = true;
+        buffer.close();
+        try {
+            for (Thread builder : builders) {
+                builder.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente des index interrompue.", e);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Échec de la construction d'un index.", failure.get());
+        }
+        if (added > 0) {
+            onAdded.run();
+        }
+        return added;
+    }
+
+    @Override
+    public void close() {
+        finish();
+    }
+
+    /**
+     * Ajoute à un index tous les triplets du tampon, réordonnés selon sa permutation.
+     *
+     * @param statistics le catalogue à tenir à jour, ou null
+     */
+    private void build(int consumer, Permutation permutation, TripleIndex index, StatisticsCatalog statistics) {
+        int first = permutation.position(0);
+        int second = permutation.position(1);
+        int third = permutation.position(2);
+        int[] triple = new int[3];
+        try {
+            buffer.drain(consumer, (subjectId, predicateId, objectId) -> {
+                triple[0] = subjectId;
+                triple[1] = predicateId;
+                triple[2] = objectId;
+                if (index.add(triple[first], triple[second], triple[third]) && statistics != null) {
+                    statistics.add(subjectId, predicateId, objectId);
+                    added++;
+                }
+            });
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+            buffer.abandon(consumer);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Dictionnaire en lecture seule servi depuis un fichier projeté en mémoire.
+ * <p>
+ * Format du fichier (entiers en petit-boutiste) : signature et version, puis une section pour
+ * l'espace des entités suivie d'une section pour celui des prédicats. Chaque section contient :
+ * <ul>
+ *     <li>le nombre de termes {@code n} et la capacité {@code m} de la table de hachage ;</li>
+ *     <li>{@code offsets[0 .. n]} : le libellé de rang {@code r} occupe les octets
+ *     {@code offsets[r - 1] .. offsets[r]} de la zone des libellés ;</li>
+ *     <li>{@code table[0 .. m - 1]} : table de hachage à adressage ouvert des libellés, contenant
+ *     les rangs (0 pour une case vide) ;</li>
+ *     <li>les libellés, encodés en UTF-8 et mis bout à bout, complétés jusqu'à un multiple de 4 octets.</li>
+ * </ul>
+ * Le décodage relit le libellé dans le fichier et reconstruit le littéral correspondant ;
+ * l'encodage hache le libellé et compare les octets des cases sondées.
+ */
+public class MappedDictionary implements TermDictionary {
+    private static final int MAGIC = 0x48584449; // "HXDI"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int SECTION_HEADER_BYTES = 8;
+
+    private final Section entities;
+    private final Section predicates;
+
+    private MappedDictionary(Section entities, Section predicates) {
+        this.entities = entities;
+        this.predicates = predicates;
+    }
+
+    /**
+     * Écrit un dictionnaire dans un fichier, au format lu par {@link #map(Path)}.
+     *
+     * @param dictionary le dictionnaire à écrire
+     * @param file       le fichier à créer (remplacé s'il existe)
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public static void write(TermDictionary dictionary, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            DataOutputStream data = new DataOutputStream(out);
+            writeInt(data, MAGIC);
+            writeInt(data, VERSION);
+            writeSection(data, dictionary, dictionary.size(), 0);
+            writeSection(data, dictionary, dictionary.predicateCount(), PREDICATE_TAG);
+        }
+    }
+
+    private static void writeSection(DataOutputStream data, TermDictionary dictionary, int n, int tag)
+            throws IOException {
+        byte[][] encoded = new byte[n][];
+        int[] offsets = new int[n + 1];
+        long total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            encoded[rank - 1] = TermDictionary.labelOf(dictionary.decode(rank | tag)).getBytes(StandardCharsets.UTF_8);
+            total += encoded[rank - 1].length;
+            if (total > Integer.MAX_VALUE - 3) {
+                throw new IOException("Libellés trop volumineux pour un dictionnaire projeté.");
+            }
+            offsets[rank] = (int) total;
+        }
+
+        // Table à adressage ouvert, remplie au plus à moitié
+        int capacity = Integer.highestOneBit(Math.max(2 * n, 2) - 1) << 1;
+        int[] table = new int[capacity];
+        for (int rank = 1; rank <= n; rank++) {
+            int slot = hash(encoded[rank - 1]) & (capacity - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = rank;
+        }
+
+        writeInt(data, n);
+        writeInt(data, capacity);
+        for (int offset : offsets) {
+            writeInt(data, offset);
+        }
+        for (int rank : table) {
+            writeInt(data, rank);
+        }
+        for (byte[] label : encoded) {
+            data.write(label);
+        }
+        for (int i = 0; i < padding(total); i++) {
+            data.write(0);
+        }
+    }
+
+    private static int padding(long labelBytes) {
+        return (int) (-labelBytes & 3);
+    }
+
+    private static void writeInt(DataOutputStream data, int value) throws IOException {
+        data.writeInt(Integer.reverseBytes(value));
+    }
+
+    /**
+     * Projette en mémoire un dictionnaire écrit par {@link #write(TermDictionary, Path)}.
+     *
+     * @param file le fichier du dictionnaire
+     * @return le dictionnaire servi depuis le fichier
+     * @throws IOException si le fichier est illisible ou n'est pas un dictionnaire
+     */
+    public static MappedDictionary map(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Dictionnaire trop volumineux pour une seule projection : " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException("Fichier de dictionnaire invalide : " + file);
+        }
+        Section entities = Section.map(mapped, HEADER_BYTES, file);
+        Section predicates = Section.map(mapped, entities.end, file);
+        if (predicates.end != mapped.capacity()) {
+            throw new IOException("Fichier de dictionnaire invalide : " + file);
+        }
+        return new MappedDictionary(entities, predicates);
+    }
+
+    /**
+     * Le dictionnaire étant en lecture seule, un terme absent n'est pas ajouté :
+     * {@link TermDictionary#UNKNOWN} est retourné, comme par {@link #lookup(Term)}.
+     */
+    @Override
+    public int encode(Term term) {
+        return lookup(term);
+    }
+
+    /**
+     * Le dictionnaire étant en lecture seule, un terme absent n'est pas ajouté :
+     * {@link TermDictionary#UNKNOWN} est retourné, comme par {@link #lookupPredicate(Term)}.
+     */
+    @Override
+    public int encodePredicate(Term term) {
+        return lookupPredicate(term);
+    }
+
+    @Override
+    public int lookup(Term term) {
+        return entities.lookup(term);
+    }
+
+    @Override
+    public int lookupPredicate(Term term) {
+        int rank = predicates.lookup(term);
+        return rank == UNKNOWN ? UNKNOWN : TermDictionary.predicateId(rank);
+    }
+
+    @Override
+    public Term decode(int id) {
+        return TermDictionary.isPredicate(id)
+                ? predicates.decode(TermDictionary.predicateRank(id))
+                : entities.decode(id);
+    }
+
+    @Override
+    public int size() {
+        return entities.size;
+    }
+
+    @Override
+    public int predicateCount() {
+        return predicates.size;
+    }
+
+    /**
+     * Hachage FNV-1a des octets d'un libellé, suivi d'un brassage des bits de poids fort.
+     */
+    private static int hash(byte[] label) {
+        int h = 0x811C9DC5;
+        for (byte b : label) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Un espace d'identifiants projeté : rangs consécutifs à partir de 1.
+     */
+    private static final class Section {
+        private final int size;
+        private final IntBuffer offsets;
+        private final IntBuffer table;
+        private final ByteBuffer labels;
+        private final int mask;
+        // Position du premier octet suivant la section dans le fichier
+        private final int end;
+
+        private Section(int size, IntBuffer offsets, IntBuffer table, ByteBuffer labels, int end) {
+            this.size = size;
+            this.offsets = offsets;
+            this.table = table;
+            this.labels = labels;
+            this.mask = table.limit() - 1;
+            this.end = end;
+        }
+
+        static Section map(MappedByteBuffer mapped, int start, Path file) throws IOException {
+            if (start + SECTION_HEADER_BYTES > mapped.capacity()) {
+                throw new IOException("Fichier de dictionnaire tronqué : " + file);
+            }
+            int n = mapped.getInt(start);
+            int capacity = mapped.getInt(start + 4);
+            long offsetsStart = start + SECTION_HEADER_BYTES;
+            long tableStart = offsetsStart + 4L * (n + 1);
+            long labelsStart = tableStart + 4L * capacity;
+            if (n < 0 || Integer.bitCount(capacity) != 1 || labelsStart > mapped.capacity()) {
+                throw new IOException("Fichier de dictionnaire tronqué : " + file);
+            }
+
+            IntBuffer offsets = mapped.slice((int) offsetsStart, 4 * (n + 1)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            IntBuffer table = mapped.slice((int) tableStart, 4 * capacity).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int labelBytes = offsets.get(n);
+            long end = labelsStart + labelBytes + padding(labelBytes);
+            if (labelBytes < 0 || end > mapped.capacity()) {
+                throw new IOException("Fichier de dictionnaire tronqué : " + file);
+            }
+            ByteBuffer labels = mapped.slice((int) labelsStart, labelBytes);
+            return new Section(n, offsets, table, labels, (int) end);
+        }
+
+        int lookup(Term term) {
+            byte[] label = TermDictionary.labelOf(term).getBytes(StandardCharsets.UTF_8);
+            for (int slot = hash(label) & mask; ; slot = (slot + 1) & mask) {
+                int rank = table.get(slot);
+                if (rank == 0) {
+                    return UNKNOWN;
+                }
+                if (labelEquals(rank, label)) {
+                    return rank;
+                }
+            }
+        }
+
+        Term decode(int rank) {
+            if (rank < 1 || rank > size) {
+                return null;
+            }
+            byte[] label = new byte[offsets.get(rank) - offsets.get(rank - 1)];
+            labels.get(offsets.get(rank - 1), label);
+            return SameObjectTermFactory.instance().createOrGetLiteral(new String(label, StandardCharsets.UTF_8));
+        }
+
+        private boolean labelEquals(int rank, byte[] label) {
+            int from = offsets.get(rank - 1);
+            if (offsets.get(rank) - from != label.length) {
+                return false;
+            }
+            for (int i = 0; i < label.length; i++) {
+                if (labels.get(from + i) != label[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package qengine.storage;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Les six permutations (ordres d'indexation) possibles d'un triplet (sujet, prédicat, objet).
+ * Les positions sont numérotées 0 pour le sujet, 1 pour le prédicat et 2 pour l'objet.
+ */
+public enum Permutation {
+    SPO(0, 1, 2),
+    SOP(0, 2, 1),
+    PSO(1, 0, 2),
+    POS(1, 2, 0),
+    OSP(2, 0, 1),
+    OPS(2, 1, 0);
+
+    /**
+     * Les six permutations : toutes les formes de triplet sont servies par un index.
+     */
+    public static final Set<Permutation> ALL = EnumSet.allOf(Permutation.class);
+
+    /**
+     * Trois index couvrant les motifs des requêtes en étoile : (?s, p, o) par POS,
+     * (s, p, ?o) et (s, ?p, ?o) par SPO, (?s, ?p, o) et (s, ?p, o) par OSP.
+     */
+    public static final Set<Permutation> THREE = EnumSet.of(SPO, POS, OSP);
+
+    /**
+     * Les trois index précédents, plus PSO pour parcourir les couples (sujet, objet) d'un prédicat.
+     */
+    public static final Set<Permutation> FOUR = EnumSet.of(SPO, POS, OSP, PSO);
+
+    private final int[] positions;
+
+    Permutation(int first, int second, int third) {
+        this.positions = new int[]{first, second, third};
+    }
+
+    /**
+     * @param level le niveau de l'index (0, 1 ou 2)
+     * @return la position dans le triplet (0 sujet, 1 prédicat, 2 objet) indexée à ce niveau
+     */
+    public int position(int level) {
+        return positions[level];
+    }
+
+    /**
+     * Réordonne un triplet (sujet, prédicat, objet) selon la permutation.
+     *
+     * @param triple le triplet dans l'ordre (sujet, prédicat, objet)
+     * @param level  le niveau de l'index
+     * @return l'identifiant indexé à ce niveau
+     */
+    public int get(int[] triple, int level) {
+        return triple[positions[level]];
+    }
+
+    /**
+     * Nombre de niveaux de tête de l'index qui peuvent être fixés pour un motif donné.
+     *
+     * @param bound pour chaque position (sujet, prédicat, objet), vrai si le terme est une constante
+     * @return la longueur du préfixe de niveaux fixés (0 à 3)
+     */
+    public int boundPrefix(boolean[] bound) {
+        int length = 0;
+        while (length < 3 && bound[positions[length]]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Lit une liste de permutations séparées par des virgules, par exemple {@code "SPO,POS,OSP"}.
+     * Les valeurs {@code ALL}, {@code THREE} et {@code FOUR} désignent les ensembles prédéfinis.
+     *
+     * @param value la liste à lire
+     * @return l'ensemble des permutations
+     * @throws IllegalArgumentException si une permutation est inconnue ou si la liste est vide
+     */
+    public static Set<Permutation> parse(String value) {
+        switch (value.trim().toUpperCase(Locale.ROOT)) {
+            case "ALL":
+                return EnumSet.copyOf(ALL);
+            case "THREE":
+                return EnumSet.copyOf(THREE);
+            case "FOUR":
+                return EnumSet.copyOf(FOUR);
+            default:
+                break;
+        }
+        Set<Permutation> permutations = EnumSet.noneOf(Permutation.class);
+        for (String name : value.split(",")) {
+            if (!name.isBlank()) {
+                permutations.add(Permutation.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        if (permutations.isEmpty()) {
+            throw new IllegalArgumentException("Au moins une permutation doit être indexée.");
+        }
+        return permutations;
+    }
+}
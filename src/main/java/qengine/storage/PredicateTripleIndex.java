@@ -0,0 +1,130 @@
+package qengine.storage;
+
+import qengine.storage.posting.PostingList;
+import qengine.storage.posting.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * Index modifiable des permutations commençant par le prédicat (PSO, POS).
+ * Les identifiants de prédicats formant un espace dense et petit (voir {@link TermDictionary}),
+ * le premier niveau est un tableau indexé par le rang du prédicat au lieu d'une table de hachage ;
+ * les niveaux suivants sont ceux de {@link HashTripleIndex}.
+ */
+public class PredicateTripleIndex implements TripleIndex {
+    // byPredicate[rang] : deuxième niveau du prédicat de ce rang, null s'il est absent ; la case 0 reste vide
+    private Map<Integer, RoaringBitmap>[] byPredicate = newLevel2Array(16);
+
+    @Override
+    public boolean add(int first, int second, int third) {
+        if (!TermDictionary.isPredicate(first)) {
+            throw new IllegalArgumentException("Le premier niveau n'accepte que des identifiants de prédicats : " + first);
+        }
+        int rank = TermDictionary.predicateRank(first);
+        if (rank >= byPredicate.length) {
+            byPredicate = Arrays.copyOf(byPredicate, Math.max(rank + 1, byPredicate.length * 2));
+        }
+        if (byPredicate[rank] == null) {
+            byPredicate[rank] = new HashMap<>();
+        }
+        return byPredicate[rank].computeIfAbsent(second, k -> new RoaringBitmap()).add(third);
+    }
+
+    @Override
+    public boolean contains(int first, int second, int third) {
+        RoaringBitmap thirds = level3(first, second);
+        return thirds != null && thirds.contains(third);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt firstKeys() {
+        int[] keys = new int[byPredicate.length];
+        int count = 0;
+        for (int rank = 1; rank < byPredicate.length; rank++) {
+            if (byPredicate[rank] != null) {
+                keys[count++] = TermDictionary.predicateId(rank);
+            }
+        }
+        return Arrays.stream(keys, 0, count).iterator();
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt secondKeys(int first) {
+        Map<Integer, RoaringBitmap> level2 = level2(first);
+        return level2 == null
+                ? Arrays.stream(new int[0]).iterator()
+                : level2.keySet().stream().mapToInt(Integer::intValue).iterator();
+    }
+
+    @Override
+    public PostingList postings(int first, int second) {
+        RoaringBitmap thirds = level3(first, second);
+        return thirds == null ? new RoaringBitmap() : thirds;
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Map<Integer, RoaringBitmap> level2 : byPredicate) {
+            if (level2 != null) {
+                for (RoaringBitmap thirds : level2.values()) {
+                    size += thirds.size();
+                }
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void forEach(TripleConsumer action) {
+        for (int rank = 1; rank < byPredicate.length; rank++) {
+            if (byPredicate[rank] == null) {
+                continue;
+            }
+            int first = TermDictionary.predicateId(rank);
+            byPredicate[rank].forEach((second, thirds) -> {
+                for (PrimitiveIterator.OfInt it = thirds.iterator(); it.hasNext(); ) {
+                    action.accept(first, second, it.nextInt());
+                }
+            });
+        }
+    }
+
+    @Override
+    public void clear() {
+        byPredicate = newLevel2Array(16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 1; rank < byPredicate.length; rank++) {
+            if (byPredicate[rank] != null) {
+                sb.append(' ').append(TermDictionary.predicateId(rank)).append(" -> ").append(byPredicate[rank]).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return le rang du prédicat, la case 0 (jamais utilisée) pour un identifiant d'entité
+     */
+    private static int rank(int first) {
+        return TermDictionary.isPredicate(first) ? TermDictionary.predicateRank(first) : 0;
+    }
+
+    private Map<Integer, RoaringBitmap> level2(int first) {
+        int rank = rank(first);
+        return rank < byPredicate.length ? byPredicate[rank] : null;
+    }
+
+    private RoaringBitmap level3(int first, int second) {
+        Map<Integer, RoaringBitmap> level2 = level2(first);
+        return level2 == null ? null : level2.get(second);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<Integer, RoaringBitmap>[] newLevel2Array(int length) {
+        return (Map<Integer, RoaringBitmap>[]) new Map[length];
+    }
+}
@@ -0,0 +1,290 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.*;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.primitive.IntHashSet;
+import qengine.storage.primitive.IntObjectHashMap;
+
+import java.util.*;
+
+/**
+ * Variante de {@link RDFHexaStore} dont les six index sont construits sur des tables
+ * à adressage ouvert d'entiers primitifs ({@link IntObjectHashMap} et {@link IntHashSet}).
+ * Aucun identifiant n'est boxé : chaque triplet ne coûte que quelques cases de tableaux
+ * d'entiers au lieu de nœuds {@code HashMap.Node}, d'{@code Integer} et de {@code HashSet}.
+ * Les résultats retournés sont identiques à ceux de {@link RDFHexaStore}.
+ */
+public class PrimitiveRDFHexaStore implements RDFStorage {
+    // Déclaration des six index
+    private final IntObjectHashMap<IntObjectHashMap<IntHashSet>> spo = new IntObjectHashMap<>();
+    private final IntObjectHashMap<IntObjectHashMap<IntHashSet>> sop = new IntObjectHashMap<>();
+    private final IntObjectHashMap<IntObjectHashMap<IntHashSet>> pso = new IntObjectHashMap<>();
+    private final IntObjectHashMap<IntObjectHashMap<IntHashSet>> pos = new IntObjectHashMap<>();
+    private final IntObjectHashMap<IntObjectHashMap<IntHashSet>> osp = new IntObjectHashMap<>();
+    private final IntObjectHashMap<IntObjectHashMap<IntHashSet>> ops = new IntObjectHashMap<>();
+    private final RDFDictionary dictionary = new RDFDictionary();
+
+    // Nombre de triplets distincts, maintenu à l'ajout
+    private long size;
+
+    /**
+     * Ajoute un RDFAtom aux six index.
+     *
+     * @param atom le RDFAtom à ajouter
+     * @return true si le triplet n'était pas déjà présent
+     */
+    @Override
+    public boolean add(RDFAtom atom) {
+        int subjectId = dictionary.encode(atom.getTripleSubject());
+        int predicateId = dictionary.encodePredicate(atom.getTriplePredicate());
+        int objectId = dictionary.encode(atom.getTripleObject());
+
+        // L'index SPO sert de référence : si le triplet y est déjà, il est dans les six index
+        if (!addToIndex(spo, subjectId, predicateId, objectId)) {
+            return false;
+        }
+        addToIndex(sop, subjectId, objectId, predicateId);
+        addToIndex(pso, predicateId, subjectId, objectId);
+        addToIndex(pos, predicateId, objectId, subjectId);
+        addToIndex(osp, objectId, subjectId, predicateId);
+        addToIndex(ops, objectId, predicateId, subjectId);
+        size++;
+        return true;
+    }
+
+    /**
+     * Ajoute un triplet à un index spécifique.
+     *
+     * @return true si le triplet n'était pas déjà dans l'index
+     */
+    private static boolean addToIndex(IntObjectHashMap<IntObjectHashMap<IntHashSet>> index, int first, int second, int third) {
+        return index.computeIfAbsent(first, k -> new IntObjectHashMap<>())
+                .computeIfAbsent(second, k -> new IntHashSet())
+                .add(third);
+    }
+
+    /**
+     * Retourne le nombre de triplets distincts du store.
+     *
+     * @return la taille totale
+     */
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Estime la mémoire occupée par les six index (tableaux des tables à adressage ouvert,
+     * en-têtes d'objets compris, hors dictionnaire).
+     *
+     * @return le nombre d'octets estimé
+     */
+    public long indexFootprint() {
+        long total = 0;
+        for (IntObjectHashMap<IntObjectHashMap<IntHashSet>> index : List.of(spo, sop, pso, pos, osp, ops)) {
+            total += footprint(index);
+        }
+        return total;
+    }
+
+    private static long footprint(IntObjectHashMap<IntObjectHashMap<IntHashSet>> index) {
+        // 24 octets d'en-tête et de champs par objet table/ensemble
+        long[] total = {24 + index.footprint()};
+        index.forEach((first, level2) -> {
+            total[0] += 24 + level2.footprint();
+            level2.forEach((second, set) -> total[0] += 24 + set.footprint());
+        });
+        return total[0];
+    }
+
+    /**
+     * Retourne un itérateur de substitutions pour matcher un RDFAtom.
+     *
+     * @param atom le RDFAtom à matcher
+     * @return un itérateur de substitutions
+     */
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        List<Substitution> substitutions = new ArrayList<>();
+        Term subject = atom.getTripleSubject();
+        Term predicate = atom.getTriplePredicate();
+        Term object = atom.getTripleObject();
+
+        // Recherche les identifiants des constantes (-1 pour les variables), sans modifier le dictionnaire
+        int subjectId = subject.isVariable() ? -1 : dictionary.lookup(subject);
+        int predicateId = predicate.isVariable() ? -1 : dictionary.lookupPredicate(predicate);
+        int objectId = object.isVariable() ? -1 : dictionary.lookup(object);
+        if (subjectId == TermDictionary.UNKNOWN || predicateId == TermDictionary.UNKNOWN
+                || objectId == TermDictionary.UNKNOWN) {
+            return Collections.emptyIterator();
+        }
+
+        // Tous les termes sont des littéraux
+        if (subjectId != -1 && predicateId != -1 && objectId != -1) {
+            IntHashSet objects = level3(spo, subjectId, predicateId);
+            if (objects != null && objects.contains(objectId)) {
+                substitutions.add(new SubstitutionImpl(Collections.emptyMap()));
+            }
+        }
+        // Sujet et prédicat sont des littéraux, objet est une variable
+        else if (subjectId != -1 && predicateId != -1) {
+            collect(level3(spo, subjectId, predicateId), (Variable) object, substitutions);
+        }
+        // Sujet et objet sont des littéraux, prédicat est une variable
+        else if (subjectId != -1 && objectId != -1) {
+            collect(level3(sop, subjectId, objectId), (Variable) predicate, substitutions);
+        }
+        // Prédicat et objet sont des littéraux, sujet est une variable
+        else if (predicateId != -1 && objectId != -1) {
+            collect(level3(pos, predicateId, objectId), (Variable) subject, substitutions);
+        }
+        // Sujet est un littéral, prédicat et objet sont des variables
+        else if (subjectId != -1) {
+            collect(spo.get(subjectId), (Variable) predicate, (Variable) object, substitutions);
+        }
+        // Prédicat est un littéral, sujet et objet sont des variables
+        else if (predicateId != -1) {
+            collect(pso.get(predicateId), (Variable) subject, (Variable) object, substitutions);
+        }
+        // Objet est un littéral, sujet et prédicat sont des variables
+        else if (objectId != -1) {
+            collect(osp.get(objectId), (Variable) subject, (Variable) predicate, substitutions);
+        }
+        // Tous les termes sont des variables
+        else {
+            spo.forEach((subjId, level2) -> level2.forEach((predId, objects) -> objects.forEach(objId -> {
+                SubstitutionImpl substitution = new SubstitutionImpl();
+                substitution.add((Variable) subject, dictionary.decode(subjId));
+                substitution.add((Variable) predicate, dictionary.decode(predId));
+                substitution.add((Variable) object, dictionary.decode(objId));
+                substitutions.add(substitution);
+            })));
+        }
+
+        return substitutions.iterator();
+    }
+
+    /**
+     * @return l'ensemble du troisième niveau pour les deux premiers identifiants, ou null
+     */
+    private static IntHashSet level3(IntObjectHashMap<IntObjectHashMap<IntHashSet>> index, int first, int second) {
+        IntObjectHashMap<IntHashSet> level2 = index.get(first);
+        return level2 == null ? null : level2.get(second);
+    }
+
+    /**
+     * Crée une substitution par valeur d'un ensemble du troisième niveau.
+     */
+    private void collect(IntHashSet values, Variable variable, List<Substitution> substitutions) {
+        if (values == null) {
+            return;
+        }
+        values.forEach(id -> {
+            SubstitutionImpl substitution = new SubstitutionImpl();
+            substitution.add(variable, dictionary.decode(id));
+            substitutions.add(substitution);
+        });
+    }
+
+    /**
+     * Crée une substitution par couple (deuxième niveau, troisième niveau) d'une entrée d'index.
+     */
+    private void collect(IntObjectHashMap<IntHashSet> level2, Variable secondVariable, Variable thirdVariable,
+                         List<Substitution> substitutions) {
+        if (level2 == null) {
+            return;
+        }
+        level2.forEach((second, thirds) -> thirds.forEach(third -> {
+            SubstitutionImpl substitution = new SubstitutionImpl();
+            substitution.add(secondVariable, dictionary.decode(second));
+            substitution.add(thirdVariable, dictionary.decode(third));
+            substitutions.add(substitution);
+        }));
+    }
+
+    /**
+     * Matcher une StarQuery avec les triplets RDF stockés : les substitutions de chaque triplet sont
+     * regroupées par valeur de la variable centrale, puis jointes valeur par valeur sur les variables
+     * qu'elles partagent et projetées sur les variables réponses, comme {@link RDFHexaStore#match(StarQuery)}.
+     *
+     * @param q la StarQuery à matcher
+     * @return un itérateur de substitutions des variables réponses
+     */
+    @Override
+    public Iterator<Substitution> match(StarQuery q) {
+        Variable central = q.getCentralVariable();
+        List<Map<Term, List<Substitution>>> groups = new ArrayList<>();
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            Map<Term, List<Substitution>> byCentral = new HashMap<>();
+            match(atom).forEachRemaining(substitution -> byCentral
+                    .computeIfAbsent(substitution.createImageOf(central), value -> new ArrayList<>())
+                    .add(substitution));
+
+            // Si un triplet n'a aucune correspondance, aucun résultat n'est possible
+            if (byCentral.isEmpty()) {
+                return Collections.emptyIterator();
+            }
+            groups.add(byCentral);
+        }
+        if (groups.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+
+        List<Substitution> results = new ArrayList<>();
+        for (Term value : groups.get(0).keySet()) {
+            join(groups, 0, value, new HashMap<>(), q.getAnswerVariables(), results);
+        }
+        return results.iterator();
+    }
+
+    /**
+     * Étend une jointure partielle avec les substitutions du triplet {@code index} pour une valeur
+     * de la variable centrale, et ajoute aux résultats sa projection une fois tous les triplets joints.
+     */
+    private static void join(List<Map<Term, List<Substitution>>> groups, int index, Term value,
+                             Map<Variable, Term> partial, Collection<Variable> answers, List<Substitution> results) {
+        if (index == groups.size()) {
+            SubstitutionImpl projection = new SubstitutionImpl();
+            for (Variable variable : answers) {
+                projection.add(variable, partial.get(variable));
+            }
+            results.add(projection);
+            return;
+        }
+        List<Substitution> candidates = groups.get(index).get(value);
+        if (candidates == null) {
+            return;
+        }
+        for (Substitution substitution : candidates) {
+            Map<Variable, Term> extended = new HashMap<>(partial);
+            boolean compatible = true;
+            for (Variable variable : substitution.keys()) {
+                Term image = substitution.createImageOf(variable);
+                Term previous = extended.putIfAbsent(variable, image);
+                // Une variable partagée avec un triplet précédent doit y avoir la même valeur
+                if (previous != null && !previous.equals(image)) {
+                    compatible = false;
+                    break;
+                }
+            }
+            if (compatible) {
+                join(groups, index + 1, value, extended, answers, results);
+            }
+        }
+    }
+
+    /**
+     * Retourne tous les atomes RDF stockés.
+     *
+     * @return une collection d'atomes RDF
+     */
+    @Override
+    public Collection<Atom> getAtoms() {
+        List<Atom> atoms = new ArrayList<>((int) size);
+        spo.forEach((s, level2) -> level2.forEach((p, objects) -> objects.forEach(o ->
+                atoms.add(new RDFAtom(dictionary.decode(s), dictionary.decode(p), dictionary.decode(o))))));
+        return atoms;
+    }
+}
@@ -0,0 +1,250 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des réponses des requêtes en étoile d'un store, placé devant {@link RDFHexaStore#match(StarQuery)}.
+ * <p>
+ * La clé est une forme canonique de la requête ({@link #key(StarQuery, boolean, TermDictionary)}) :
+ * triplets triés, variables renommées dans leur ordre d'apparition, constantes remplacées par leurs
+ * identifiants. Deux requêtes identiques au nommage des variables et à l'ordre des triplets près
+ * partagent donc leur entrée. Les réponses sont conservées sous forme de n-uplets d'identifiants
+ * ({@link Answers}), dans un unique tableau par requête.
+ * <p>
+ * L'éviction suit l'ordre LRU et borne à la fois le nombre d'entrées et leur taille totale estimée
+ * en octets ; une réponse plus grande que le budget n'est pas conservée. Tout ajout au store
+ * invalide le cache ({@link #invalidate()}).
+ * <p>
+ * Le cache peut être partagé par des threads qui évaluent des requêtes en même temps : la lecture réordonne
+ * la liste LRU, aussi {@link #get(String)}, {@link #put(String, Answers)} et {@link #invalidate()} sont
+ * exclusifs (verrou du cache), et les compteurs sont atomiques. L'évaluation d'une requête absente se fait
+ * hors du verrou : deux threads peuvent l'évaluer en même temps, le second remplaçant l'entrée du premier.
+ */
+public class QueryCache {
+    // Surcoût estimé d'une entrée : nœud de la table, objets Answers et tableau, chaîne de la clé
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Answers> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Réponses d'une requête : {@code count} n-uplets de {@code width} identifiants, rangés bout à bout
+     * dans {@code ids}, dans l'ordre des variables réponses de la requête.
+     *
+     * @param width le nombre de variables réponses
+     * @param count le nombre de réponses
+     * @param ids   les identifiants des réponses
+     */
+    public record Answers(int width, int count, int[] ids) {
+
+        /**
+         * @return l'identifiant de la variable réponse {@code column} de la réponse {@code row}
+         */
+        public int get(int row, int column) {
+            return ids[row * width + column];
+        }
+
+        long footprint() {
+            return 16L + 4L * ids.length;
+        }
+    }
+
+    /**
+     * @param maxEntries le nombre maximal de requêtes conservées
+     * @param maxBytes   la taille totale estimée maximale des entrées, en octets
+     * @throws IllegalArgumentException si l'une des bornes n'est pas positive
+     */
+    public QueryCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Les bornes du cache doivent être positives : "
+                    + maxEntries + " entrées, " + maxBytes + " octets.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Construit la forme canonique d'une requête. Les triplets sont triés sur leur forme sans nom de
+     * variable (constantes, rôle de chaque variable : centrale, réponse ou autre) puis les variables
+     * sont numérotées dans leur ordre d'apparition ; la clé contient enfin les numéros des variables
+     * réponses, dans l'ordre de la requête, et l'option DISTINCT. Deux requêtes de même clé sont
+     * identiques au renommage près : leurs réponses, dans l'ordre de leurs variables réponses, sont les mêmes.
+     *
+     * @param q          la requête
+     * @param distinct   vrai si les doublons sont éliminés
+     * @param dictionary le dictionnaire du store, qui doit contenir toutes les constantes de la requête
+     * @return la clé de la requête
+     */
+    public static String key(StarQuery q, boolean distinct, TermDictionary dictionary) {
+        Collection<Variable> answers = q.getAnswerVariables();
+        List<RDFAtom> atoms = new ArrayList<>(q.getRdfAtoms());
+        Map<RDFAtom, String> shapeOf = new HashMap<>();
+        for (RDFAtom atom : atoms) {
+            StringBuilder shape = new StringBuilder();
+            Term[] terms = atom.getTerms();
+            for (int position = 0; position < 3; position++) {
+                Term term = terms[position];
+                if (term instanceof Variable variable) {
+                    shape.append(variable.equals(q.getCentralVariable()) ? 'C' : answers.contains(variable) ? 'A' : 'V');
+                    // Répétition d'une variable dans le triplet
+                    for (int previous = 0; previous < position; previous++) {
+                        if (terms[previous].equals(term)) {
+                            shape.append(previous);
+                        }
+                    }
+                } else {
+                    shape.append(dictionary.lookup(term, position));
+                }
+                shape.append(' ');
+            }
+            shapeOf.put(atom, shape.toString());
+        }
+        atoms.sort(Comparator.comparing(shapeOf::get));
+
+        Map<Variable, Integer> names = new HashMap<>();
+        StringBuilder key = new StringBuilder();
+        for (RDFAtom atom : atoms) {
+            Term[] terms = atom.getTerms();
+            for (int position = 0; position < 3; position++) {
+                if (terms[position] instanceof Variable variable) {
+                    key.append('?').append(names.computeIfAbsent(variable, v -> names.size()));
+                } else {
+                    key.append(dictionary.lookup(terms[position], position));
+                }
+                key.append(position < 2 ? ' ' : '.');
+            }
+        }
+        key.append('|');
+        for (Variable variable : answers) {
+            key.append('?').append(names.get(variable)).append(' ');
+        }
+        return distinct ? key.append("DISTINCT").toString() : key.toString();
+    }
+
+    /**
+     * @param key la clé canonique de la requête
+     * @return les réponses conservées, ou null si la requête n'est pas dans le cache
+     */
+    public synchronized Answers get(String key) {
+        Answers answers = entries.get(key);
+        if (answers == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return answers;
+    }
+
+    /**
+     * Conserve les réponses d'une requête, en évinçant les entrées les moins récemment utilisées
+     * jusqu'à respecter les deux bornes. Les réponses plus grandes que le budget ne sont pas conservées.
+     *
+     * @param key     la clé canonique de la requête
+     * @param answers ses réponses
+     */
+    public synchronized void put(String key, Answers answers) {
+        long size = footprint(key, answers);
+        if (size > maxBytes) {
+            return;
+        }
+        Answers previous = entries.put(key, answers);
+        if (previous != null) {
+            bytes -= footprint(key, previous);
+        }
+        bytes += size;
+
+        Iterator<Map.Entry<String, Answers>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            Map.Entry<String, Answers> entry = eldest.next();
+            bytes -= footprint(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Vide le cache après une modification du store.
+     */
+    public synchronized void invalidate() {
+        if (!entries.isEmpty()) {
+            entries.clear();
+            bytes = 0;
+            invalidations.incrementAndGet();
+        }
+    }
+
+    private static long footprint(String key, Answers answers) {
+        return ENTRY_OVERHEAD + 2L * key.length() + answers.footprint();
+    }
+
+    /**
+     * @return le nombre de requêtes conservées
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return la taille totale estimée des entrées, en octets
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return le nombre de requêtes servies par le cache
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return le nombre de requêtes absentes du cache
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return le nombre d'entrées évincées pour respecter les bornes
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return le nombre de fois où le cache a été vidé par un ajout au store
+     */
+    public long invalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return la proportion de requêtes servies par le cache, 0 si aucune requête n'a été posée
+     */
+    public double hitRate() {
+        long hits = this.hits.get();
+        long requests = hits + misses.get();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Cache de requêtes : %d entrées (%,d octets), %d succès, %d échecs (%.1f %%), "
+                        + "%d évictions, %d invalidations",
+                entries.size(), bytes, hits.get(), misses.get(), 100 * hitRate(), evictions.get(), invalidations.get());
+    }
+}
@@ -2,24 +2,122 @@ package qengine.storage;
 
 import fr.boreal.model.logicalElements.api.Term;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
-public class RDFDictionary {
-    private final Map<Term, Integer> resourceToId = new HashMap<>();
-    private final Map<Integer, Term> idToResource = new HashMap<>();
-    private int nextId = 1;
+/**
+ * Dictionnaire des termes d'un store, sans boxing. Chacun des deux espaces d'identifiants
+ * (entités, prédicats) est une {@link Space} :
+ * <ul>
+ *     <li>le décodage est un accès direct au tableau {@code terms}, indexé par le rang ;</li>
+ *     <li>l'encodage sonde une unique table à adressage ouvert ({@code table}) qui contient les rangs
+ *     et non les termes : les termes sont comparés via {@code terms[rang]}. La case vide vaut 0,
+ *     rang jamais attribué.</li>
+ * </ul>
+ */
+public class RDFDictionary implements TermDictionary {
+    private static final int EMPTY = 0;
 
+    private final Space entities = new Space();
+    private final Space predicates = new Space();
+
+    @Override
     public int encode(Term resource) {
-        return resourceToId.computeIfAbsent(resource, r -> {
-            int id = nextId++;
-            idToResource.put(id, r);
-            return id;
-        });
+        return entities.encode(resource);
     }
 
+    @Override
+    public int encodePredicate(Term resource) {
+        return TermDictionary.predicateId(predicates.encode(resource));
+    }
+
+    @Override
+    public int lookup(Term term) {
+        return entities.lookup(term);
+    }
+
+    @Override
+    public int lookupPredicate(Term term) {
+        int rank = predicates.lookup(term);
+        return rank == UNKNOWN ? UNKNOWN : TermDictionary.predicateId(rank);
+    }
+
+    @Override
     public Term decode(int id) {
-        return idToResource.get(id);
+        return TermDictionary.isPredicate(id)
+                ? predicates.decode(TermDictionary.predicateRank(id))
+                : entities.decode(id);
+    }
+
+    @Override
+    public int size() {
+        return entities.nextId - 1;
     }
 
-}
\ No newline at end of file
+    @Override
+    public int predicateCount() {
+        return predicates.nextId - 1;
+    }
+
+    /**
+     * Un espace d'identifiants : rangs consécutifs à partir de 1.
+     */
+    private static final class Space {
+        // terms[id] est le terme de rang id ; la case 0 reste vide
+        private Term[] terms = new Term[16];
+        private int[] table = new int[32];
+        private int mask = table.length - 1;
+        private int nextId = 1;
+
+        int encode(Term resource) {
+            int slot = slot(resource);
+            for (int id = table[slot]; id != EMPTY; id = table[slot]) {
+                if (terms[id].equals(resource)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = nextId++;
+            if (id == terms.length) {
+                terms = Arrays.copyOf(terms, terms.length * 2);
+            }
+            terms[id] = resource;
+            table[slot] = id;
+            // Taux de remplissage maximal de 1/2 : les sondages restent courts
+            if (2 * id > table.length) {
+                rehash(table.length * 2);
+            }
+            return id;
+        }
+
+        int lookup(Term term) {
+            for (int slot = slot(term), id = table[slot]; id != EMPTY; slot = (slot + 1) & mask, id = table[slot]) {
+                if (terms[id].equals(term)) {
+                    return id;
+                }
+            }
+            return UNKNOWN;
+        }
+
+        Term decode(int id) {
+            return id > 0 && id < nextId ? terms[id] : null;
+        }
+
+        private void rehash(int capacity) {
+            table = new int[capacity];
+            mask = capacity - 1;
+            for (int id = 1; id < nextId; id++) {
+                int slot = slot(terms[id]);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id;
+            }
+        }
+
+        private int slot(Term term) {
+            int h = term.hashCode() * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -5,50 +5,337 @@ import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
 import org.apache.commons.lang3.NotImplementedException;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
+import qengine.storage.posting.PostingList;
+import qengine.storage.posting.SortedIntPostingList;
+import qengine.storage.primitive.IntTupleSet;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * Implémentation d'un HexaStore pour stocker des RDFAtom.
- * Cette classe utilise six index pour optimiser les recherches.
+ * Cette classe utilise jusqu'à six index pour optimiser les recherches.
  * Les index sont basés sur les combinaisons (Sujet, Prédicat, Objet), (Sujet, Objet, Prédicat),
  * (Prédicat, Sujet, Objet), (Prédicat, Objet, Sujet), (Objet, Sujet, Prédicat) et (Objet, Prédicat, Sujet).
+ * Seul un sous-ensemble des permutations peut être conservé (voir {@link Permutation#THREE}) :
+ * les motifs qu'aucun index ne sert directement sont alors évalués par parcours et filtrage.
+ * Un store gelé peut être écrit sur disque par {@link #save(Path)} puis rouvert par {@link #open(Path)}
+ * sans relire les N-Triples : les index et le dictionnaire sont alors servis depuis les fichiers projetés.
+ * Les prédicats sont encodés dans leur propre espace d'identifiants (voir {@link TermDictionary}) :
+ * les index PSO et POS ont ainsi pour premier niveau un tableau indexé par le rang du prédicat.
+ * Les réponses des requêtes en étoile peuvent être conservées dans un cache ({@link #enableQueryCache(int, long)}),
+ * vidé à chaque ajout. Les listes de candidats de la variable centrale lues pour chaque triplet peuvent
+ * de même être partagées entre requêtes ({@link #enableCandidateCache(long)}).
  */
 public class RDFHexaStore implements RDFStorage {
-    // Déclaration des six index
-    private final Map<Integer, Map<Integer, Set<Integer>>> spo = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> sop = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> pso = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> pos = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> osp = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> ops = new HashMap<>();
-    private final RDFDictionary dictionary = new RDFDictionary();
+    static final String DICTIONARY_FILE = "dictionary.bin";
+    static final String INDEX_EXTENSION = ".idx";
+    static final String STATISTICS_FILE = "statistics.bin";
+    // Écart maximal de sélectivité entre le triplet le plus sélectif et un triplet fournissant une liste de candidats
+    private static final long CANDIDATE_LIST_RATIO = 64;
+
+    // Déclaration des index, un par permutation conservée
+    private final EnumMap<Permutation, TripleIndex> indexes = new EnumMap<>(Permutation.class);
+    private TermDictionary dictionary = new RDFDictionary();
+    // Cardinalités tenues à jour à chaque ajout, pour la planification des requêtes
+    private StatisticsCatalog statistics = new StatisticsCatalog();
+
+    // Vrai une fois les index compactés par freeze()
+    private boolean frozen = false;
+
+    // Cache des réponses des requêtes en étoile, null s'il n'est pas activé
+    private volatile QueryCache queryCache;
+    // Cache des listes de candidats par triplet, null s'il n'est pas activé
+    private volatile CandidateCache candidateCache;
+
+    // Nombre d'accès à chaque index, et parmi eux ceux qui ont dû parcourir et filtrer
+    private final AtomicLongArray permutationUsage = new AtomicLongArray(Permutation.values().length);
+    private final AtomicLongArray permutationScans = new AtomicLongArray(Permutation.values().length);
+
+    /**
+     * Crée un HexaStore avec les six index.
+     */
+    public RDFHexaStore() {
+        this(Permutation.ALL);
+    }
+
+    /**
+     * Crée un store ne conservant que certaines permutations.
+     *
+     * @param permutations les permutations à indexer
+     * @throws IllegalArgumentException si aucune permutation n'est donnée
+     */
+    public RDFHexaStore(Set<Permutation> permutations) {
+        if (permutations.isEmpty()) {
+            throw new IllegalArgumentException("Au moins une permutation doit être indexée.");
+        }
+        for (Permutation permutation : permutations) {
+            indexes.put(permutation, newIndex(permutation));
+        }
+    }
+
+    /**
+     * Crée un HexaStore avec les six index, encodant ses termes dans le dictionnaire donné.
+     *
+     * @param dictionary le dictionnaire, vide
+     */
+    RDFHexaStore(TermDictionary dictionary) {
+        this(Permutation.ALL);
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return un index modifiable vide pour la permutation : à premier niveau tabulé si elle commence par le prédicat
+     */
+    private static TripleIndex newIndex(Permutation permutation) {
+        return permutation.position(0) == 1 ? new PredicateTripleIndex() : new HashTripleIndex();
+    }
+
+    /**
+     * Crée un store gelé à partir d'un dictionnaire et d'index déjà construits.
+     */
+    private RDFHexaStore(TermDictionary dictionary, EnumMap<Permutation, FrozenTripleIndex> indexes,
+                         StatisticsCatalog statistics) {
+        this.dictionary = dictionary;
+        this.indexes.putAll(indexes);
+        this.statistics = statistics;
+        this.frozen = true;
+    }
+
+    /**
+     * Écrit le dictionnaire, le catalogue de statistiques et chaque index conservé dans un répertoire :
+     * {@code dictionary.bin}, {@code statistics.bin} et un fichier {@code <permutation>.idx} par permutation
+     * (par exemple {@code SPO.idx}).
+     * Les index qui ne sont pas encore gelés sont compactés pour l'écriture, sans modifier le store.
+     *
+     * @param directory le répertoire de destination, créé s'il n'existe pas
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void save(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        MappedDictionary.write(dictionary, directory.resolve(DICTIONARY_FILE));
+        statistics.write(directory.resolve(STATISTICS_FILE));
+        for (Map.Entry<Permutation, TripleIndex> entry : indexes.entrySet()) {
+            FrozenTripleIndex index = entry.getValue() instanceof FrozenTripleIndex frozenIndex
+                    ? frozenIndex : FrozenTripleIndex.of(entry.getValue());
+            index.write(directory.resolve(entry.getKey() + INDEX_EXTENSION));
+        }
+    }
+
+    /**
+     * Ouvre un store écrit par {@link #save(Path)}. Les fichiers sont projetés en mémoire
+     * ({@code FileChannel.map}) et les requêtes sont servies directement depuis ces projections :
+     * l'ouverture ne lit ni ne désérialise les données, et le store peut dépasser la taille du tas.
+     * Le store ouvert est gelé ; seules les permutations présentes dans le répertoire sont indexées.
+     *
+     * @param directory le répertoire du store
+     * @return le store ouvert
+     * @throws IOException si un fichier est absent, illisible ou invalide
+     */
+    public static RDFHexaStore open(Path directory) throws IOException {
+        TermDictionary dictionary = MappedDictionary.map(directory.resolve(DICTIONARY_FILE));
+        EnumMap<Permutation, FrozenTripleIndex> indexes = new EnumMap<>(Permutation.class);
+        for (Permutation permutation : Permutation.values()) {
+            Path file = directory.resolve(permutation + INDEX_EXTENSION);
+            if (Files.exists(file)) {
+                indexes.put(permutation, FrozenTripleIndex.map(file));
+            }
+        }
+        if (indexes.isEmpty()) {
+            throw new IOException("Aucun index trouvé dans " + directory);
+        }
+        return new RDFHexaStore(dictionary, indexes, StatisticsCatalog.read(directory.resolve(STATISTICS_FILE)));
+    }
+
+    /**
+     * @param path un chemin de données
+     * @return vrai si le chemin désigne un store écrit par {@link #save(Path)}
+     */
+    public static boolean isStoreDirectory(Path path) {
+        return Files.isDirectory(path) && Files.exists(path.resolve(DICTIONARY_FILE));
+    }
 
     /**
-     * Ajoute un RDFAtom aux six index.
+     * Ajoute un RDFAtom aux index.
      *
      * @param atom le RDFAtom à ajouter
      * @return true si l'ajout est réussi
      */
     @Override
     public boolean add(RDFAtom atom) {
-        // Encode les termes du triplet RDF en identifiants
+        if (frozen) {
+            throw new IllegalStateException("Le store est gelé : aucun ajout n'est possible après freeze().");
+        }
+
+        // Encode les termes du triplet RDF en identifiants, le prédicat dans l'espace des prédicats
         int subjectId = dictionary.encode(atom.getTripleSubject());
-        int predicateId = dictionary.encode(atom.getTriplePredicate());
+        int predicateId = dictionary.encodePredicate(atom.getTriplePredicate());
         int objectId = dictionary.encode(atom.getTripleObject());
 
         // Affiche le triplet encodé
 //        System.out.println("Triplet encodé : (" + subjectId + ", " + predicateId + ", " + objectId + ")");
 
-        // Ajoute le triplet aux six index
-        addToIndex(spo, subjectId, predicateId, objectId);
-        addToIndex(sop, subjectId, objectId, predicateId);
-        addToIndex(pso, predicateId, subjectId, objectId);
-        addToIndex(pos, predicateId, objectId, subjectId);
-        addToIndex(osp, objectId, subjectId, predicateId);
-        addToIndex(ops, objectId, predicateId, subjectId);
+        return add(subjectId, predicateId, objectId);
+    }
+
+    /**
+     * Ajoute aux index un triplet déjà encodé par le dictionnaire du store ({@link #getDictionary()}),
+     * par exemple par {@link qengine.parser.NTriplesReader}, sans passer par les termes.
+     *
+     * @param subjectId   l'identifiant d'entité du sujet
+     * @param predicateId l'identifiant de prédicat du prédicat
+     * @param objectId    l'identifiant d'entité de l'objet
+     * @return true si le triplet n'était pas déjà dans le store
+     */
+    public boolean add(int subjectId, int predicateId, int objectId) {
+        if (frozen) {
+            throw new IllegalStateException("Le store est gelé : aucun ajout n'est possible après freeze().");
+        }
+
+        // Ajoute le triplet à chaque index, dans l'ordre de sa permutation ;
+        // tous les index contiennent les mêmes triplets, ils s'accordent donc sur sa nouveauté
+        int[] triple = {subjectId, predicateId, objectId};
+        boolean added = false;
+        for (Map.Entry<Permutation, TripleIndex> entry : indexes.entrySet()) {
+            Permutation permutation = entry.getKey();
+            added |= addToIndex(entry.getValue(),
+                    permutation.get(triple, 0), permutation.get(triple, 1), permutation.get(triple, 2));
+        }
+
+        if (added) {
+            statistics.add(subjectId, predicateId, objectId);
+            invalidateCaches();
+        }
+        return added;
+    }
+
+    /**
+     * Ajoute en bloc des triplets déjà encodés par le dictionnaire du store. Chaque index est rempli par
+     * sa propre tâche du pool commun ; le catalogue de statistiques est ensuite mis à jour avec les
+     * triplets nouveaux, que désigne le premier index.
+     *
+     * @param triples les triplets (sujet, prédicat, objet) rangés bout à bout
+     * @param count   le nombre de triplets
+     * @return le nombre de triplets qui n'étaient pas déjà dans le store
+     */
+    public long addAll(int[] triples, int count) {
+        if (frozen) {
+            throw new IllegalStateException("Le store est gelé : aucun ajout n'est possible après freeze().");
+        }
+
+        List<Map.Entry<Permutation, TripleIndex>> entries = new ArrayList<>(indexes.entrySet());
+        boolean[] added = new boolean[count];
+        IntStream.range(0, entries.size()).parallel().forEach(k -> {
+            Permutation permutation = entries.get(k).getKey();
+            TripleIndex index = entries.get(k).getValue();
+            int first = permutation.position(0);
+            int second = permutation.position(1);
+            int third = permutation.position(2);
+            for (int i = 0, base = 0; i < count; i++, base += 3) {
+                boolean isNew = index.add(triples[base + first], triples[base + second], triples[base + third]);
+                if (k == 0) {
+                    added[i] = isNew;
+                }
+            }
+        });
+
+        long addedCount = 0;
+        for (int i = 0, base = 0; i < count; i++, base += 3) {
+            if (added[i]) {
+                statistics.add(triples[base], triples[base + 1], triples[base + 2]);
+                addedCount++;
+            }
+        }
+        if (addedCount > 0) {
+            invalidateCaches();
+        }
+        return addedCount;
+    }
+
+    /**
+     * Construit tous les index d'un store vide à partir de triplets encodés, par tri plutôt que par
+     * insertions successives : pour chaque permutation, en parallèle, les triplets sont réordonnés puis
+     * triés par base ({@link TripleSort}), et une passe linéaire produit directement l'index gelé, aux
+     * tableaux dimensionnés exactement, en éliminant les doublons. Le store est ensuite gelé, comme après
+     * {@link #freeze()}. Chaque permutation construite en parallèle occupe temporairement deux copies des
+     * triplets.
+     *
+     * @param triples les triplets (sujet, prédicat, objet) encodés par le dictionnaire du store, bout à bout
+     * @param count   le nombre de triplets
+     * @return le nombre de triplets distincts
+     * @throws IllegalStateException si le store n'est pas vide ou est gelé
+     */
+    public long bulkLoad(int[] triples, int count) {
+        if (frozen || statistics.size() != 0) {
+            throw new IllegalStateException("Le chargement en bloc exige un store vide et non gelé.");
+        }
+
+        List<Permutation> permutations = new ArrayList<>(indexes.keySet());
+        FrozenTripleIndex[] built = new FrozenTripleIndex[permutations.size()];
+        IntStream.range(0, permutations.size()).parallel().forEach(k -> {
+            Permutation permutation = permutations.get(k);
+            int first = permutation.position(0);
+            int second = permutation.position(1);
+            int third = permutation.position(2);
+            int[] permuted = new int[3 * count];
+            for (int i = 0, base = 0; i < count; i++, base += 3) {
+                permuted[base] = triples[base + first];
+                permuted[base + 1] = triples[base + second];
+                permuted[base + 2] = triples[base + third];
+            }
+            built[k] = FrozenTripleIndex.ofSorted(TripleSort.sort(permuted, count, new int[3 * count]), count);
+        });
+
+        // Le catalogue de statistiques est rempli avec les triplets distincts du premier index
+        Permutation permutation = permutations.get(0);
+        int[] triple = new int[3];
+        built[0].forEach((first, second, third) -> {
+            triple[permutation.position(0)] = first;
+            triple[permutation.position(1)] = second;
+            triple[permutation.position(2)] = third;
+            statistics.add(triple[0], triple[1], triple[2]);
+        });
+        for (int k = 0; k < built.length; k++) {
+            indexes.put(permutations.get(k), built[k]);
+        }
+        statistics.freeze();
+        frozen = true;
+        invalidateCaches();
+        return statistics.size();
+    }
+
+    /**
+     * Ouvre un chargement en pipeline ({@link IndexPipeline}) : chaque index est construit par son
+     * propre thread à partir des triplets encodés ajoutés au pipeline.
+     *
+     * @param capacity le nombre maximal de triplets en attente entre le producteur et les index
+     * @return le pipeline, à terminer par {@link IndexPipeline#finish()}
+     * @throws IllegalStateException si le store est gelé
+     */
+    public IndexPipeline openPipeline(int capacity) {
+        if (frozen) {
+            throw new IllegalStateException("Le store est gelé : aucun ajout n'est possible après freeze().");
+        }
+        return new IndexPipeline(indexes, statistics, capacity, this::invalidateCaches);
+    }
 
-        return true;
+    /**
+     * Vide les caches de requêtes et de candidats après une modification du store.
+     */
+    private void invalidateCaches() {
+        QueryCache queries = queryCache;
+        if (queries != null) {
+            queries.invalidate();
+        }
+        CandidateCache candidates = candidateCache;
+        if (candidates != null) {
+            candidates.invalidate();
+        }
     }
 
     /**
@@ -58,46 +345,76 @@ public class RDFHexaStore implements RDFStorage {
      * @param first  le premier terme du triplet
      * @param second le deuxième terme du triplet
      * @param third  le troisième terme du triplet
+     * @return true si le triplet n'était pas déjà dans l'index
      */
-    private void addToIndex(Map<Integer, Map<Integer, Set<Integer>>> index, int first, int second, int third) {
+    private boolean addToIndex(TripleIndex index, int first, int second, int third) {
         // Ajoute le triplet à l'index
-        index.computeIfAbsent(first, k -> new HashMap<>())
-                .computeIfAbsent(second, k -> new HashSet<>())
-                .add(third);
+        return index.add(first, second, third);
+    }
 
-        // Affiche l'index après l'ajout
-//        System.out.println("Index après ajout :");
-//        index.forEach((key, value) -> System.out.println(" " + key + " -> " + value));
+    /**
+     * Compacte les index au format CSR ({@link FrozenTripleIndex}) une fois le chargement terminé.
+     * Les tables de hachage sont libérées ; les recherches se font ensuite par dichotomie dans
+     * des tableaux triés. Le store devient alors en lecture seule.
+     */
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+        indexes.replaceAll((permutation, index) -> FrozenTripleIndex.of(index));
+        statistics.freeze();
+        frozen = true;
+    }
+
+    /**
+     * Remplace le dictionnaire par sa version compacte ({@link FrontCodedDictionary}) : libellés triés
+     * et codés par préfixes communs, termes recréés seulement au décodage des résultats.
+     * Les identifiants sont conservés, les index ne sont donc pas modifiés.
+     *
+     * @throws IllegalStateException si le store n'est pas gelé (le dictionnaire compact est en lecture seule)
+     */
+    public void compactDictionary() {
+        if (!frozen) {
+            throw new IllegalStateException("Le dictionnaire ne peut être compacté qu'après freeze().");
+        }
+        if (!(dictionary instanceof FrontCodedDictionary)) {
+            dictionary = FrontCodedDictionary.of(dictionary);
+        }
+    }
+
+    /**
+     * @return true si les index ont été compactés par {@link #freeze()}
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return les permutations indexées par ce store
+     */
+    public Set<Permutation> getPermutations() {
+        return Collections.unmodifiableSet(indexes.keySet());
     }
 
     /**
      * Affiche tous les index.
      */
     public void printAllIndexes() {
-        System.out.println("Index SPO :");
-        printIndex(spo);
-        System.out.println("Index SOP :");
-        printIndex(sop);
-        System.out.println("Index PSO :");
-        printIndex(pso);
-        System.out.println("Index POS :");
-        printIndex(pos);
-        System.out.println("Index OSP :");
-        printIndex(osp);
-        System.out.println("Index OPS :");
-        printIndex(ops);
+        indexes.forEach((permutation, index) -> {
+            System.out.println("Index " + permutation + " :");
+            printIndex(index);
+        });
     }
 
     /**
-     * Efface tous les index.
+     * Efface tous les index, ainsi que le dictionnaire (qui peut provenir d'un store ouvert en lecture seule).
      */
     public void clearAllIndexes() {
-        spo.clear();
-        sop.clear();
-        pso.clear();
-        pos.clear();
-        osp.clear();
-        ops.clear();
+        indexes.replaceAll((permutation, index) -> newIndex(permutation));
+        dictionary = new RDFDictionary();
+        statistics = new StatisticsCatalog();
+        frozen = false;
+        invalidateCaches();
 
         System.out.println("Tous les index ont été effacés.");
     }
@@ -107,183 +424,887 @@ public class RDFHexaStore implements RDFStorage {
      *
      * @param index l'index à afficher
      */
-    private void printIndex(Map<Integer, Map<Integer, Set<Integer>>> index) {
-        index.forEach((key, value) -> {
-            System.out.println(" " + key + " -> " + value);
-        });
+    private void printIndex(TripleIndex index) {
+        System.out.print(index);
     }
 
     /**
-     * Retourne la taille totale de l'HexaStore.
+     * Retourne la taille totale de l'HexaStore, tenue à jour par le catalogue de statistiques.
      *
      * @return la taille totale
      */
     @Override
     public long size() {
-        return spo.values().stream()
-                .flatMap(map -> map.values().stream())
-                .mapToLong(Set::size)
-                .sum();
+        return statistics.size();
+    }
+
+    /**
+     * Active le cache des réponses des requêtes en étoile (voir {@link QueryCache}), vide.
+     *
+     * @param maxEntries le nombre maximal de requêtes conservées
+     * @param maxBytes   la taille totale estimée maximale des réponses conservées, en octets
+     */
+    public void enableQueryCache(int maxEntries, long maxBytes) {
+        queryCache = new QueryCache(maxEntries, maxBytes);
+    }
+
+    /**
+     * Désactive le cache des réponses des requêtes en étoile.
+     */
+    public void disableQueryCache() {
+        queryCache = null;
+    }
+
+    /**
+     * @return le cache des réponses des requêtes en étoile, avec ses compteurs de succès et d'échecs,
+     *         ou null s'il n'est pas activé
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Active le cache des listes de candidats par triplet (voir {@link CandidateCache}), vide.
+     *
+     * @param maxBytes la taille totale estimée maximale des listes conservées, en octets
+     */
+    public void enableCandidateCache(long maxBytes) {
+        candidateCache = new CandidateCache(maxBytes);
+    }
+
+    /**
+     * Désactive le cache des listes de candidats par triplet.
+     */
+    public void disableCandidateCache() {
+        candidateCache = null;
+    }
+
+    /**
+     * @return le cache des listes de candidats par triplet, ou null s'il n'est pas activé
+     */
+    public CandidateCache getCandidateCache() {
+        return candidateCache;
+    }
+
+    /**
+     * @return le catalogue des cardinalités du store (globales et par prédicat), exprimées en identifiants
+     *         du dictionnaire, pour la planification des requêtes
+     */
+    public StatisticsCatalog getStatistics() {
+        return statistics;
     }
 
     /**
-     * Retourne un itérateur de substitutions pour matcher un RDFAtom.
+     * @return le dictionnaire du store, qui encode les termes des triplets ajoutés par {@link #add(int, int, int)}
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Retourne un itérateur de substitutions pour matcher un RDFAtom. L'itérateur est paresseux :
+     * il parcourt les entrées de l'index à la demande et ne crée chaque substitution qu'à l'appel
+     * de {@code next()}. Le store ne doit pas être modifié pendant le parcours.
      *
      * @param atom le RDFAtom à matcher
      * @return un itérateur de substitutions
      */
     @Override
     public Iterator<Substitution> match(RDFAtom atom) {
-        List<Substitution> substitutions = new ArrayList<>();
-
-        // Encode les termes du triplet RDF en identifiants, ou les définit à -1 s'ils sont des variables
-        int subjectId = atom.getTripleSubject().isVariable() ? -1 : dictionary.encode(atom.getTripleSubject());
-        int predicateId = atom.getTriplePredicate().isVariable() ? -1 : dictionary.encode(atom.getTriplePredicate());
-        int objectId = atom.getTripleObject().isVariable() ? -1 : dictionary.encode(atom.getTripleObject());
-
-        // Tous les termes sont des littéraux
-        if (subjectId != -1 && predicateId != -1 && objectId != -1) {
-            if (spo.containsKey(subjectId) && spo.get(subjectId).containsKey(predicateId) && spo.get(subjectId).get(predicateId).contains(objectId)) {
-                substitutions.add(new SubstitutionImpl(Collections.emptyMap())); // Ajoute une substitution vide
-            }
-        }
-        // Sujet et prédicat sont des littéraux, objet est une variable
-        else if (subjectId != -1 && predicateId != -1) {
-            if (spo.containsKey(subjectId) && spo.get(subjectId).containsKey(predicateId)) {
-                for (int objId : spo.get(subjectId).get(predicateId)) { // Parcourt les objets correspondants
-                    SubstitutionImpl substitution = new SubstitutionImpl(); // Crée une substitution
-                    substitution.add((Variable) atom.getTripleObject(), dictionary.decode(objId)); // Ajoute l'objet à la substitution
-                    substitutions.add(substitution); // Ajoute la substitution à la liste
+        Term[] terms = atom.getTerms();
+
+        // Recherche les identifiants des constantes du triplet RDF (-1 pour les variables), sans modifier
+        // le dictionnaire : une constante absente de la base ne peut correspondre à aucun triplet
+        int[] pattern = new int[3];
+        boolean[] bound = new boolean[3];
+        for (int position = 0; position < 3; position++) {
+            bound[position] = !terms[position].isVariable();
+            pattern[position] = bound[position] ? dictionary.lookup(terms[position], position) : -1;
+            if (pattern[position] == TermDictionary.UNKNOWN) {
+                return Collections.emptyIterator();
+            }
+        }
+
+        // Une variable répétée dans le triplet doit être liée au même terme à chaque position
+        int[] sameAs = {-1, -1, -1};
+        for (int position = 1; position < 3; position++) {
+            for (int previous = 0; previous < position; previous++) {
+                if (!bound[position] && terms[position].equals(terms[previous])) {
+                    sameAs[position] = previous;
                 }
             }
         }
-        // Sujet et objet sont des littéraux, prédicat est une variable
-        else if (subjectId != -1 && objectId != -1) {
-            if (sop.containsKey(subjectId) && sop.get(subjectId).containsKey(objectId)) {
-                for (int predId : sop.get(subjectId).get(objectId)) { // Parcourt les prédicats correspondants
-                    SubstitutionImpl substitution = new SubstitutionImpl(); // Crée une substitution
-                    substitution.add((Variable) atom.getTriplePredicate(), dictionary.decode(predId)); // Ajoute le prédicat à la substitution
-                    substitutions.add(substitution); // Ajoute la substitution à la liste
+
+        TripleScan scan = new TripleScan(pattern, bound, sameAs);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return scan.hasNext();
+            }
+
+            @Override
+            public Substitution next() {
+                int[] triple = scan.next();
+                SubstitutionImpl substitution = new SubstitutionImpl();
+                for (int position = 0; position < 3; position++) {
+                    if (!bound[position]) {
+                        substitution.add((Variable) terms[position], dictionary.decode(triple[position]));
+                    }
                 }
+                return substitution;
             }
+        };
+    }
+
+    /**
+     * @return true si les deux positions du triplet portent le même terme. Le prédicat étant encodé
+     *         dans un autre espace que le sujet et l'objet, ses identifiants se comparent par leur terme.
+     */
+    private boolean sameTerm(int[] triple, int position, int previous) {
+        if (position != 1 && previous != 1) {
+            return triple[position] == triple[previous];
         }
-        // Prédicat et objet sont des littéraux, sujet est une variable
-        else if (predicateId != -1 && objectId != -1) {
-            if (pos.containsKey(predicateId) && pos.get(predicateId).containsKey(objectId)) {
-                for (int subjId : pos.get(predicateId).get(objectId)) { // Parcourt les sujets correspondants
-                    SubstitutionImpl substitution = new SubstitutionImpl(); // Crée une substitution
-                    substitution.add((Variable) atom.getTripleSubject(), dictionary.decode(subjId)); // Ajoute le sujet à la substitution
-                    substitutions.add(substitution); // Ajoute la substitution à la liste
+        return dictionary.decode(triple[position]).equals(dictionary.decode(triple[previous]));
+    }
+
+    /**
+     * Parcours paresseux des triplets (en identifiants) correspondant à un motif, en utilisant l'index
+     * dont le plus long préfixe de niveaux est fixé par les constantes du motif. Les niveaux non fixés
+     * sont parcourus par des itérateurs imbriqués ; si aucun index conservé ne couvre toutes les constantes,
+     * les triplets parcourus sont filtrés sur les constantes restantes.
+     */
+    private final class TripleScan {
+        private static final PrimitiveIterator.OfInt NO_IDS = IntStream.empty().iterator();
+
+        private final int[] pattern;
+        private final boolean[] bound;
+        // sameAs[position] : position précédente portant la même variable, ou -1
+        private final int[] sameAs;
+        private final boolean filtered;
+        private final Permutation permutation;
+        private final TripleIndex index;
+
+        // Itérateurs des trois niveaux de l'index et clés courantes des deux premiers
+        private final PrimitiveIterator.OfInt firsts;
+        private PrimitiveIterator.OfInt seconds = NO_IDS;
+        private PrimitiveIterator.OfInt thirds = NO_IDS;
+        private int first;
+        private int second;
+
+        // Prochain triplet (sujet, prédicat, objet) correspondant, valide si ready
+        private final int[] triple = new int[3];
+        private boolean ready;
+
+        /**
+         * @param pattern les identifiants (sujet, prédicat, objet) du motif, quelconques aux positions libres
+         * @param bound   pour chaque position, vrai si le terme est une constante
+         * @param sameAs  pour chaque position libre, la position précédente portant la même variable, ou -1
+         */
+        TripleScan(int[] pattern, boolean[] bound, int[] sameAs) {
+            this.pattern = pattern;
+            this.bound = bound;
+            this.sameAs = sameAs;
+
+            permutation = choosePermutation(bound);
+            index = indexes.get(permutation);
+            int prefix = permutation.boundPrefix(bound);
+            int boundCount = (bound[0] ? 1 : 0) + (bound[1] ? 1 : 0) + (bound[2] ? 1 : 0);
+            filtered = prefix < boundCount;
+            recordUsage(permutation, filtered);
+
+            first = permutation.get(pattern, 0);
+            second = permutation.get(pattern, 1);
+            switch (prefix) {
+                // Tous les termes sont des constantes : une recherche ponctuelle
+                case 3 -> {
+                    firsts = NO_IDS;
+                    int third = permutation.get(pattern, 2);
+                    thirds = index.contains(first, second, third) ? IntStream.of(third).iterator() : NO_IDS;
+                }
+                // Les deux premiers niveaux sont fixés : on parcourt le troisième
+                case 2 -> {
+                    firsts = NO_IDS;
+                    thirds = index.thirds(first, second);
+                }
+                // Seul le premier niveau est fixé : on parcourt les deux suivants
+                case 1 -> {
+                    firsts = NO_IDS;
+                    seconds = index.secondKeys(first);
                 }
+                // Aucun niveau n'est fixé : parcours complet de l'index
+                default -> firsts = index.firstKeys();
             }
         }
-        // Sujet est un littéral, prédicat et objet sont des variables
-        else if (subjectId != -1) {
-            if (spo.containsKey(subjectId)) {
-                for (Map.Entry<Integer, Set<Integer>> predEntry : spo.get(subjectId).entrySet()) {
-                    for (int objId : predEntry.getValue()) { // Parcourt les objets correspondants
-                        SubstitutionImpl substitution = new SubstitutionImpl(); // Crée une substitution
-                        substitution.add((Variable) atom.getTriplePredicate(), dictionary.decode(predEntry.getKey())); // Ajoute le prédicat à la substitution
-                        substitution.add((Variable) atom.getTripleObject(), dictionary.decode(objId)); // Ajoute l'objet à la substitution
-                        substitutions.add(substitution); // Ajoute la substitution à la liste
-                    }
+
+        boolean hasNext() {
+            while (!ready) {
+                if (!advance()) {
+                    return false;
                 }
+                ready = accepts();
+            }
+            return true;
+        }
+
+        /**
+         * @return le triplet (sujet, prédicat, objet) suivant, dans un tableau réutilisé par l'appel suivant
+         */
+        int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            ready = false;
+            return triple;
         }
-        // Prédicat est un littéral, sujet et objet sont des variables
-        else if (predicateId != -1) {
-            if (pso.containsKey(predicateId)) {
-                for (Map.Entry<Integer, Set<Integer>> subjEntry : pso.get(predicateId).entrySet()) {
-                    for (int objId : subjEntry.getValue()) { // Parcourt les objets correspondants
-                        SubstitutionImpl substitution = new SubstitutionImpl(); // Crée une substitution
-                        substitution.add((Variable) atom.getTripleSubject(), dictionary.decode(subjEntry.getKey())); // Ajoute le sujet à la substitution
-                        substitution.add((Variable) atom.getTripleObject(), dictionary.decode(objId)); // Ajoute l'objet à la substitution
-                        substitutions.add(substitution); // Ajoute la substitution à la liste
+
+        /**
+         * Place dans {@code triple} le triplet suivant de l'index, en descendant dans les niveaux au besoin.
+         *
+         * @return false si l'index est épuisé
+         */
+        private boolean advance() {
+            while (!thirds.hasNext()) {
+                while (!seconds.hasNext()) {
+                    if (!firsts.hasNext()) {
+                        return false;
                     }
+                    first = firsts.nextInt();
+                    seconds = index.secondKeys(first);
                 }
+                second = seconds.nextInt();
+                thirds = index.thirds(first, second);
             }
+            triple[permutation.position(0)] = first;
+            triple[permutation.position(1)] = second;
+            triple[permutation.position(2)] = thirds.nextInt();
+            return true;
         }
-        // Objet est un littéral, sujet et prédicat sont des variables
-        else if (objectId != -1) {
-            if (osp.containsKey(objectId)) {
-                for (Map.Entry<Integer, Set<Integer>> subjEntry : osp.get(objectId).entrySet()) {
-                    for (int predId : subjEntry.getValue()) { // Parcourt les prédicats correspondants
-                        SubstitutionImpl substitution = new SubstitutionImpl(); // Crée une substitution
-                        substitution.add((Variable) atom.getTripleSubject(), dictionary.decode(subjEntry.getKey())); // Ajoute le sujet à la substitution
-                        substitution.add((Variable) atom.getTriplePredicate(), dictionary.decode(predId)); // Ajoute le prédicat à la substitution
-                        substitutions.add(substitution); // Ajoute la substitution à la liste
+
+        /**
+         * @return true si le triplet courant respecte les constantes hors préfixe et les variables répétées
+         */
+        private boolean accepts() {
+            if (filtered) {
+                for (int position = 0; position < 3; position++) {
+                    if (bound[position] && triple[position] != pattern[position]) {
+                        return false;
                     }
                 }
             }
+            for (int position = 1; position < 3; position++) {
+                if (sameAs[position] != -1 && !sameTerm(triple, position, sameAs[position])) {
+                    return false;
+                }
+            }
+            return true;
         }
-        // Tous les termes sont des variables
-        else {
-            for (Map.Entry<Integer, Map<Integer, Set<Integer>>> subjEntry : spo.entrySet()) {
-                for (Map.Entry<Integer, Set<Integer>> predEntry : subjEntry.getValue().entrySet()) {
-                    for (int objId : predEntry.getValue()) { // Parcourt les objets correspondants
-                        SubstitutionImpl substitution = new SubstitutionImpl(); // Crée une substitution
-                        substitution.add((Variable) atom.getTripleSubject(), dictionary.decode(subjEntry.getKey())); // Ajoute le sujet à la substitution
-                        substitution.add((Variable) atom.getTriplePredicate(), dictionary.decode(predEntry.getKey())); // Ajoute le prédicat à la substitution
-                        substitution.add((Variable) atom.getTripleObject(), dictionary.decode(objId)); // Ajoute l'objet à la substitution
-                        substitutions.add(substitution); // Ajoute la substitution à la liste
-                    }
+    }
+
+    /**
+     * Estime le nombre de triplets correspondant à un atome à partir de l'index qui sert son motif :
+     * taille de {@code pos[p][o]}, {@code spo[s][p]}, etc. L'estimation est exacte quand les constantes
+     * forment un préfixe de l'index choisi et majore le résultat sinon. Un prédicat seul est estimé par
+     * le catalogue de statistiques, un sujet ou un objet seul par la somme des listes de son entrée.
+     *
+     * @param atom l'atome à estimer
+     * @return le nombre estimé de triplets, 0 si une constante est absente du dictionnaire
+     */
+    public long estimateCardinality(RDFAtom atom) {
+        Term[] terms = atom.getTerms();
+        int[] pattern = new int[3];
+        boolean[] bound = new boolean[3];
+        for (int position = 0; position < 3; position++) {
+            bound[position] = !terms[position].isVariable();
+            if (bound[position]) {
+                pattern[position] = dictionary.lookup(terms[position], position);
+                if (pattern[position] == TermDictionary.UNKNOWN) {
+                    return 0;
                 }
             }
         }
 
-        return substitutions.iterator();
+        Permutation permutation = choosePermutation(bound);
+        TripleIndex index = indexes.get(permutation);
+        int first = permutation.get(pattern, 0);
+        int second = permutation.get(pattern, 1);
+        return switch (permutation.boundPrefix(bound)) {
+            case 3 -> index.contains(first, second, permutation.get(pattern, 2)) ? 1 : 0;
+            case 2 -> index.count(first, second);
+            case 1 -> estimateFirstLevel(index, first);
+            default -> statistics.size();
+        };
+    }
+
+    private long estimateFirstLevel(TripleIndex index, int first) {
+        if (TermDictionary.isPredicate(first)) {
+            StatisticsCatalog.PredicateStatistics predicate = statistics.predicate(first);
+            return predicate == null ? 0 : predicate.triples();
+        }
+        long total = 0;
+        for (PrimitiveIterator.OfInt seconds = index.secondKeys(first); seconds.hasNext(); ) {
+            total += index.count(first, seconds.nextInt());
+        }
+        return total;
+    }
+
+    /**
+     * Ordonne les atomes d'une requête en étoile du plus sélectif au moins sélectif,
+     * selon {@link #estimateCardinality(RDFAtom)}.
+     *
+     * @param q la requête à planifier
+     * @return les atomes dans l'ordre d'évaluation, ou une liste vide si l'estimation d'un atome est nulle
+     *         (la requête n'a alors aucune réponse)
+     */
+    public List<RDFAtom> plan(StarQuery q) {
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        long[] estimates = new long[atoms.size()];
+        List<Integer> order = new ArrayList<>(atoms.size());
+        for (int i = 0; i < atoms.size(); i++) {
+            estimates[i] = estimateCardinality(atoms.get(i));
+            if (estimates[i] == 0) {
+                return List.of();
+            }
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> estimates[i]));
+
+        List<RDFAtom> plan = new ArrayList<>(atoms.size());
+        for (int i : order) {
+            plan.add(atoms.get(i));
+        }
+        return plan;
+    }
+
+    /**
+     * Choisit, parmi les permutations conservées, celle dont le préfixe fixé par le motif est le plus long.
+     */
+    private Permutation choosePermutation(boolean[] bound) {
+        Permutation best = null;
+        int bestPrefix = -1;
+        for (Permutation permutation : indexes.keySet()) {
+            int prefix = permutation.boundPrefix(bound);
+            if (prefix > bestPrefix) {
+                best = permutation;
+                bestPrefix = prefix;
+            }
+        }
+        return best;
+    }
+
+    private void recordUsage(Permutation permutation, boolean fallbackScan) {
+        permutationUsage.incrementAndGet(permutation.ordinal());
+        if (fallbackScan) {
+            permutationScans.incrementAndGet(permutation.ordinal());
+        }
+    }
+
+    /**
+     * @return pour chaque permutation conservée, le nombre d'accès effectués depuis la création
+     *         du store (ou le dernier {@link #resetPermutationUsage()})
+     */
+    public Map<Permutation, Long> getPermutationUsage() {
+        Map<Permutation, Long> usage = new EnumMap<>(Permutation.class);
+        for (Permutation permutation : indexes.keySet()) {
+            usage.put(permutation, permutationUsage.get(permutation.ordinal()));
+        }
+        return usage;
+    }
+
+    /**
+     * Remet à zéro les compteurs d'accès aux index.
+     */
+    public void resetPermutationUsage() {
+        for (int i = 0; i < permutationUsage.length(); i++) {
+            permutationUsage.set(i, 0);
+            permutationScans.set(i, 0);
+        }
+    }
+
+    /**
+     * @return un rapport lisible des accès à chaque index, dont les parcours avec filtrage
+     */
+    public String permutationReport() {
+        StringBuilder sb = new StringBuilder("Utilisation des index :\n");
+        for (Permutation permutation : Permutation.values()) {
+            if (indexes.containsKey(permutation)) {
+                sb.append(String.format(" %s : %d accès, dont %d parcours avec filtrage%n", permutation,
+                        permutationUsage.get(permutation.ordinal()), permutationScans.get(permutation.ordinal())));
+            } else {
+                sb.append(String.format(" %s : non indexé%n", permutation));
+            }
+        }
+        return sb.toString();
     }
 
     /**
-     * Matcher une StarQuery avec les triplets RDF stockés.
+     * Matcher une StarQuery avec les triplets RDF stockés. L'évaluation se fait sur les identifiants ;
+     * chaque substitution ne lie que les variables réponses de la requête, décodées à la lecture.
+     * Les doublons ne sont pas éliminés (voir {@link #match(StarQuery, boolean)}).
      *
      * @param q la StarQuery à matcher
-     * @return un itérateur de substitutions
+     * @return un itérateur de substitutions des variables réponses
      */
     @Override
     public Iterator<Substitution> match(StarQuery q) {
-        // Ensemble pour stocker les résultats finaux (intersection des substitutions entre tous les triplets)
-        Set<Substitution> resultSet = null; // Initialisé à null pour gérer le premier triplet séparément
+        return match(q, false);
+    }
 
-        // Parcourir chaque triplet RDF de la requête
-        for (RDFAtom atom : q.getRdfAtoms()) {
-            // Obtenir les substitutions possibles pour ce triplet
-            Iterator<Substitution> atomSubstitutions = match(atom);
+    /**
+     * Matcher une StarQuery avec les triplets RDF stockés, en projetant sur les variables réponses
+     * pendant l'évaluation.
+     * <p>
+     * Avec {@code distinct}, chaque réponse n'est retournée qu'une fois : les doublons sont éliminés sur
+     * les n-uplets d'identifiants projetés ({@link IntTupleSet}), avant tout décodage. Un triplet dont
+     * les variables ne sont ni des variables réponses ni utilisées par les triplets suivants n'est alors
+     * qu'un test d'existence : sa première correspondance suffit.
+     *
+     * @param q        la StarQuery à matcher
+     * @param distinct true pour éliminer les réponses en double
+     * @return un itérateur de substitutions des variables réponses
+     */
+    public Iterator<Substitution> match(StarQuery q, boolean distinct) {
+        // Une constante absente du dictionnaire rend la requête vide, sans consulter les index
+        if (hasUnknownConstant(q)) {
+            return Collections.emptyIterator();
+        }
 
-            // Créer un ensemble temporaire pour les substitutions du triplet courant
-            Set<Substitution> currentSubstitutions = new HashSet<>();
+        List<Variable> answers = List.copyOf(q.getAnswerVariables());
+        // Lu une seule fois : le cache peut être désactivé pendant l'évaluation
+        QueryCache cache = queryCache;
+        if (cache == null) {
+            return decode(evaluate(q, distinct), answers);
+        }
+        String key = QueryCache.key(q, distinct, dictionary);
+        QueryCache.Answers result = cache.get(key);
+        if (result == null) {
+            result = evaluate(q, distinct);
+            cache.put(key, result);
+        }
+        return decode(result, answers);
+    }
 
-            // Ajouter toutes les substitutions possibles du triplet courant à l'ensemble temporaire
-            atomSubstitutions.forEachRemaining(currentSubstitutions::add);
+    /**
+     * Évalue une requête en étoile sur les identifiants.
+     *
+     * @return les n-uplets d'identifiants des variables réponses
+     */
+    private QueryCache.Answers evaluate(StarQuery q, boolean distinct) {
+        // Les requêtes dont chaque triplet ne contient que la variable centrale sont évaluées
+        // par intersection des listes d'identifiants de la variable centrale
+        QueryCache.Answers postingResults = matchPostings(q, distinct);
+        if (postingResults != null) {
+            return postingResults;
+        }
+
+        // Les autres sont évaluées par boucles imbriquées indexées sur la variable centrale
+        return matchNestedLoop(q, distinct);
+    }
 
-            // Si le triplet courant n'a aucune correspondance, la requête entière échoue
-            if (currentSubstitutions.isEmpty()) {
-                return Collections.emptyIterator(); // Retourner un itérateur vide
+    /**
+     * Évalue une requête en étoile par boucles imbriquées indexées, entièrement sur les identifiants.
+     * Les valeurs candidates de la variable centrale sont l'intersection des listes triées fournies
+     * par les triplets qui le permettent (voir {@link #centralCandidates(List, Variable)}), ou à défaut
+     * les correspondances du triplet le plus sélectif (voir {@link #plan(StarQuery)}). Chaque triplet est
+     * ensuite sondé avec les variables déjà liées par des recherches ponctuelles dans l'index qui sert son
+     * motif ({@code spo[s][p]} contient {@code o}, {@code pos[p][o]} contient {@code s}, ...). Seules les
+     * correspondances des valeurs candidates sont parcourues, jamais l'extension complète d'un triplet
+     * moins sélectif.
+     * <p>
+     * Une ligne en cours d'évaluation est un tableau d'identifiants, une case par variable de la requête
+     * ({@link TermDictionary#UNKNOWN} tant qu'elle n'est pas liée) ; seules les cases des variables réponses
+     * sont conservées dans les résultats.
+     *
+     * @param q        la StarQuery à matcher
+     * @param distinct true pour éliminer les réponses en double
+     * @return les n-uplets d'identifiants des variables réponses
+     */
+    private QueryCache.Answers matchNestedLoop(StarQuery q, boolean distinct) {
+        List<RDFAtom> plan = plan(q);
+        if (plan.isEmpty()) {
+            return new QueryCache.Answers(q.getAnswerVariables().size(), 0, new int[0]);
+        }
+        StarEvaluation evaluation = new StarEvaluation(plan, List.copyOf(q.getAnswerVariables()), distinct);
+        int[] row = new int[evaluation.variables.size()];
+        int[] candidates = centralCandidates(plan, q.getCentralVariable());
+        if (candidates == null) {
+            evaluation.extend(0, row);
+        } else {
+            int centralSlot = evaluation.variables.indexOf(q.getCentralVariable());
+            for (int candidate : candidates) {
+                row[centralSlot] = candidate;
+                evaluation.extend(0, row);
             }
+        }
+        return evaluation.answers();
+    }
 
-            // Initialiser resultSet avec les substitutions du premier triplet traité
-            if (resultSet == null) {
-                resultSet = currentSubstitutions;
-            } else {
-                // Faire l'intersection des résultats existants avec les substitutions actuelles
-                resultSet.retainAll(currentSubstitutions);
+    /**
+     * Intersecte par {@link PostingList#intersect(List)} les listes triées des valeurs de la variable centrale
+     * fournies par les triplets du plan (voir {@link #centralList(RDFAtom, Variable)}). Une liste dont le
+     * triplet est estimé plus de {@value #CANDIDATE_LIST_RATIO} fois moins sélectif que le plus sélectif est
+     * écartée : la construire coûterait plus que sonder ce triplet. Seules les listes d'un même espace
+     * d'identifiants (entités ou prédicats) sont intersectées.
+     *
+     * @param plan    les triplets de la requête, du plus sélectif au moins sélectif
+     * @param central la variable centrale
+     * @return les valeurs candidates triées, ou null si moins de deux triplets fournissent une liste
+     */
+    private int[] centralCandidates(List<RDFAtom> plan, Variable central) {
+        long smallest = estimateCardinality(plan.get(0));
+        List<PostingList> lists = new ArrayList<>();
+        int space = -1;
+        for (RDFAtom atom : plan) {
+            int atomSpace = atom.getTriplePredicate().equals(central) ? 1 : 0;
+            if ((space != -1 && atomSpace != space) || estimateCardinality(atom) > CANDIDATE_LIST_RATIO * smallest) {
+                continue;
+            }
+            PostingList list = centralList(atom, central);
+            if (list != null) {
+                lists.add(list);
+                space = atomSpace;
             }
+        }
+        return lists.size() < 2 ? null : PostingList.intersect(lists);
+    }
 
-            // Si l'intersection devient vide, on peut arrêter plus tôt (aucun résultat possible)
-            if (resultSet.isEmpty()) {
-                return Collections.emptyIterator();
+    /**
+     * Retourne la liste triée des valeurs de la variable centrale pour un triplet : une liste du troisième
+     * niveau si ses deux autres termes sont des constantes (voir {@link #centralPostings(RDFAtom, Variable)}),
+     * une liste de clés du deuxième niveau s'il n'en a qu'une, par exemple les sujets de {@code pso[p]}
+     * pour {@code (?x, p, ?y)}.
+     *
+     * @return la liste, ou null si le triplet n'a pas cette forme ou qu'aucun index conservé ne la fournit
+     */
+    private PostingList centralList(RDFAtom atom, Variable central) {
+        Term[] terms = atom.getTerms();
+        int centralPosition = -1;
+        int constantPosition = -1;
+        int constants = 0;
+        for (int position = 0; position < 3; position++) {
+            if (central.equals(terms[position])) {
+                if (centralPosition != -1) {
+                    return null;
+                }
+                centralPosition = position;
+            } else if (!terms[position].isVariable()) {
+                constants++;
+                constantPosition = position;
             }
         }
+        if (constants == 2) {
+            return centralPostings(atom, central);
+        }
+        if (constants == 0) {
+            return null;
+        }
 
-        // Si aucun triplet n'a été traité (par exemple, StarQuery vide), retourner un itérateur vide
-        if (resultSet == null) {
-            return Collections.emptyIterator();
+        for (Map.Entry<Permutation, TripleIndex> entry : indexes.entrySet()) {
+            Permutation permutation = entry.getKey();
+            if (permutation.position(0) == constantPosition && permutation.position(1) == centralPosition) {
+                int constant = dictionary.lookup(terms[constantPosition], constantPosition);
+                Supplier<PostingList> read = () -> {
+                    recordUsage(permutation, false);
+                    return entry.getValue().secondKeyList(constant);
+                };
+                // Une fois gelé, l'index fournit directement une tranche triée : rien à conserver
+                return frozen ? read.get() : cachedList(terms, centralPosition, read);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retourne la liste des valeurs de la variable centrale d'un triplet depuis le cache des candidats
+     * s'il est activé et la contient, et sinon la lit dans les index puis la propose au cache.
+     *
+     * @param terms           les termes du triplet
+     * @param centralPosition la position de la variable centrale
+     * @param read            la lecture de la liste dans les index
+     * @return la liste, ou null si {@code read} n'en fournit pas
+     */
+    private PostingList cachedList(Term[] terms, int centralPosition, Supplier<PostingList> read) {
+        // Lu une seule fois : le cache peut être désactivé pendant l'évaluation
+        CandidateCache cache = candidateCache;
+        if (cache == null) {
+            return read.get();
+        }
+        int[] pattern = new int[3];
+        for (int position = 0; position < 3; position++) {
+            if (position != centralPosition && !terms[position].isVariable()) {
+                pattern[position] = dictionary.lookup(terms[position], position);
+            }
+        }
+        CandidateCache.Key key = CandidateCache.Key.of(pattern, centralPosition);
+        int[] ids = cache.get(key);
+        if (ids != null) {
+            return SortedIntPostingList.of(ids);
+        }
+        PostingList list = read.get();
+        if (list != null) {
+            cache.offer(key, list);
+        }
+        return list;
+    }
+
+    /**
+     * État de l'évaluation d'une requête en étoile par boucles imbriquées : motif de chaque triplet
+     * du plan, variables projetées et réponses produites.
+     */
+    private final class StarEvaluation {
+        private final List<Variable> variables = new ArrayList<>();
+        // constants[i][position] : identifiant de la constante ; slots[i][position] : numéro de la variable, -1 pour une constante
+        private final int[][] constants;
+        private final int[][] slots;
+        private final int[] answerSlots;
+        // existential[i] : le triplet i ne lie que des variables ni projetées ni utilisées ensuite
+        private final boolean[] existential;
+        private final IntTupleSet seen;
+        // Réponses produites, n-uplets rangés bout à bout
+        private final int[] projected;
+        private int[] ids = new int[16];
+        private int count;
+
+        StarEvaluation(List<RDFAtom> plan, List<Variable> answers, boolean distinct) {
+            this.constants = new int[plan.size()][3];
+            this.slots = new int[plan.size()][3];
+            for (int atom = 0; atom < plan.size(); atom++) {
+                Term[] terms = plan.get(atom).getTerms();
+                for (int position = 0; position < 3; position++) {
+                    if (terms[position] instanceof Variable variable) {
+                        if (!variables.contains(variable)) {
+                            variables.add(variable);
+                        }
+                        slots[atom][position] = variables.indexOf(variable);
+                    } else {
+                        slots[atom][position] = -1;
+                        constants[atom][position] = dictionary.lookup(terms[position], position);
+                    }
+                }
+            }
+            this.answerSlots = answers.stream().mapToInt(variables::indexOf).toArray();
+            this.seen = distinct ? new IntTupleSet(answerSlots.length) : null;
+            this.projected = new int[answerSlots.length];
+
+            // Premier et dernier triplets utilisant chaque variable
+            int[] firstUse = new int[variables.size()];
+            int[] lastUse = new int[variables.size()];
+            Arrays.fill(firstUse, -1);
+            for (int atom = 0; atom < slots.length; atom++) {
+                for (int slot : slots[atom]) {
+                    if (slot >= 0) {
+                        if (firstUse[slot] == -1) {
+                            firstUse[slot] = atom;
+                        }
+                        lastUse[slot] = atom;
+                    }
+                }
+            }
+            this.existential = new boolean[slots.length];
+            for (int atom = 0; atom < slots.length && distinct; atom++) {
+                existential[atom] = true;
+                for (int slot : slots[atom]) {
+                    if (slot >= 0 && firstUse[slot] == atom
+                            && (answers.contains(variables.get(slot)) || lastUse[slot] > atom)) {
+                        existential[atom] = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Étend une ligne partielle avec chaque correspondance du triplet {@code atom}, puis des suivants.
+         * Les variables déjà liées par la ligne sont fixées dans le motif du triplet.
+         */
+        void extend(int atom, int[] row) {
+            if (atom == slots.length) {
+                for (int i = 0; i < answerSlots.length; i++) {
+                    projected[i] = row[answerSlots[i]];
+                }
+                if (seen == null || seen.add(projected)) {
+                    if ((count + 1) * projected.length > ids.length) {
+                        ids = Arrays.copyOf(ids, Math.max(ids.length * 2, (count + 1) * projected.length));
+                    }
+                    System.arraycopy(projected, 0, ids, count * projected.length, projected.length);
+                    count++;
+                }
+                return;
+            }
+
+            int[] pattern = new int[3];
+            boolean[] bound = new boolean[3];
+            int[] sameAs = {-1, -1, -1};
+            for (int position = 0; position < 3; position++) {
+                int slot = slots[atom][position];
+                if (slot < 0) {
+                    bound[position] = true;
+                    pattern[position] = constants[atom][position];
+                } else if (row[slot] != TermDictionary.UNKNOWN) {
+                    bound[position] = true;
+                    pattern[position] = inSpace(row[slot], position);
+                    if (pattern[position] == TermDictionary.UNKNOWN) {
+                        return;
+                    }
+                } else {
+                    for (int previous = 0; previous < position; previous++) {
+                        if (slots[atom][previous] == slot) {
+                            sameAs[position] = previous;
+                        }
+                    }
+                }
+            }
+
+            TripleScan scan = new TripleScan(pattern, bound, sameAs);
+            while (scan.hasNext()) {
+                int[] triple = scan.next();
+                for (int position = 0; position < 3; position++) {
+                    if (!bound[position] && sameAs[position] == -1) {
+                        row[slots[atom][position]] = triple[position];
+                    }
+                }
+                extend(atom + 1, row);
+                if (existential[atom]) {
+                    break;
+                }
+            }
+            for (int position = 0; position < 3; position++) {
+                if (!bound[position]) {
+                    row[slots[atom][position]] = TermDictionary.UNKNOWN;
+                }
+            }
+        }
+
+        /**
+         * @return les réponses produites
+         */
+        QueryCache.Answers answers() {
+            return new QueryCache.Answers(projected.length, count, Arrays.copyOf(ids, count * projected.length));
+        }
+    }
+
+    /**
+     * @return l'identifiant du même terme dans l'espace de la position (prédicat ou entité),
+     *         ou {@link TermDictionary#UNKNOWN} s'il n'y figure pas
+     */
+    private int inSpace(int id, int position) {
+        if (TermDictionary.isPredicate(id) == (position == 1)) {
+            return id;
         }
+        return dictionary.lookup(dictionary.decode(id), position);
+    }
 
-        // Retourner les résultats finaux sous forme d'itérateur
-        return resultSet.iterator();
+    /**
+     * Décode paresseusement des n-uplets d'identifiants en substitutions.
+     *
+     * @param result  les n-uplets, une case par variable réponse
+     * @param answers les variables réponses, dans l'ordre des cases
+     */
+    private Iterator<Substitution> decode(QueryCache.Answers result, List<Variable> answers) {
+        return IntStream.range(0, result.count()).mapToObj(row -> {
+            Substitution substitution = new SubstitutionImpl();
+            for (int column = 0; column < result.width(); column++) {
+                substitution.add(answers.get(column), dictionary.decode(result.get(row, column)));
+            }
+            return (Substitution) substitution;
+        }).iterator();
     }
 
+    /**
+     * @return true si une constante de la requête est absente du dictionnaire
+     */
+    private boolean hasUnknownConstant(StarQuery q) {
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            Term[] terms = atom.getTerms();
+            for (int position = 0; position < 3; position++) {
+                if (!terms[position].isVariable() && dictionary.lookup(terms[position], position) == TermDictionary.UNKNOWN) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Évalue une requête en étoile par intersection des listes triées donnant les valeurs possibles
+     * de la variable centrale pour chaque triplet : ET conteneur par conteneur sur les bitmaps
+     * des index en cours de chargement, recherche galopante dans les tranches des index gelés.
+     *
+     * @param q        la StarQuery à matcher
+     * @param distinct true pour éliminer les réponses en double
+     * @return les n-uplets d'identifiants des variables réponses, ou null si un triplet ne peut pas être
+     *         servi par une liste (la requête est alors évaluée par boucles imbriquées)
+     */
+    private QueryCache.Answers matchPostings(StarQuery q, boolean distinct) {
+        Variable central = q.getCentralVariable();
+        List<PostingList> lists = new ArrayList<>();
+        int predicateAtoms = 0;
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            if (central.equals(atom.getTriplePredicate())) {
+                predicateAtoms++;
+            }
+        }
+        // Les listes ne s'intersectent que dans un même espace d'identifiants : la variable centrale
+        // doit être en position de prédicat dans tous les triplets ou dans aucun
+        if (predicateAtoms != 0 && predicateAtoms != q.getRdfAtoms().size()) {
+            return null;
+        }
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            PostingList postings = centralPostings(atom, central);
+            if (postings == null) {
+                return null;
+            }
+            if (postings.isEmpty()) {
+                return new QueryCache.Answers(q.getAnswerVariables().size(), 0, new int[0]);
+            }
+            lists.add(postings);
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        // Les réponses sont les valeurs de la variable centrale si elle est une variable réponse,
+        // et sinon autant de substitutions vides
+        int[] centralIds = PostingList.intersect(lists);
+        if (q.getAnswerVariables().contains(central)) {
+            return new QueryCache.Answers(1, centralIds.length, centralIds);
+        }
+        return new QueryCache.Answers(0, distinct ? Math.min(1, centralIds.length) : centralIds.length, new int[0]);
+    }
+
+    /**
+     * Retourne la liste triée des valeurs de la variable centrale pour un triplet dont les deux
+     * autres termes sont des constantes, par exemple POS pour (?x, p, o) ou SPO pour (s, p, ?x).
+     *
+     * @return la liste, ou null si le triplet n'a pas cette forme ou qu'aucun index
+     *         conservé n'a la variable centrale en troisième niveau
+     */
+    private PostingList centralPostings(RDFAtom atom, Variable central) {
+        Term[] terms = atom.getTerms();
+        int centralPosition = -1;
+        for (int position = 0; position < 3; position++) {
+            if (terms[position].isVariable()) {
+                if (centralPosition != -1 || !central.equals(terms[position])) {
+                    return null;
+                }
+                centralPosition = position;
+            }
+        }
+        if (centralPosition == -1) {
+            return null;
+        }
+
+        for (Map.Entry<Permutation, TripleIndex> entry : indexes.entrySet()) {
+            Permutation permutation = entry.getKey();
+            if (permutation.position(2) == centralPosition) {
+                return cachedList(terms, centralPosition, () -> {
+                    recordUsage(permutation, false);
+                    return entry.getValue().postings(
+                            dictionary.lookup(terms[permutation.position(0)], permutation.position(0)),
+                            dictionary.lookup(terms[permutation.position(1)], permutation.position(1)));
+                });
+            }
+        }
+        return null;
+    }
 
     /**
      * Décode un identifiant en terme.
@@ -303,10 +1324,15 @@ public class RDFHexaStore implements RDFStorage {
     @Override
     public Collection<Atom> getAtoms() {
         var atoms = new ArrayList<Atom>();
-        // Parcourt l'index SPO pour récupérer tous les atomes RDF
-        spo.forEach((s, map) -> map.forEach((p, set) -> set.forEach(o -> {
-            atoms.add(new RDFAtom(term(s), term(p), term(o)));
-        })));
+        // Parcourt un index, en remettant chaque triplet dans l'ordre (sujet, prédicat, objet)
+        Permutation permutation = indexes.keySet().iterator().next();
+        int[] triple = new int[3];
+        indexes.get(permutation).forEach((first, second, third) -> {
+            triple[permutation.position(0)] = first;
+            triple[permutation.position(1)] = second;
+            triple[permutation.position(2)] = third;
+            atoms.add(new RDFAtom(term(triple[0]), term(triple[1]), term(triple[2])));
+        });
         return atoms;
     }
-}
\ No newline at end of file
+}
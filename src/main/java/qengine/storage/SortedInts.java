@@ -0,0 +1,84 @@
+package qengine.storage;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * Recherches dans des tranches triées de tampons d'entiers.
+ * Une tranche est désignée par un tampon et un intervalle {@code [from, to)} d'indices absolus ;
+ * le tampon peut être sur le tas ({@link IntBuffer#wrap(int[])}) ou projeté depuis un fichier.
+ */
+public final class SortedInts {
+
+    private SortedInts() {
+    }
+
+    /**
+     * Recherche dichotomique d'une valeur dans une tranche triée.
+     *
+     * @return l'indice de la valeur, ou -1 si elle est absente
+     */
+    public static int indexOf(IntBuffer values, int from, int to, int key) {
+        int i = lowerBound(values, from, to, key);
+        return i < to && values.get(i) == key ? i : -1;
+    }
+
+    /**
+     * @return le premier indice de {@code [from, to)} dont la valeur est supérieure ou égale
+     *         à {@code key}, ou {@code to} s'il n'y en a pas
+     */
+    public static int lowerBound(IntBuffer values, int from, int to, int key) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values.get(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Recherche galopante : retourne le premier indice de {@code [from, to)} dont la valeur
+     * est supérieure ou égale à {@code key}, ou {@code to} s'il n'y en a pas.
+     * Le coût est logarithmique en la distance parcourue, ce qui rend les parcours
+     * successifs à clés croissantes très peu coûteux.
+     */
+    public static int gallop(IntBuffer values, int from, int to, int key) {
+        if (from >= to || values.get(from) >= key) {
+            return from;
+        }
+        // Avance par pas doublés jusqu'à dépasser la clé
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < to && values.get(high) < key) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        // Dichotomie dans ]low, min(high, to)]
+        return lowerBound(values, low + 1, Math.min(high, to), key);
+    }
+
+    /**
+     * @return les valeurs restantes d'un itérateur, dans un nouveau tableau trié
+     */
+    public static int[] sorted(PrimitiveIterator.OfInt iterator) {
+        int[] values = new int[8];
+        int n = 0;
+        while (iterator.hasNext()) {
+            if (n == values.length) {
+                values = Arrays.copyOf(values, n * 2);
+            }
+            values[n++] = iterator.nextInt();
+        }
+        values = Arrays.copyOf(values, n);
+        Arrays.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,343 @@
+package qengine.storage;
+
+import qengine.storage.posting.RoaringBitmap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Catalogue de statistiques d'un store, tenu à jour à chaque ajout de triplet et destiné à la
+ * planification des requêtes :
+ * <ul>
+ *     <li>globalement : nombre de triplets, de sujets, d'objets et de prédicats distincts ;</li>
+ *     <li>par prédicat ({@link PredicateStatistics}) : nombre de triplets, de sujets et d'objets distincts,
+ *     et les {@value #TOP_OBJECTS} objets les plus fréquents.</li>
+ * </ul>
+ * Les sujets et objets déjà vus sont suivis par des {@link RoaringBitmap} pendant le chargement ;
+ * {@link #freeze()} les libère et ne garde que les compteurs. Les objets fréquents sont estimés par
+ * l'algorithme Space-Saving : {@value #MONITORED} compteurs par prédicat, dont le compte surestime
+ * la fréquence réelle d'au plus l'erreur enregistrée avec lui.
+ * <p>
+ * Les identifiants sont ceux du dictionnaire du store, les prédicats étant indexés par leur rang.
+ */
+public class StatisticsCatalog {
+    /**
+     * Nombre d'objets fréquents retournés par prédicat.
+     */
+    public static final int TOP_OBJECTS = 8;
+    private static final int MONITORED = 4 * TOP_OBJECTS;
+
+    private static final int MAGIC = 0x48585354; // "HXST"
+    private static final int VERSION = 1;
+
+    private long triples;
+    private int distinctSubjects;
+    private int distinctObjects;
+    // Sujets et objets déjà vus, null une fois le catalogue gelé
+    private RoaringBitmap subjects = new RoaringBitmap();
+    private RoaringBitmap objects = new RoaringBitmap();
+    // byPredicate[rang] : statistiques du prédicat de ce rang, null s'il est absent ; la case 0 reste vide
+    private PredicateStatistics[] byPredicate = new PredicateStatistics[16];
+
+    /**
+     * Enregistre un triplet qui vient d'être ajouté au store (et n'y était pas déjà).
+     *
+     * @throws IllegalStateException si le catalogue est gelé
+     */
+    public void add(int subject, int predicate, int object) {
+        if (subjects == null) {
+            throw new IllegalStateException("Le catalogue est gelé : aucun ajout n'est possible après freeze().");
+        }
+        triples++;
+        if (subjects.add(subject)) {
+            distinctSubjects++;
+        }
+        if (objects.add(object)) {
+            distinctObjects++;
+        }
+
+        int rank = TermDictionary.predicateRank(predicate);
+        if (rank >= byPredicate.length) {
+            byPredicate = Arrays.copyOf(byPredicate, Math.max(rank + 1, byPredicate.length * 2));
+        }
+        if (byPredicate[rank] == null) {
+            byPredicate[rank] = new PredicateStatistics(predicate);
+        }
+        byPredicate[rank].add(subject, object);
+    }
+
+    /**
+     * Libère les structures de suivi des valeurs distinctes : seuls les compteurs sont conservés.
+     */
+    public void freeze() {
+        subjects = null;
+        objects = null;
+        for (PredicateStatistics statistics : byPredicate) {
+            if (statistics != null) {
+                statistics.subjects = null;
+                statistics.objects = null;
+            }
+        }
+    }
+
+    /**
+     * Vide le catalogue.
+     */
+    public void clear() {
+        triples = 0;
+        distinctSubjects = 0;
+        distinctObjects = 0;
+        subjects = new RoaringBitmap();
+        objects = new RoaringBitmap();
+        byPredicate = new PredicateStatistics[16];
+    }
+
+    /**
+     * @return le nombre de triplets
+     */
+    public long size() {
+        return triples;
+    }
+
+    /**
+     * @return le nombre de sujets distincts
+     */
+    public int distinctSubjects() {
+        return distinctSubjects;
+    }
+
+    /**
+     * @return le nombre d'objets distincts
+     */
+    public int distinctObjects() {
+        return distinctObjects;
+    }
+
+    /**
+     * @return le nombre de prédicats distincts
+     */
+    public int distinctPredicates() {
+        return predicates().size();
+    }
+
+    /**
+     * @param predicate un identifiant de prédicat
+     * @return les statistiques du prédicat, ou null s'il n'apparaît dans aucun triplet
+     */
+    public PredicateStatistics predicate(int predicate) {
+        if (!TermDictionary.isPredicate(predicate)) {
+            return null;
+        }
+        int rank = TermDictionary.predicateRank(predicate);
+        return rank < byPredicate.length ? byPredicate[rank] : null;
+    }
+
+    /**
+     * @return les statistiques de chaque prédicat présent, par rang croissant
+     */
+    public List<PredicateStatistics> predicates() {
+        List<PredicateStatistics> result = new ArrayList<>();
+        for (PredicateStatistics statistics : byPredicate) {
+            if (statistics != null) {
+                result.add(statistics);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Écrit les compteurs du catalogue dans un fichier, au format lu par {@link #read(Path)}.
+     *
+     * @param file le fichier à créer (remplacé s'il existe)
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(triples);
+            out.writeInt(distinctSubjects);
+            out.writeInt(distinctObjects);
+            List<PredicateStatistics> predicates = predicates();
+            out.writeInt(predicates.size());
+            for (PredicateStatistics statistics : predicates) {
+                out.writeInt(statistics.predicate);
+                out.writeLong(statistics.triples);
+                out.writeInt(statistics.distinctSubjects);
+                out.writeInt(statistics.distinctObjects);
+                out.writeInt(statistics.monitored);
+                for (int i = 0; i < statistics.monitored; i++) {
+                    out.writeInt(statistics.heavyObjects[i]);
+                    out.writeLong(statistics.heavyCounts[i]);
+                    out.writeLong(statistics.heavyErrors[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Relit un catalogue écrit par {@link #write(Path)}. Le catalogue lu est gelé.
+     *
+     * @param file le fichier du catalogue
+     * @return le catalogue
+     * @throws IOException si le fichier est illisible ou n'est pas un catalogue
+     */
+    public static StatisticsCatalog read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Fichier de statistiques invalide : " + file);
+            }
+            StatisticsCatalog catalog = new StatisticsCatalog();
+            catalog.freeze();
+            catalog.triples = in.readLong();
+            catalog.distinctSubjects = in.readInt();
+            catalog.distinctObjects = in.readInt();
+            int count = in.readInt();
+            for (int p = 0; p < count; p++) {
+                PredicateStatistics statistics = new PredicateStatistics(in.readInt());
+                statistics.subjects = null;
+                statistics.objects = null;
+                statistics.triples = in.readLong();
+                statistics.distinctSubjects = in.readInt();
+                statistics.distinctObjects = in.readInt();
+                statistics.monitored = in.readInt();
+                if (statistics.monitored < 0 || statistics.monitored > MONITORED) {
+                    throw new IOException("Fichier de statistiques invalide : " + file);
+                }
+                for (int i = 0; i < statistics.monitored; i++) {
+                    statistics.heavyObjects[i] = in.readInt();
+                    statistics.heavyCounts[i] = in.readLong();
+                    statistics.heavyErrors[i] = in.readLong();
+                }
+                int rank = TermDictionary.predicateRank(statistics.predicate);
+                if (rank >= catalog.byPredicate.length) {
+                    catalog.byPredicate = Arrays.copyOf(catalog.byPredicate, Math.max(rank + 1, catalog.byPredicate.length * 2));
+                }
+                catalog.byPredicate[rank] = statistics;
+            }
+            return catalog;
+        }
+    }
+
+    /**
+     * Un objet fréquent d'un prédicat.
+     *
+     * @param object l'identifiant de l'objet
+     * @param count  le nombre estimé de triplets (prédicat, objet), par excès
+     * @param error  la surestimation maximale de {@code count}
+     */
+    public record ObjectFrequency(int object, long count, long error) {
+    }
+
+    /**
+     * Statistiques des triplets d'un prédicat.
+     */
+    public static final class PredicateStatistics {
+        private final int predicate;
+        private long triples;
+        private int distinctSubjects;
+        private int distinctObjects;
+        private RoaringBitmap subjects = new RoaringBitmap();
+        private RoaringBitmap objects = new RoaringBitmap();
+
+        // Compteurs Space-Saving des objets les plus fréquents
+        private final int[] heavyObjects = new int[MONITORED];
+        private final long[] heavyCounts = new long[MONITORED];
+        private final long[] heavyErrors = new long[MONITORED];
+        private int monitored;
+
+        private PredicateStatistics(int predicate) {
+            this.predicate = predicate;
+        }
+
+        private void add(int subject, int object) {
+            triples++;
+            if (subjects.add(subject)) {
+                distinctSubjects++;
+            }
+            if (objects.add(object)) {
+                distinctObjects++;
+            }
+            countObject(object);
+        }
+
+        private void countObject(int object) {
+            int min = 0;
+            for (int i = 0; i < monitored; i++) {
+                if (heavyObjects[i] == object) {
+                    heavyCounts[i]++;
+                    return;
+                }
+                if (heavyCounts[i] < heavyCounts[min]) {
+                    min = i;
+                }
+            }
+            if (monitored < MONITORED) {
+                heavyObjects[monitored] = object;
+                heavyCounts[monitored] = 1;
+                heavyErrors[monitored] = 0;
+                monitored++;
+            } else {
+                // L'objet remplace le moins fréquent des objets suivis, dont il hérite du compte
+                heavyObjects[min] = object;
+                heavyErrors[min] = heavyCounts[min];
+                heavyCounts[min]++;
+            }
+        }
+
+        /**
+         * @return l'identifiant du prédicat
+         */
+        public int predicate() {
+            return predicate;
+        }
+
+        /**
+         * @return le nombre de triplets du prédicat
+         */
+        public long triples() {
+            return triples;
+        }
+
+        /**
+         * @return le nombre de sujets distincts du prédicat
+         */
+        public int distinctSubjects() {
+            return distinctSubjects;
+        }
+
+        /**
+         * @return le nombre d'objets distincts du prédicat
+         */
+        public int distinctObjects() {
+            return distinctObjects;
+        }
+
+        /**
+         * @return les (au plus) {@value StatisticsCatalog#TOP_OBJECTS} objets les plus fréquents du prédicat, du plus fréquent au moins fréquent
+         */
+        public List<ObjectFrequency> topObjects() {
+            List<ObjectFrequency> frequencies = new ArrayList<>(monitored);
+            for (int i = 0; i < monitored; i++) {
+                frequencies.add(new ObjectFrequency(heavyObjects[i], heavyCounts[i], heavyErrors[i]));
+            }
+            frequencies.sort(Comparator.comparingLong(ObjectFrequency::count).reversed());
+            return frequencies.subList(0, Math.min(TOP_OBJECTS, frequencies.size()));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d : %d triplets, %d sujets, %d objets distincts",
+                    predicate, triples, distinctSubjects, distinctObjects);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+
+/**
+ * Correspondance entre les termes RDF et les identifiants entiers stockés dans les index.
+ * Deux espaces d'identifiants sont distingués :
+ * <ul>
+ *     <li>les entités (sujets et objets : IRI et littéraux), numérotées consécutivement à partir de 1 ;</li>
+ *     <li>les prédicats, peu nombreux, numérotés consécutivement à partir de 1 dans leur propre espace
+ *     et marqués par le bit {@link #PREDICATE_TAG}, de sorte que la nature d'un identifiant se lit
+ *     sans consulter le dictionnaire.</li>
+ * </ul>
+ * Un même terme employé comme prédicat et comme entité a un identifiant dans chaque espace.
+ * 0 n'est jamais attribué.
+ */
+public interface TermDictionary {
+
+    /**
+     * Identifiant retourné pour un terme absent par {@link #lookup(Term)} et par les dictionnaires
+     * en lecture seule. Il n'est jamais attribué, si bien qu'aucun triplet des index ne le contient.
+     */
+    int UNKNOWN = 0;
+
+    /**
+     * Bit marquant les identifiants de prédicats. Les identifiants restent positifs.
+     */
+    int PREDICATE_TAG = 1 << 30;
+
+    /**
+     * Retourne l'identifiant d'entité d'un terme, en l'attribuant si nécessaire.
+     *
+     * @param term le terme à encoder
+     * @return l'identifiant du terme
+     */
+    int encode(Term term);
+
+    /**
+     * Retourne l'identifiant de prédicat d'un terme, en l'attribuant si nécessaire.
+     *
+     * @param term le terme à encoder
+     * @return l'identifiant du terme, marqué par {@link #PREDICATE_TAG}
+     */
+    int encodePredicate(Term term);
+
+    /**
+     * Retourne l'identifiant d'entité d'un terme sans jamais modifier le dictionnaire : c'est le chemin
+     * des requêtes, dont les constantes absentes de la base ne doivent pas y être ajoutées.
+     *
+     * @param term le terme à rechercher
+     * @return l'identifiant du terme, ou {@link #UNKNOWN} s'il est absent
+     */
+    int lookup(Term term);
+
+    /**
+     * Retourne l'identifiant de prédicat d'un terme sans jamais modifier le dictionnaire.
+     *
+     * @param term le terme à rechercher
+     * @return l'identifiant du terme, ou {@link #UNKNOWN} s'il est absent
+     */
+    int lookupPredicate(Term term);
+
+    /**
+     * @param id l'identifiant à décoder, d'entité ou de prédicat
+     * @return le terme associé, ou null si l'identifiant n'a pas été attribué
+     */
+    Term decode(int id);
+
+    /**
+     * @return le nombre d'entités du dictionnaire (le plus grand identifiant d'entité attribué)
+     */
+    int size();
+
+    /**
+     * @return le nombre de prédicats du dictionnaire (le plus grand rang de prédicat attribué)
+     */
+    int predicateCount();
+
+    /**
+     * Encode le terme d'une position d'un triplet dans l'espace correspondant.
+     *
+     * @param term     le terme à encoder
+     * @param position 0 pour le sujet, 1 pour le prédicat, 2 pour l'objet
+     * @return l'identifiant du terme
+     */
+    default int encode(Term term, int position) {
+        return position == 1 ? encodePredicate(term) : encode(term);
+    }
+
+    /**
+     * Recherche le terme d'une position d'un triplet dans l'espace correspondant.
+     *
+     * @param term     le terme à rechercher
+     * @param position 0 pour le sujet, 1 pour le prédicat, 2 pour l'objet
+     * @return l'identifiant du terme, ou {@link #UNKNOWN} s'il est absent
+     */
+    default int lookup(Term term, int position) {
+        return position == 1 ? lookupPredicate(term) : lookup(term);
+    }
+
+    /**
+     * @return true si l'identifiant appartient à l'espace des prédicats
+     */
+    static boolean isPredicate(int id) {
+        return (id & PREDICATE_TAG) != 0;
+    }
+
+    /**
+     * @return le rang (à partir de 1) d'un identifiant de prédicat dans son espace
+     */
+    static int predicateRank(int id) {
+        return id & ~PREDICATE_TAG;
+    }
+
+    /**
+     * @return l'identifiant de prédicat du rang donné
+     */
+    static int predicateId(int rank) {
+        return rank | PREDICATE_TAG;
+    }
+
+    /**
+     * Retourne le libellé sous lequel un terme est persisté. Les termes étant tous des littéraux
+     * (traduction Raw des N-Triples), ils sont reconstruits à l'ouverture à partir de ce libellé.
+     *
+     * @param term le terme
+     * @return son libellé
+     */
+    static String labelOf(Term term) {
+        return term instanceof Literal<?> literal ? String.valueOf(literal.value()) : term.label();
+    }
+}
@@ -0,0 +1,92 @@
+package qengine.storage;
+
+import qengine.storage.posting.PostingList;
+import qengine.storage.posting.SortedIntPostingList;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Un des six index d'un HexaStore : une permutation (premier, deuxième, troisième)
+ * des identifiants (sujet, prédicat, objet) d'un triplet, organisée sur trois niveaux.
+ */
+public interface TripleIndex {
+
+    /**
+     * Action appliquée à chaque triplet d'un index.
+     */
+    @FunctionalInterface
+    interface TripleConsumer {
+        void accept(int first, int second, int third);
+    }
+
+    /**
+     * Ajoute un triplet à l'index.
+     *
+     * @return true si le triplet n'était pas déjà présent
+     * @throws UnsupportedOperationException si l'index est en lecture seule
+     */
+    boolean add(int first, int second, int third);
+
+    /**
+     * @return true si le triplet est présent dans l'index
+     */
+    boolean contains(int first, int second, int third);
+
+    /**
+     * @return un itérateur sur les identifiants du premier niveau
+     */
+    PrimitiveIterator.OfInt firstKeys();
+
+    /**
+     * @return un itérateur sur les identifiants du deuxième niveau associés à {@code first}
+     */
+    PrimitiveIterator.OfInt secondKeys(int first);
+
+    /**
+     * Retourne la liste triée des identifiants du deuxième niveau associés à {@code first},
+     * par exemple les sujets d'un prédicat pour l'index PSO. Par défaut, les clés sont copiées
+     * puis triées ; {@link FrozenTripleIndex} sert directement sa tranche de clés.
+     *
+     * @return la liste, vide si {@code first} est absent
+     */
+    default PostingList secondKeyList(int first) {
+        return SortedIntPostingList.of(SortedInts.sorted(secondKeys(first)));
+    }
+
+    /**
+     * Retourne la liste triée des identifiants du troisième niveau associés à {@code (first, second)}.
+     * La liste est une vue sur l'index : elle ne doit pas être modifiée.
+     *
+     * @return la liste, vide si le couple est absent
+     */
+    PostingList postings(int first, int second);
+
+    /**
+     * @return un itérateur croissant sur les identifiants du troisième niveau associés à {@code (first, second)}
+     */
+    default PrimitiveIterator.OfInt thirds(int first, int second) {
+        return postings(first, second).iterator();
+    }
+
+    /**
+     * @return le nombre d'identifiants du troisième niveau associés à {@code (first, second)}
+     */
+    default int count(int first, int second) {
+        return postings(first, second).size();
+    }
+
+    /**
+     * @return le nombre de triplets de l'index
+     */
+    long size();
+
+    /**
+     * Applique une action à chaque triplet de l'index.
+     */
+    void forEach(TripleConsumer action);
+
+    /**
+     * Vide l'index.
+     */
+    void clear();
+}
@@ -0,0 +1,101 @@
+package qengine.storage;
+
+import java.util.Arrays;
+
+/**
+ * Tri par base (LSD, chiffres de 16 bits) de triplets d'entiers positifs rangés bout à bout, dans l'ordre
+ * lexicographique (premier, deuxième, troisième). Le tri est stable : il trie sur le chiffre de poids faible
+ * du troisième entier, puis remonte jusqu'au chiffre de poids fort du premier. Les histogrammes des six
+ * chiffres sont calculés en une seule passe, et un chiffre commun à tous les triplets (poids forts des
+ * petits identifiants, marque des prédicats) ne coûte aucune passe de distribution.
+ */
+final class TripleSort {
+    private static final int DIGIT_BITS = 16;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+
+    /**
+     * Taille des histogrammes d'un tri ({@link #newHistograms()}), en octets.
+     */
+    static final int HISTOGRAM_BYTES = 6 * RADIX * Integer.BYTES;
+
+    private TripleSort() {
+    }
+
+    /**
+     * Trie les {@code count} premiers triplets du tableau.
+     *
+     * @param triples les triplets, trois entiers positifs chacun
+     * @param count   le nombre de triplets
+     * @param scratch un tableau de travail d'au moins {@code 3 * count} cases
+     * @return le tableau qui contient les triplets triés : {@code triples} ou {@code scratch}
+     */
+    static int[] sort(int[] triples, int count, int[] scratch) {
+        return sort(triples, count, scratch, newHistograms());
+    }
+
+    /**
+     * Trie les {@code count} premiers triplets du tableau, avec des histogrammes réutilisés d'un tri à l'autre.
+     *
+     * @param histograms des histogrammes alloués par {@link #newHistograms()}, remis à zéro par le tri
+     * @see #sort(int[], int, int[])
+     */
+    static int[] sort(int[] triples, int count, int[] scratch, int[][] histograms) {
+        for (int[] histogram : histograms) {
+            Arrays.fill(histogram, 0);
+        }
+        for (int i = 0, base = 0; i < count; i++, base += 3) {
+            for (int column = 0; column < 3; column++) {
+                int value = triples[base + column];
+                histograms[2 * column][value & DIGIT_MASK]++;
+                histograms[2 * column + 1][value >>> DIGIT_BITS]++;
+            }
+        }
+
+        int[] source = triples;
+        int[] target = scratch;
+        for (int column = 2; column >= 0; column--) {
+            for (int digit = 0; digit < 2; digit++) {
+                int[] histogram = histograms[2 * column + digit];
+                if (isConstant(histogram, count)) {
+                    continue;
+                }
+                // Position de départ de chaque valeur du chiffre
+                int position = 0;
+                for (int value = 0; value < RADIX; value++) {
+                    int n = histogram[value];
+                    histogram[value] = position;
+                    position += n;
+                }
+                int shift = digit * DIGIT_BITS;
+                for (int i = 0, base = 0; i < count; i++, base += 3) {
+                    int to = 3 * histogram[(source[base + column] >>> shift) & DIGIT_MASK]++;
+                    target[to] = source[base];
+                    target[to + 1] = source[base + 1];
+                    target[to + 2] = source[base + 2];
+                }
+                int[] swap = source;
+                source = target;
+                target = swap;
+            }
+        }
+        return source;
+    }
+
+    /**
+     * @return les histogrammes d'un tri : {@code histograms[2 * column + digit]}, chiffre 0 de poids faible,
+     *         1 de poids fort
+     */
+    static int[][] newHistograms() {
+        return new int[6][RADIX];
+    }
+
+    private static boolean isConstant(int[] histogram, int count) {
+        for (int n : histogram) {
+            if (n != 0) {
+                return n == count;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,243 @@
+package qengine.storage.posting;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Liste d'identifiants triés compressée par différences successives codées en octets variables
+ * (7 bits utiles par octet, le bit de poids fort indiquant qu'un octet suit).
+ * <p>
+ * Format d'une liste, à partir de {@code offset} dans le tampon :
+ * <ul>
+ *     <li>le nombre de valeurs {@code n}, en octets variables ;</li>
+ *     <li>si {@code n <= }{@value #BLOCK_SIZE} : la première valeur puis les différences, en octets variables ;</li>
+ *     <li>sinon, les valeurs sont découpées en blocs de {@value #BLOCK_SIZE}. Une table de sauts donne, pour
+ *     chaque bloc, sa première valeur et la position de ses données (deux entiers de 4 octets en petit-boutiste,
+ *     relatifs à la fin de la table), puis viennent les différences de chaque bloc, en octets variables.</li>
+ * </ul>
+ * {@link PostingIterator#advance(int)} cherche le bloc cible par dichotomie dans la table de sauts,
+ * sans décoder les blocs intermédiaires.
+ */
+public final class CompressedPostingList implements PostingList {
+    /**
+     * Nombre de valeurs par bloc de la table de sauts.
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    private static final int SKIP_ENTRY_BYTES = 8;
+
+    /**
+     * La liste vide.
+     */
+    public static final CompressedPostingList EMPTY =
+            new CompressedPostingList(ByteBuffer.wrap(new byte[1]).order(ByteOrder.LITTLE_ENDIAN), 0);
+
+    private final ByteBuffer data;
+    private final int count;
+    private final int blocks;
+    // Début de la table de sauts (listes à plusieurs blocs) ou de la première valeur (liste d'un bloc)
+    private final int skipStart;
+    private final int dataStart;
+
+    /**
+     * Crée une vue sur une liste encodée par {@link #encode(int[], int, int, ByteArrayOutputStream)}.
+     *
+     * @param data   le tampon contenant la liste, en petit-boutiste
+     * @param offset la position du début de la liste dans le tampon
+     */
+    public CompressedPostingList(ByteBuffer data, int offset) {
+        this.data = data;
+        int pos = offset;
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data.get(pos++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        this.count = value;
+        this.blocks = count <= BLOCK_SIZE ? 1 : (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.skipStart = pos;
+        this.dataStart = blocks == 1 ? pos : pos + SKIP_ENTRY_BYTES * blocks;
+    }
+
+    /**
+     * Encode des valeurs triées sur le tas.
+     *
+     * @param values des valeurs strictement croissantes et positives
+     * @return la liste compressée
+     */
+    public static CompressedPostingList of(int... values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(values, 0, values.length, out);
+        return new CompressedPostingList(ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN), 0);
+    }
+
+    /**
+     * Encode une tranche de valeurs strictement croissantes et positives.
+     *
+     * @param values les valeurs
+     * @param from   le début de la tranche
+     * @param to     la fin (exclue) de la tranche
+     * @param out    le flux où écrire la liste encodée
+     */
+    public static void encode(int[] values, int from, int to, ByteArrayOutputStream out) {
+        int n = to - from;
+        writeVarInt(out, n);
+        if (n == 0) {
+            return;
+        }
+        if (n <= BLOCK_SIZE) {
+            writeVarInt(out, values[from]);
+            for (int i = from + 1; i < to; i++) {
+                writeVarInt(out, values[i] - values[i - 1]);
+            }
+            return;
+        }
+
+        int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+        ByteBuffer skips = ByteBuffer.allocate(SKIP_ENTRY_BYTES * blocks).order(ByteOrder.LITTLE_ENDIAN);
+        for (int block = 0; block < blocks; block++) {
+            int start = from + block * BLOCK_SIZE;
+            int end = Math.min(start + BLOCK_SIZE, to);
+            skips.putInt(values[start]).putInt(deltas.size());
+            for (int i = start + 1; i < end; i++) {
+                writeVarInt(deltas, values[i] - values[i - 1]);
+            }
+        }
+        out.write(skips.array(), 0, skips.capacity());
+        byte[] blockData = deltas.toByteArray();
+        out.write(blockData, 0, blockData.length);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return count > 0 && iterator().advance(value) == value;
+    }
+
+    @Override
+    public PostingIterator iterator() {
+        return new CompressedIterator();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private int skipFirst(int block) {
+        return data.getInt(skipStart + SKIP_ENTRY_BYTES * block);
+    }
+
+    private int skipOffset(int block) {
+        return data.getInt(skipStart + SKIP_ENTRY_BYTES * block + 4);
+    }
+
+    /**
+     * Décode bloc par bloc. {@code next} est la prochaine valeur à retourner, d'indice {@code index}
+     * dans la liste ; {@code pos} est la position de la différence suivante dans le tampon.
+     */
+    private final class CompressedIterator implements PostingIterator {
+        private int block;
+        private int index;
+        private int next;
+        private int pos;
+
+        CompressedIterator() {
+            if (count == 0) {
+                next = END;
+            } else {
+                loadBlock(0);
+            }
+        }
+
+        private void loadBlock(int b) {
+            block = b;
+            index = b * BLOCK_SIZE;
+            if (blocks == 1) {
+                pos = dataStart;
+                next = readVarInt();
+            } else {
+                next = skipFirst(b);
+                pos = dataStart + skipOffset(b);
+            }
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(pos++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != END;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next == END) {
+                throw new NoSuchElementException();
+            }
+            int value = next;
+            index++;
+            if (index == count) {
+                next = END;
+            } else if (index % BLOCK_SIZE == 0) {
+                loadBlock(index / BLOCK_SIZE);
+            } else {
+                next = value + readVarInt();
+            }
+            return value;
+        }
+
+        @Override
+        public int advance(int target) {
+            if (next == END || next >= target) {
+                return next;
+            }
+            // Dernier bloc dont la première valeur est inférieure ou égale à la cible
+            if (blocks > 1 && block + 1 < blocks && skipFirst(block + 1) <= target) {
+                int low = block + 1;
+                int high = blocks - 1;
+                while (low < high) {
+                    int mid = (low + high + 1) >>> 1;
+                    if (skipFirst(mid) <= target) {
+                        low = mid;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                loadBlock(low);
+            }
+            while (next != END && next < target) {
+                nextInt();
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package qengine.storage.posting;
+
+/**
+ * Intersection de deux tranches triées et sans doublon de tableaux d'entiers.
+ * <p>
+ * Chaque valeur de la plus petite tranche est cherchée dans la plus grande par blocs de quelques entiers :
+ * les blocs entièrement inférieurs à la valeur sont sautés d'après leur dernier élément, puis la valeur
+ * est comparée au bloc courant. La comparaison se fait en une instruction SIMD avec l'API Vector
+ * ({@link VectorIntersection}) si le module {@code jdk.incubator.vector} est chargé
+ * ({@code --add-modules jdk.incubator.vector}), et sinon élément par élément.
+ * La propriété système {@code qengine.scalar} force le noyau scalaire.
+ */
+public final class IntersectionKernel {
+    /**
+     * Vrai si le noyau vectoriel est utilisé.
+     */
+    public static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("qengine.scalar");
+
+    // Taille des blocs du noyau scalaire, celle d'un vecteur AVX2 d'entiers
+    private static final int SCALAR_BLOCK = 8;
+
+    private IntersectionKernel() {
+    }
+
+    /**
+     * Intersecte deux tranches triées avec le meilleur noyau disponible.
+     * {@code out} peut être le tableau de la plus petite tranche (la première à taille égale) si celle-ci
+     * commence à l'indice 0 : une valeur n'y est écrite qu'après avoir été lue.
+     *
+     * @param a     le premier tableau, trié sur {@code [aFrom, aTo)}
+     * @param b     le second tableau, trié sur {@code [bFrom, bTo)}
+     * @param out   le tableau des valeurs communes, d'au moins {@code min(aTo - aFrom, bTo - bFrom)} cases
+     * @return le nombre de valeurs communes, écrites en ordre croissant au début de {@code out}
+     */
+    public static int intersect(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        return VECTORIZED
+                ? intersectVector(a, aFrom, aTo, b, bFrom, bTo, out)
+                : intersectScalar(a, aFrom, aTo, b, bFrom, bTo, out);
+    }
+
+    /**
+     * Noyau vectoriel.
+     *
+     * @throws IllegalStateException si le module {@code jdk.incubator.vector} n'est pas chargé
+     * @see #intersect(int[], int, int, int[], int, int, int[])
+     */
+    public static int intersectVector(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            throw new IllegalStateException("Le module jdk.incubator.vector n'est pas chargé.");
+        }
+        return aTo - aFrom <= bTo - bFrom
+                ? VectorIntersection.intersect(a, aFrom, aTo, b, bFrom, bTo, out)
+                : VectorIntersection.intersect(b, bFrom, bTo, a, aFrom, aTo, out);
+    }
+
+    /**
+     * Noyau scalaire, de même structure que le noyau vectoriel.
+     *
+     * @see #intersect(int[], int, int, int[], int, int, int[])
+     */
+    public static int intersectScalar(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        if (aTo - aFrom > bTo - bFrom) {
+            return intersectScalar(b, bFrom, bTo, a, aFrom, aTo, out);
+        }
+        int n = 0;
+        int j = bFrom;
+        for (int i = aFrom; i < aTo; i++) {
+            int value = a[i];
+            while (j + SCALAR_BLOCK <= bTo && b[j + SCALAR_BLOCK - 1] < value) {
+                j += SCALAR_BLOCK;
+            }
+            while (j < bTo && b[j] < value) {
+                j++;
+            }
+            if (j == bTo) {
+                break;
+            }
+            if (b[j] == value) {
+                out[n++] = value;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,26 @@
+package qengine.storage.posting;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Itérateur croissant sur une liste d'identifiants, capable de sauter directement
+ * à une valeur cible sans énumérer les valeurs intermédiaires.
+ */
+public interface PostingIterator extends PrimitiveIterator.OfInt {
+
+    /**
+     * Valeur retournée par {@link #advance(int)} lorsque l'itérateur est épuisé.
+     * Les identifiants étant positifs, elle ne peut pas être confondue avec une valeur de la liste.
+     */
+    int END = -1;
+
+    /**
+     * Positionne l'itérateur sur la première valeur restante supérieure ou égale à {@code target},
+     * sans la consommer : le prochain appel à {@link #nextInt()} la retournera.
+     * Sans effet si la prochaine valeur est déjà supérieure ou égale à la cible.
+     *
+     * @param target la valeur cible
+     * @return la valeur sur laquelle l'itérateur est positionné, ou {@link #END} s'il est épuisé
+     */
+    int advance(int target);
+}
@@ -0,0 +1,136 @@
+package qengine.storage.posting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Liste triée et sans doublon d'identifiants positifs : les valeurs du troisième niveau
+ * d'un index pour un couple (premier, deuxième) fixé.
+ */
+public interface PostingList {
+
+    /**
+     * @return le nombre de valeurs de la liste
+     */
+    int size();
+
+    /**
+     * @return true si la liste ne contient aucune valeur
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return true si la liste contient la valeur
+     */
+    boolean contains(int value);
+
+    /**
+     * @return un itérateur croissant sur les valeurs de la liste
+     */
+    PostingIterator iterator();
+
+    /**
+     * @return les valeurs de la liste, triées
+     */
+    default int[] toArray() {
+        int[] values = new int[size()];
+        int n = 0;
+        for (PostingIterator it = iterator(); it.hasNext(); ) {
+            values[n++] = it.nextInt();
+        }
+        return values;
+    }
+
+    /**
+     * Intersecte des listes. Si toutes sont des {@link RoaringBitmap}, l'intersection se fait
+     * conteneur par conteneur (ET sur les mots des bitmaps) ; si toutes sont des tranches de tableaux
+     * sur le tas ({@link SortedIntPostingList}), deux à deux par {@link IntersectionKernel} ;
+     * sinon, par {@link #leapfrog(List)}.
+     *
+     * @param lists les listes à intersecter
+     * @return les valeurs communes à toutes les listes, triées
+     */
+    static int[] intersect(List<? extends PostingList> lists) {
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        List<PostingList> sorted = new ArrayList<>(lists);
+        sorted.sort(Comparator.comparingInt(PostingList::size));
+        if (sorted.get(0).isEmpty()) {
+            return new int[0];
+        }
+
+        if (sorted.stream().allMatch(RoaringBitmap.class::isInstance)) {
+            RoaringBitmap result = (RoaringBitmap) sorted.get(0);
+            for (int i = 1; i < sorted.size() && !result.isEmpty(); i++) {
+                result = result.and((RoaringBitmap) sorted.get(i));
+            }
+            return result.toArray();
+        }
+
+        if (sorted.stream().allMatch(list -> list instanceof SortedIntPostingList slice && slice.values().hasArray())) {
+            // Le résultat, jamais plus grand que la liste suivante, est intersecté sur place
+            int[] result = sorted.get(0).toArray();
+            int n = result.length;
+            for (int i = 1; i < sorted.size() && n > 0; i++) {
+                SortedIntPostingList slice = (SortedIntPostingList) sorted.get(i);
+                int offset = slice.values().arrayOffset();
+                n = IntersectionKernel.intersect(result, 0, n,
+                        slice.values().array(), offset + slice.from(), offset + slice.to(), result);
+            }
+            return Arrays.copyOf(result, n);
+        }
+        return leapfrog(sorted);
+    }
+
+    /**
+     * Intersection multiple « leapfrog » : une valeur cible est proposée à chaque liste à tour de rôle,
+     * qui saute par {@link PostingIterator#advance(int)} (recherche galopante ou table de sauts) à sa
+     * première valeur supérieure ou égale. Une liste qui dépasse la cible impose sa valeur comme nouvelle
+     * cible ; la cible est une valeur commune dès que toutes les listes l'ont atteinte d'affilée.
+     * Le coût suit la plus petite liste, les autres n'étant jamais énumérées.
+     *
+     * @param lists les listes à intersecter, de préférence de la plus petite à la plus grande
+     * @return les valeurs communes à toutes les listes, triées
+     */
+    static int[] leapfrog(List<? extends PostingList> lists) {
+        int k = lists.size();
+        if (k == 0) {
+            return new int[0];
+        }
+        PostingIterator[] iterators = new PostingIterator[k];
+        int capacity = Integer.MAX_VALUE;
+        for (int i = 0; i < k; i++) {
+            iterators[i] = lists.get(i).iterator();
+            capacity = Math.min(capacity, lists.get(i).size());
+        }
+
+        int[] result = new int[capacity];
+        int n = 0;
+        int target = 0;
+        int agreeing = 0;
+        for (int i = 0; ; i = (i + 1) % k) {
+            int value = iterators[i].advance(target);
+            if (value == PostingIterator.END) {
+                break;
+            }
+            if (value != target) {
+                target = value;
+                agreeing = 0;
+            }
+            if (++agreeing == k) {
+                result[n++] = target;
+                if (target == Integer.MAX_VALUE) {
+                    break;
+                }
+                target++;
+                agreeing = 0;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
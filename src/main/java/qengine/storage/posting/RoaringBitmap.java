@@ -0,0 +1,556 @@
+package qengine.storage.posting;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Bitmap compressé à la manière de Roaring : les valeurs sont regroupées par leurs 16 bits
+ * de poids fort, et chaque groupe (conteneur) stocke les 16 bits de poids faible
+ * <ul>
+ *     <li>dans un tableau trié de {@code char} tant qu'il contient au plus {@value #ARRAY_MAX} valeurs ;</li>
+ *     <li>dans un bitmap de 2<sup>16</sup> bits (8 Ko) au-delà.</li>
+ * </ul>
+ * Les groupes creux restent ainsi compacts, et les plages denses d'identifiants (par exemple les
+ * sujets d'un couple (prédicat, objet) très fréquent) se réduisent à un bit par valeur, sur lesquels
+ * ET et OU se calculent mot à mot. Seules les valeurs positives ou nulles sont acceptées.
+ */
+public class RoaringBitmap implements PostingList {
+    // Au-delà, un tableau de char occuperait plus qu'un bitmap de 1024 longs
+    static final int ARRAY_MAX = 4096;
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Container[] NO_CONTAINERS = new Container[0];
+
+    // Clés (16 bits de poids fort) triées, et conteneur associé à chacune
+    private char[] keys = NO_KEYS;
+    private Container[] containers = NO_CONTAINERS;
+    private int containerCount;
+    private int cardinality;
+
+    /**
+     * Crée un bitmap vide.
+     */
+    public RoaringBitmap() {
+    }
+
+    /**
+     * @param values les valeurs, dans un ordre quelconque
+     * @return un bitmap contenant ces valeurs
+     */
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Ajoute une valeur au bitmap.
+     *
+     * @return true si la valeur n'était pas déjà présente
+     * @throws IllegalArgumentException si la valeur est négative
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Valeur négative : " + value);
+        }
+        char key = (char) (value >>> 16);
+        int i = indexOfKey(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key, new ArrayContainer());
+        }
+        Container container = containers[i];
+        int before = container.cardinality();
+        containers[i] = container.add((char) value);
+        if (containers[i].cardinality() == before) {
+            return false;
+        }
+        cardinality++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int i = indexOfKey((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    @Override
+    public int size() {
+        return cardinality;
+    }
+
+    /**
+     * @return un nouveau bitmap contenant les valeurs présentes dans les deux bitmaps
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containerCount && j < other.containerCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.appendContainer(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return un nouveau bitmap contenant les valeurs présentes dans l'un ou l'autre des bitmaps
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containerCount || j < other.containerCount) {
+            if (j == other.containerCount || (i < containerCount && keys[i] < other.keys[j])) {
+                result.appendContainer(keys[i], containers[i].copy());
+                i++;
+            } else if (i == containerCount || keys[i] > other.keys[j]) {
+                result.appendContainer(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] values = new int[cardinality];
+        int n = 0;
+        for (int i = 0; i < containerCount; i++) {
+            n = containers[i].fill(keys[i] << 16, values, n);
+        }
+        return values;
+    }
+
+    @Override
+    public PostingIterator iterator() {
+        return new BitmapIterator();
+    }
+
+    /**
+     * @return une estimation du nombre d'octets occupés par le bitmap
+     */
+    public long footprint() {
+        long bytes = 16 + 2L * keys.length + 4L * containers.length;
+        for (int i = 0; i < containerCount; i++) {
+            bytes += containers[i].footprint();
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RoaringBitmap other && Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private int indexOfKey(char key) {
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private void insertContainer(int i, char key, Container container) {
+        if (containerCount == keys.length) {
+            int capacity = Math.max(4, containerCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, containerCount - i);
+        System.arraycopy(containers, i, containers, i + 1, containerCount - i);
+        keys[i] = key;
+        containers[i] = container;
+        containerCount++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        insertContainer(containerCount, key, container);
+        cardinality += container.cardinality();
+    }
+
+    /**
+     * Itère conteneur par conteneur. {@code position} est l'indice courant dans un conteneur
+     * tableau, ou les 16 bits de poids faible de la valeur courante dans un conteneur bitmap.
+     */
+    private final class BitmapIterator implements PostingIterator {
+        private int container;
+        private int position;
+        private int next;
+
+        BitmapIterator() {
+            seek(0, 0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != END;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next == END) {
+                throw new NoSuchElementException();
+            }
+            int value = next;
+            seek(container, (value & 0xFFFF) + 1);
+            return value;
+        }
+
+        @Override
+        public int advance(int target) {
+            if (next == END || next >= target) {
+                return next;
+            }
+            char key = (char) (target >>> 16);
+            if (keys[container] == key) {
+                seek(container, target & 0xFFFF);
+            } else {
+                int i = Arrays.binarySearch(keys, container + 1, containerCount, key);
+                seek(i >= 0 ? i : -i - 1, i >= 0 ? target & 0xFFFF : 0);
+            }
+            return next;
+        }
+
+        /**
+         * Se positionne sur la première valeur, à partir du conteneur {@code from}, dont les bits
+         * de poids faible sont au moins {@code low} dans ce conteneur.
+         */
+        private void seek(int from, int low) {
+            for (container = from; container < containerCount; container++, low = 0) {
+                position = low > 0xFFFF ? -1 : containers[container].positionAtLeast(low, position);
+                if (position >= 0) {
+                    next = (keys[container] << 16) | containers[container].valueAt(position);
+                    return;
+                }
+                position = 0;
+            }
+            next = END;
+        }
+    }
+
+    /**
+     * Conteneur des 16 bits de poids faible des valeurs partageant une même clé.
+     * Les opérations de modification retournent le conteneur à utiliser ensuite,
+     * éventuellement converti vers l'autre représentation.
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char low);
+
+        abstract Container add(char low);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        /**
+         * @param low  la valeur minimale
+         * @param hint une position déjà atteinte par l'itérateur, à partir de laquelle chercher
+         * @return la position de la première valeur supérieure ou égale à {@code low}, ou -1
+         */
+        abstract int positionAtLeast(int low, int hint);
+
+        abstract int valueAt(int position);
+
+        abstract int fill(int high, int[] values, int offset);
+
+        abstract long footprint();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            // Cas fréquent du chargement : ajout en fin de tableau
+            int i = size > 0 && values[size - 1] < low ? -size - 1 : Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(size, other.cardinality())];
+            int n = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result[n++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (size + array.size > ARRAY_MAX) {
+                return toBitmap().or(array);
+            }
+            char[] result = new char[size + array.size];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < array.size) {
+                if (j == array.size || (i < size && values[i] < array.values[j])) {
+                    result[n++] = values[i++];
+                } else if (i == size || values[i] > array.values[j]) {
+                    result[n++] = array.values[j++];
+                } else {
+                    result[n++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size);
+        }
+
+        @Override
+        int positionAtLeast(int low, int hint) {
+            int from = Math.min(Math.max(hint, 0), size);
+            if (from > 0 && values[from - 1] >= low) {
+                from = 0;
+            }
+            int i = Arrays.binarySearch(values, from, size, (char) low);
+            i = i >= 0 ? i : -i - 1;
+            return i < size ? i : -1;
+        }
+
+        @Override
+        int valueAt(int position) {
+            return values[position];
+        }
+
+        @Override
+        int fill(int high, int[] out, int offset) {
+            for (int i = 0; i < size; i++) {
+                out[offset++] = high | values[i];
+            }
+            return offset;
+        }
+
+        @Override
+        long footprint() {
+            return 16 + 4 + 16 + 2L * values.length;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            set(low);
+            return this;
+        }
+
+        void set(char low) {
+            long before = words[low >>> 6];
+            long after = before | (1L << low);
+            if (after != before) {
+                words[low >>> 6] = after;
+                cardinality++;
+            }
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int w = 0; w < 1024; w++) {
+                result[w] = words[w] & otherWords[w];
+                count += Long.bitCount(result[w]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count > ARRAY_MAX ? bitmap : bitmap.toArrayContainer();
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer array) {
+                BitmapContainer bitmap = new BitmapContainer(result, cardinality);
+                for (int i = 0; i < array.size; i++) {
+                    bitmap.set(array.values[i]);
+                }
+                return bitmap;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int w = 0; w < 1024; w++) {
+                result[w] |= otherWords[w];
+                count += Long.bitCount(result[w]);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        int positionAtLeast(int low, int hint) {
+            int w = low >>> 6;
+            long word = words[w] & (-1L << low);
+            while (word == 0) {
+                if (++w == 1024) {
+                    return -1;
+                }
+                word = words[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        int valueAt(int position) {
+            return position;
+        }
+
+        @Override
+        int fill(int high, int[] out, int offset) {
+            for (int w = 0; w < 1024; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[offset++] = high | (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        @Override
+        long footprint() {
+            return 16 + 4 + 16 + 8L * words.length;
+        }
+
+        private ArrayContainer toArrayContainer() {
+            char[] values = new char[cardinality];
+            int n = 0;
+            for (int w = 0; w < 1024; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+    }
+}
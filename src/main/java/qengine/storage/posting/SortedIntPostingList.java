@@ -0,0 +1,68 @@
+package qengine.storage.posting;
+
+import qengine.storage.SortedInts;
+
+import java.nio.IntBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * Tranche non compressée d'un tampon d'entiers triés, vue comme une liste d'identifiants.
+ * Les sauts de {@link PostingIterator#advance(int)} se font par recherche galopante.
+ *
+ * @param values le tampon
+ * @param from   le début de la tranche
+ * @param to     la fin (exclue) de la tranche
+ */
+public record SortedIntPostingList(IntBuffer values, int from, int to) implements PostingList {
+
+    /**
+     * @param values des valeurs strictement croissantes
+     * @return la liste de toutes ces valeurs
+     */
+    public static SortedIntPostingList of(int... values) {
+        return new SortedIntPostingList(IntBuffer.wrap(values), 0, values.length);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return SortedInts.indexOf(values, from, to, value) >= 0;
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] array = new int[size()];
+        values.get(from, array);
+        return array;
+    }
+
+    @Override
+    public PostingIterator iterator() {
+        return new PostingIterator() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values.get(next++);
+            }
+
+            @Override
+            public int advance(int target) {
+                next = SortedInts.gallop(values, next, to, target);
+                return next < to ? values.get(next) : END;
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package qengine.storage.posting;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Noyau vectoriel de {@link IntersectionKernel}, sur l'API Vector incubée ({@code jdk.incubator.vector}).
+ * Cette classe n'est chargée que si le module est présent à l'exécution
+ * ({@code --add-modules jdk.incubator.vector}).
+ */
+final class VectorIntersection {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorIntersection() {
+    }
+
+    /**
+     * @return le nombre d'entiers par bloc comparé
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Voir {@link IntersectionKernel#intersectVector(int[], int, int, int[], int, int, int[])}.
+     */
+    static int intersect(int[] small, int smallFrom, int smallTo, int[] large, int largeFrom, int largeTo, int[] out) {
+        int lanes = SPECIES.length();
+        int n = 0;
+        int j = largeFrom;
+        for (int i = smallFrom; i < smallTo; i++) {
+            int value = small[i];
+            // Saut des blocs entièrement inférieurs à la valeur : seul leur dernier élément est lu
+            while (j + lanes <= largeTo && large[j + lanes - 1] < value) {
+                j += lanes;
+            }
+            if (j + lanes <= largeTo) {
+                // Comparaison de la valeur à tout le bloc en une instruction
+                if (IntVector.fromArray(SPECIES, large, j).eq(value).anyTrue()) {
+                    out[n++] = value;
+                }
+            } else {
+                while (j < largeTo && large[j] < value) {
+                    j++;
+                }
+                if (j == largeTo) {
+                    break;
+                }
+                if (large[j] == value) {
+                    out[n++] = value;
+                }
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,180 @@
+package qengine.storage.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Ensemble d'entiers à adressage ouvert (sondage linéaire), sans boxing.
+ * La valeur 0 est réservée pour marquer les cases vides : les identifiants
+ * du dictionnaire commencent à 1, elle n'est donc jamais stockée.
+ */
+public class IntHashSet {
+    private static final int EMPTY = 0;
+
+    private int[] slots;
+    private int size;
+    private int mask;
+
+    /**
+     * Crée un ensemble vide de capacité minimale.
+     */
+    public IntHashSet() {
+        this(1);
+    }
+
+    /**
+     * Crée un ensemble vide pouvant contenir {@code expected} éléments sans redimensionnement.
+     *
+     * @param expected le nombre d'éléments attendus
+     */
+    public IntHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(2, expected * 4 / 3 + 1) - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Ajoute une valeur à l'ensemble.
+     *
+     * @param value la valeur à ajouter (différente de 0)
+     * @return true si la valeur n'était pas déjà présente
+     */
+    public boolean add(int value) {
+        checkValue(value);
+        int i = IntHashing.slot(value, mask);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        if (++size * 4 > slots.length * 3) {
+            resize(slots.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * @param value la valeur recherchée
+     * @return true si la valeur est présente
+     */
+    public boolean contains(int value) {
+        if (value == EMPTY) {
+            return false;
+        }
+        int i = IntHashing.slot(value, mask);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Vide l'ensemble sans réduire sa capacité.
+     */
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Applique une action à chaque valeur de l'ensemble.
+     *
+     * @param action l'action à appliquer
+     */
+    public void forEach(IntConsumer action) {
+        for (int value : slots) {
+            if (value != EMPTY) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * @return un itérateur primitif sur les valeurs (ordre non spécifié)
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < slots.length && slots[from] == EMPTY) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < slots.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = slots[next];
+                next = advance(next + 1);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * @return les valeurs de l'ensemble dans un nouveau tableau trié
+     */
+    public int[] toSortedArray() {
+        int[] values = new int[size];
+        int n = 0;
+        for (int value : slots) {
+            if (value != EMPTY) {
+                values[n++] = value;
+            }
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    /**
+     * @return le nombre d'octets occupés par le tableau de cases (en-tête compris)
+     */
+    public long footprint() {
+        return IntHashing.ARRAY_HEADER + 4L * slots.length;
+    }
+
+    private void resize(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int value : old) {
+            if (value != EMPTY) {
+                int i = IntHashing.slot(value, mask);
+                while (slots[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+            }
+        }
+    }
+
+    private static void checkValue(int value) {
+        if (value == EMPTY) {
+            throw new IllegalArgumentException("La valeur 0 est réservée et ne peut pas être stockée.");
+        }
+    }
+}
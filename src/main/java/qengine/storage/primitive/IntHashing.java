@@ -0,0 +1,27 @@
+package qengine.storage.primitive;
+
+/**
+ * Fonctions utilitaires partagées par les tables à adressage ouvert.
+ */
+final class IntHashing {
+
+    /**
+     * Taille approximative de l'en-tête d'un tableau sur une JVM 64 bits avec oops compressés.
+     */
+    static final long ARRAY_HEADER = 16;
+
+    private IntHashing() {
+    }
+
+    /**
+     * Calcule la case de départ d'une clé (hachage de Fibonacci).
+     *
+     * @param key  la clé
+     * @param mask le masque de la table (capacité - 1)
+     * @return l'indice de la première case à sonder
+     */
+    static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,180 @@
+package qengine.storage.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntFunction;
+
+/**
+ * Table associative à adressage ouvert dont les clés sont des entiers primitifs.
+ * Comme pour {@link IntHashSet}, la clé 0 est réservée aux cases vides.
+ *
+ * @param <V> le type des valeurs
+ */
+public class IntObjectHashMap<V> {
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Action appliquée à chaque entrée de la table.
+     *
+     * @param <V> le type des valeurs
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    public IntObjectHashMap() {
+        this(1);
+    }
+
+    /**
+     * @param expected le nombre d'entrées attendues
+     */
+    public IntObjectHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(2, expected * 4 / 3 + 1) - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param key la clé recherchée
+     * @return la valeur associée, ou null si la clé est absente
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == EMPTY) {
+            return null;
+        }
+        int i = IntHashing.slot(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Retourne la valeur associée à la clé, en la créant si elle est absente.
+     *
+     * @param key     la clé (différente de 0)
+     * @param factory la fabrique appelée si la clé est absente
+     * @return la valeur associée à la clé
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(int key, IntFunction<V> factory) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("La clé 0 est réservée et ne peut pas être stockée.");
+        }
+        int i = IntHashing.slot(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        V value = factory.apply(key);
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 4 > keys.length * 3) {
+            resize(keys.length << 1);
+        }
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Applique une action à chaque entrée de la table.
+     *
+     * @param action l'action à appliquer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return un itérateur primitif sur les clés (ordre non spécifié)
+     */
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == EMPTY) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int key = keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+
+    /**
+     * @return le nombre d'octets occupés par les tableaux de la table, hors valeurs
+     */
+    public long footprint() {
+        return 2 * IntHashing.ARRAY_HEADER + 4L * keys.length + 4L * values.length;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = IntHashing.slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package qengine.storage.primitive;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble de n-uplets d'entiers de largeur fixe, sans boxing ni objet par n-uplet.
+ * Les n-uplets sont rangés bout à bout dans un unique tableau ({@code tuples}) ;
+ * la table à adressage ouvert ({@code table}) contient leur numéro plus un, 0 marquant une case vide.
+ */
+public class IntTupleSet {
+    private static final int EMPTY = 0;
+
+    private final int width;
+    private int[] tuples;
+    private int[] table;
+    private int size;
+    private int mask;
+
+    /**
+     * Crée un ensemble vide de n-uplets de largeur {@code width}.
+     *
+     * @param width le nombre d'entiers de chaque n-uplet
+     */
+    public IntTupleSet(int width) {
+        if (width < 0) {
+            throw new IllegalArgumentException("La largeur d'un n-uplet ne peut pas être négative : " + width);
+        }
+        this.width = width;
+        this.tuples = new int[Math.max(width, 1) * 8];
+        this.table = new int[16];
+        this.mask = table.length - 1;
+    }
+
+    /**
+     * Ajoute un n-uplet à l'ensemble (il est copié).
+     *
+     * @param tuple le n-uplet, de la largeur de l'ensemble
+     * @return true si le n-uplet n'était pas déjà présent
+     */
+    public boolean add(int[] tuple) {
+        if (tuple.length != width) {
+            throw new IllegalArgumentException("N-uplet de largeur " + tuple.length + " au lieu de " + width + ".");
+        }
+        int i = hash(tuple, 0) & mask;
+        while (table[i] != EMPTY) {
+            if (Arrays.equals(tuples, (table[i] - 1) * width, table[i] * width, tuple, 0, width)) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        if ((size + 1) * width > tuples.length) {
+            tuples = Arrays.copyOf(tuples, tuples.length * 2);
+        }
+        System.arraycopy(tuple, 0, tuples, size * width, width);
+        table[i] = ++size;
+        if (size * 4 > table.length * 3) {
+            resize(table.length << 1);
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void resize(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        for (int number = 1; number <= size; number++) {
+            int i = hash(tuples, (number - 1) * width) & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = number;
+        }
+    }
+
+    private int hash(int[] values, int from) {
+        int h = 0;
+        for (int k = from; k < from + width; k++) {
+            h = (h + values[k]) * 0x9E3779B9;
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,70 @@
+package qengine.storage.primitive;
+
+import java.util.Arrays;
+
+/**
+ * Suite extensible de triplets d'entiers, rangés bout à bout dans un unique tableau.
+ */
+public class TripleBuffer {
+    private int[] triples;
+    private int count;
+
+    /**
+     * Crée une suite vide.
+     */
+    public TripleBuffer() {
+        this(1024);
+    }
+
+    /**
+     * @param capacity le nombre de triplets prévus
+     */
+    public TripleBuffer(int capacity) {
+        this.triples = new int[3 * Math.max(capacity, 16)];
+    }
+
+    /**
+     * Ajoute un triplet en fin de suite.
+     */
+    public void add(int first, int second, int third) {
+        if (3 * count == triples.length) {
+            if (triples.length > Integer.MAX_VALUE / 2 - 3) {
+                throw new IllegalStateException("Trop de triplets pour un seul tableau : " + count);
+            }
+            triples = Arrays.copyOf(triples, 2 * triples.length);
+        }
+        int base = 3 * count++;
+        triples[base] = first;
+        triples[base + 1] = second;
+        triples[base + 2] = third;
+    }
+
+    /**
+     * Ajoute en fin de suite tous les triplets d'une autre suite.
+     */
+    public void addAll(TripleBuffer other) {
+        if (3L * (count + other.count) > triples.length) {
+            long capacity = Math.max(3L * (count + other.count), 2L * triples.length);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Trop de triplets pour un seul tableau : " + (count + other.count));
+            }
+            triples = Arrays.copyOf(triples, (int) capacity);
+        }
+        System.arraycopy(other.triples, 0, triples, 3 * count, 3 * other.count);
+        count += other.count;
+    }
+
+    /**
+     * @return le tableau des triplets, dont seules les {@code 3 * size()} premières cases sont utilisées
+     */
+    public int[] array() {
+        return triples;
+    }
+
+    /**
+     * @return le nombre de triplets
+     */
+    public int size() {
+        return count;
+    }
+}
@@ -0,0 +1,148 @@
+package qengine.storage.primitive;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tampon circulaire borné de triplets d'entiers, entre un producteur et plusieurs consommateurs qui
+ * reçoivent chacun tous les triplets, dans l'ordre. Les triplets sont rangés bout à bout dans un unique
+ * tableau ; le producteur et chaque consommateur avancent un compteur de triplets.
+ * <p>
+ * Le producteur attend tant que le consommateur le plus en retard a encore {@code capacity} triplets à
+ * lire : la mémoire occupée reste bornée quel que soit l'écart de débit entre les étages. Les compteurs
+ * ne sont publiés que par lots de {@value #BATCH} triplets, pour limiter les échanges entre cœurs ;
+ * les attentes se font par courte boucle active puis par suspension du thread.
+ */
+public class TripleRingBuffer {
+    private static final int BATCH = 256;
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 20_000;
+
+    private final int[] slots;
+    private final int mask;
+    private final int capacity;
+
+    // Compteur de triplets publiés par le producteur, et sa copie locale
+    private volatile long published;
+    private long written;
+    private volatile boolean closed;
+    // Compteur de triplets lus par chaque consommateur, et minimum connu du producteur
+    private final AtomicLongArray consumed;
+    private long minConsumed;
+
+    /**
+     * @param capacity  le nombre maximal de triplets en attente, arrondi à une puissance de 2
+     * @param consumers le nombre de consommateurs
+     */
+    public TripleRingBuffer(int capacity, int consumers) {
+        if (capacity <= 0 || consumers <= 0) {
+            throw new IllegalArgumentException("La capacité et le nombre de consommateurs doivent être positifs : "
+                    + capacity + ", " + consumers);
+        }
+        this.capacity = Integer.highestOneBit(Math.max(BATCH, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new int[3 * this.capacity];
+        this.consumed = new AtomicLongArray(consumers);
+    }
+
+    /**
+     * Ajoute un triplet, en attendant qu'une place se libère. Réservé au producteur.
+     */
+    public void put(int first, int second, int third) {
+        if (written - minConsumed == capacity) {
+            publish();
+            awaitSpace();
+        }
+        int base = 3 * (int) (written & mask);
+        slots[base] = first;
+        slots[base + 1] = second;
+        slots[base + 2] = third;
+        if ((++written & (BATCH - 1)) == 0) {
+            publish();
+        }
+    }
+
+    /**
+     * Publie les derniers triplets et signale aux consommateurs qu'il n'y en aura plus. Réservé au producteur.
+     */
+    public void close() {
+        publish();
+        closed = true;
+    }
+
+    /**
+     * Retire un consommateur qui ne lira plus : le producteur ne l'attend plus.
+     *
+     * @param consumer le numéro du consommateur
+     */
+    public void abandon(int consumer) {
+        consumed.set(consumer, Long.MAX_VALUE);
+    }
+
+    /**
+     * Remet au consommateur tous les triplets, jusqu'à la fermeture du tampon par le producteur.
+     *
+     * @param consumer le numéro du consommateur, de 0 au nombre de consommateurs exclu
+     * @param action   le traitement de chaque triplet
+     */
+    public void drain(int consumer, TripleAction action) {
+        long read = 0;
+        int idle = 0;
+        while (true) {
+            // closed est lu avant published : après la fermeture, published est définitif
+            boolean last = closed;
+            long available = published;
+            if (read < available) {
+                for (; read < available; read++) {
+                    int base = 3 * (int) (read & mask);
+                    action.accept(slots[base], slots[base + 1], slots[base + 2]);
+                    if ((read & (BATCH - 1)) == BATCH - 1) {
+                        consumed.lazySet(consumer, read + 1);
+                    }
+                }
+                consumed.set(consumer, read);
+                idle = 0;
+            } else if (last) {
+                return;
+            } else {
+                idle = pause(idle);
+            }
+        }
+    }
+
+    private void publish() {
+        published = written;
+    }
+
+    private void awaitSpace() {
+        int idle = 0;
+        while (true) {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < consumed.length(); i++) {
+                min = Math.min(min, consumed.get(i));
+            }
+            minConsumed = Math.min(min, written);
+            if (written - minConsumed < capacity) {
+                return;
+            }
+            idle = pause(idle);
+        }
+    }
+
+    private static int pause(int idle) {
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return idle + 1;
+    }
+
+    /**
+     * Traitement d'un triplet lu dans le tampon.
+     */
+    @FunctionalInterface
+    public interface TripleAction {
+        void accept(int first, int second, int third);
+    }
+}
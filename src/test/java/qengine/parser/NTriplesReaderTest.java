@@ -0,0 +1,100 @@
+package qengine.parser;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.TermDictionary;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe NTriplesReader.
+ */
+class NTriplesReaderTest {
+
+    @Test
+    void testLoadSampleData() throws Exception {
+        RDFHexaStore store = new RDFHexaStore();
+        assertEquals(2, NTriplesReader.load(Path.of("src/test/resources/sample_data.nt"), store),
+                "Le lecteur devrait trouver deux triplets.");
+        assertEquals(2, store.size(), "Les deux triplets devraient être ajoutés au store.");
+
+        // Mêmes termes que la traduction Raw de RDFAtomParser
+        List<RDFAtom> expected = new ArrayList<>();
+        try (RDFAtomParser parser = new RDFAtomParser(Path.of("src/test/resources/sample_data.nt").toFile())) {
+            while (parser.hasNext()) {
+                expected.add(parser.next());
+            }
+        }
+        for (RDFAtom atom : expected) {
+            assertTrue(store.getAtoms().contains(atom), "Triplet manquant : " + atom);
+        }
+    }
+
+    @Test
+    void testTermsAndSyntax() throws Exception {
+        Path file = Files.createTempFile("triplets", ".nt");
+        try {
+            Files.writeString(file, String.join("\n",
+                    "# commentaire",
+                    "",
+                    "<http://example.org/s1>\t<http://example.org/p> \"bonjour\"@fr .",
+                    "<http://example.org/s1> <http://example.org/p> \"42\"^^<http://www.w3.org/2001/XMLSchema#integer> .",
+                    "_:b0 <http://example.org/p> \"a\\\"b\\u00e9\" . # fin de ligne",
+                    "<http://example.org/s2> <http://example.org/s1> <http://example.org/s1> .\r",
+                    "<http://example.org/s1> <http://example.org/p> \"bonjour\" ."));
+
+            RDFHexaStore store = new RDFHexaStore();
+            List<int[]> triples = new ArrayList<>();
+            try (NTriplesReader reader = new NTriplesReader(file, store.getDictionary())) {
+                assertEquals(5, reader.read((s, p, o) -> triples.add(new int[]{s, p, o})),
+                        "Les lignes vides et les commentaires devraient être ignorés.");
+            }
+
+            TermDictionary dictionary = store.getDictionary();
+            assertEquals("http://example.org/s1", TermDictionary.labelOf(dictionary.decode(triples.get(0)[0])),
+                    "L'IRI devrait perdre ses chevrons.");
+            assertEquals("bonjour", TermDictionary.labelOf(dictionary.decode(triples.get(0)[2])),
+                    "Le littéral devrait perdre sa langue.");
+            assertEquals("42", TermDictionary.labelOf(dictionary.decode(triples.get(1)[2])),
+                    "Le littéral devrait perdre son type.");
+            assertEquals("b0", TermDictionary.labelOf(dictionary.decode(triples.get(2)[0])),
+                    "Le nœud blanc devrait garder son étiquette.");
+            assertEquals("a\"bé", TermDictionary.labelOf(dictionary.decode(triples.get(2)[2])),
+                    "Les échappements devraient être résolus.");
+            assertEquals(triples.get(0)[2], triples.get(4)[2], "Un même littéral devrait avoir un seul identifiant.");
+            assertTrue(TermDictionary.isPredicate(triples.get(3)[1]), "Le prédicat devrait être dans son espace.");
+            assertEquals(triples.get(0)[0], triples.get(3)[2], "Un même terme devrait garder son identifiant d'entité.");
+            assertNotEquals(triples.get(0)[0], triples.get(3)[1], "Un terme employé comme prédicat a un autre identifiant.");
+
+            // Le store interrogé avec les termes de la traduction Raw retrouve les triplets
+            triples.forEach(triple -> store.add(triple[0], triple[1], triple[2]));
+            Variable x = SameObjectTermFactory.instance().createOrGetVariable("?x");
+            Iterator<Substitution> subjects = store.match(new RDFAtom(x,
+                    SameObjectTermFactory.instance().createOrGetLiteral("http://example.org/p"),
+                    SameObjectTermFactory.instance().createOrGetLiteral("bonjour")));
+            assertTrue(subjects.hasNext(), "Le triplet chargé devrait être retrouvé par les termes.");
+            assertEquals(4, store.size(), "Le doublon devrait être ignoré.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testMalformedLine() throws Exception {
+        RDFHexaStore store = new RDFHexaStore();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> NTriplesReader.load(Path.of("src/test/resources/malformed.nt"), store),
+                "Un triplet incomplet devrait être refusé.");
+        assertTrue(e.getMessage().startsWith("Ligne 1"), "Le message devrait indiquer la ligne fautive.");
+    }
+}
@@ -0,0 +1,83 @@
+package qengine.parser;
+
+import org.junit.jupiter.api.Test;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.TermDictionary;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe ParallelNTriplesLoader.
+ */
+class ParallelNTriplesLoaderTest {
+
+    @Test
+    void testSameStoreAsSequentialLoad() throws Exception {
+        Path file = Files.createTempFile("triplets", ".nt");
+        try {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 2_000; i++) {
+                content.append("<http://example.org/s").append(i % 150).append("> <http://example.org/p").append(i % 7)
+                        .append("> \"o").append(i % 400).append("\" .\n");
+            }
+            // Doublons répartis dans plusieurs blocs
+            content.append("<http://example.org/s0> <http://example.org/p0> \"o0\" .\n");
+            content.append("<http://example.org/s0> <http://example.org/p0> \"o0\" .");
+            Files.writeString(file, content);
+
+            RDFHexaStore sequential = new RDFHexaStore();
+            NTriplesReader.load(file, sequential);
+
+            RDFHexaStore parallel = new RDFHexaStore();
+            ForkJoinPool pool = new ForkJoinPool(4);
+            ParallelNTriplesLoader.Result result = ParallelNTriplesLoader.load(file, parallel, pool, 1_000);
+            RDFHexaStore bulk = new RDFHexaStore();
+            ParallelNTriplesLoader.Result bulkResult = ParallelNTriplesLoader.bulkLoad(file, bulk, pool, 1_000);
+            pool.shutdown();
+
+            assertTrue(result.chunks() > 1, "Le fichier devrait être découpé en plusieurs blocs.");
+            assertEquals(2_002, result.triples(), "Tous les triplets devraient être lus.");
+            assertEquals(sequential.size(), result.added(), "Les doublons ne devraient pas être ajoutés.");
+            assertEquals(sequential.size(), parallel.size(), "Les deux chargements devraient avoir la même taille.");
+            assertEquals(new HashSet<>(sequential.getAtoms()), new HashSet<>(parallel.getAtoms()),
+                    "Les deux chargements devraient contenir les mêmes triplets.");
+            assertEquals(sequential.size(), bulkResult.added(), "Le chargement en bloc devrait éliminer les doublons.");
+            assertEquals(new HashSet<>(sequential.getAtoms()), new HashSet<>(bulk.getAtoms()),
+                    "Le chargement en bloc devrait contenir les mêmes triplets.");
+
+            TermDictionary expected = sequential.getDictionary();
+            TermDictionary actual = parallel.getDictionary();
+            assertEquals(expected.size(), actual.size(), "Les deux dictionnaires devraient avoir autant d'entités.");
+            for (int id = 1; id <= expected.size(); id++) {
+                assertEquals(expected.decode(id), actual.decode(id), "Les identifiants devraient suivre l'ordre du fichier.");
+            }
+            assertEquals(sequential.getStatistics().distinctSubjects(), parallel.getStatistics().distinctSubjects(),
+                    "Les statistiques devraient être à jour.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testBoundariesAtLineStarts() throws Exception {
+        Path file = Files.createTempFile("triplets", ".nt");
+        try {
+            Files.writeString(file, "<a> <b> <c> .\n<d> <e> <f> .\n<g> <h> <i> .\n");
+            byte[] bytes = Files.readAllBytes(file);
+            long[] boundaries = ParallelNTriplesLoader.boundaries(file, 5);
+            assertEquals(0, boundaries[0], "Le premier bloc devrait commencer au début du fichier.");
+            assertEquals(bytes.length, boundaries[boundaries.length - 1], "Le dernier bloc devrait finir avec le fichier.");
+            for (int i = 1; i < boundaries.length - 1; i++) {
+                assertEquals('\n', bytes[(int) boundaries[i] - 1], "Chaque limite devrait suivre une fin de ligne.");
+            }
+            assertEquals(4, boundaries.length, "Chaque ligne devrait former un bloc.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de la classe {@link ExternalIndexBuilder}.
+ */
+public class ExternalIndexBuilderTest {
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    @Test
+    public void testSpilledRunsMatchInMemoryStore() throws IOException {
+        // Le budget minimal tamponne environ 60 000 triplets : le chargement est vidé en plusieurs suites
+        assertSameAsInMemory(400_000, ExternalIndexBuilder.MIN_MEMORY_BUDGET, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testMultiPassMerge() throws IOException {
+        // Sept suites fusionnées deux par deux : trois passes intermédiaires avant la fusion finale
+        assertSameAsInMemory(400_000, ExternalIndexBuilder.MIN_MEMORY_BUDGET, 2);
+    }
+
+    @Test
+    public void testBufferedTriplesMatchInMemoryStore() throws IOException {
+        assertSameAsInMemory(5_000, ExternalIndexBuilder.DEFAULT_MEMORY_BUDGET, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testBudgetTooSmall() throws IOException {
+        Path directory = Files.createTempDirectory("hexastore");
+        try {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new ExternalIndexBuilder(directory, Permutation.ALL, ExternalIndexBuilder.MIN_MEMORY_BUDGET - 1),
+                    "Un budget inférieur au minimum devrait être refusé.");
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void assertSameAsInMemory(int triples, long memoryBudget, int maxFanIn) throws IOException {
+        RDFHexaStore expected = new RDFHexaStore();
+        Path directory = Files.createTempDirectory("hexastore");
+        try {
+            RDFHexaStore store;
+            try (ExternalIndexBuilder builder = new ExternalIndexBuilder(directory, Permutation.ALL, memoryBudget, maxFanIn)) {
+                for (int i = 0; i < triples; i++) {
+                    // Chaque triplet apparaît deux fois, dans des suites différentes
+                    int j = i % (triples / 2);
+                    RDFAtom atom = new RDFAtom(literal("s" + j % 5_000), literal("p" + j % 7), literal("o" + j / 5));
+                    builder.add(atom);
+                    expected.add(atom);
+                }
+                store = builder.finish();
+            }
+
+            try (var files = Files.list(directory)) {
+                assertEquals(Permutation.ALL.size() + 2, files.count(),
+                        "Seuls les fichiers du store devraient rester dans le répertoire.");
+            }
+            assertTrue(store.isFrozen(), "Le store construit devrait être gelé.");
+            assertEquals(expected.size(), store.size(), "Les doublons ne devraient pas être comptés.");
+            assertEquals(new HashSet<>(expected.getAtoms()), new HashSet<>(store.getAtoms()),
+                    "Le store construit devrait contenir les mêmes triplets.");
+            assertEquals(expected.getStatistics().distinctObjects(), store.getStatistics().distinctObjects(),
+                    "Les statistiques devraient être celles d'un chargement en mémoire.");
+
+            StarQuery query = new StarQuery("TestExterne", List.of(
+                    new RDFAtom(VAR_X, literal("p3"), literal("o10")),
+                    new RDFAtom(VAR_X, literal("p5"), VAR_Y)
+            ), List.of(VAR_X, VAR_Y));
+            assertEquals(count(expected.match(query)), count(store.match(query)),
+                    "Les requêtes devraient être servies par tous les index.");
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static Term literal(String value) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(value);
+    }
+
+    private static int count(Iterator<Substitution> substitutions) {
+        int count = 0;
+        for (; substitutions.hasNext(); substitutions.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
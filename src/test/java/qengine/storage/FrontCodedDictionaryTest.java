@@ -0,0 +1,55 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de la classe {@link FrontCodedDictionary}.
+ */
+public class FrontCodedDictionaryTest {
+
+    @Test
+    public void testEncodeDecode() {
+        // Plusieurs blocs, des espaces de noms partagés et des libellés non ASCII
+        RDFDictionary source = new RDFDictionary();
+        Term[] terms = new Term[100];
+        for (int i = 0; i < terms.length; i++) {
+            String label = switch (i % 3) {
+                case 0 -> "http://db.uwaterloo.ca/~galuc/wsdbm/User" + i;
+                case 1 -> "http://schema.org/caption#" + i;
+                default -> "libellé " + (terms.length - i);
+            };
+            terms[i] = SameObjectTermFactory.instance().createOrGetLiteral(label);
+            source.encode(terms[i]);
+        }
+
+        FrontCodedDictionary dictionary = FrontCodedDictionary.of(source);
+        assertEquals(terms.length, dictionary.size(), "Le dictionnaire compact devrait contenir tous les termes.");
+        for (int i = 0; i < terms.length; i++) {
+            assertEquals(i + 1, dictionary.encode(terms[i]), "Les identifiants d'origine devraient être conservés.");
+            assertEquals(terms[i], dictionary.decode(i + 1), "Le décodage devrait retourner le terme d'origine.");
+        }
+    }
+
+    @Test
+    public void testUnknownTerm() {
+        RDFDictionary source = new RDFDictionary();
+        source.encode(SameObjectTermFactory.instance().createOrGetLiteral("http://example.org/b"));
+        FrontCodedDictionary dictionary = FrontCodedDictionary.of(source);
+
+        for (String label : new String[]{"http://example.org/a", "http://example.org/c", "http://example.org/", ""}) {
+            assertEquals(TermDictionary.UNKNOWN, dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral(label)),
+                    "Un terme absent ne devrait pas être ajouté : " + label);
+        }
+        assertEquals(1, dictionary.size(), "Le dictionnaire compact est en lecture seule.");
+        assertNull(dictionary.decode(0), "L'identifiant 0 n'est jamais attribué.");
+        assertNull(dictionary.decode(2), "Un identifiant non attribué ne devrait pas être décodé.");
+
+        FrontCodedDictionary empty = FrontCodedDictionary.of(new RDFDictionary());
+        assertEquals(TermDictionary.UNKNOWN, empty.encode(SameObjectTermFactory.instance().createOrGetLiteral("a")),
+                "Un dictionnaire vide ne connaît aucun terme.");
+    }
+}
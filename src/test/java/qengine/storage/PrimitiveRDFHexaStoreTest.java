@@ -0,0 +1,123 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.*;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link PrimitiveRDFHexaStore}.
+ * Les résultats sont comparés à ceux de {@link RDFHexaStore} sur les mêmes données.
+ */
+public class PrimitiveRDFHexaStoreTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> SUBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("subject2");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("object2");
+    private static final Literal<String> OBJECT_3 = SameObjectTermFactory.instance().createOrGetLiteral("object3");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+    private static final Variable VAR_Z = SameObjectTermFactory.instance().createOrGetVariable("?z");
+
+    private static final List<RDFAtom> DATA = List.of(
+            new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+            new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_3),
+            new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2),
+            new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2),
+            new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2)
+    );
+
+    @Test
+    public void testAddAndSize() {
+        PrimitiveRDFHexaStore store = new PrimitiveRDFHexaStore();
+        assertTrue(store.addAll(DATA), "Les RDFAtoms devraient être ajoutés avec succès.");
+        assertEquals(DATA.size(), store.size(), "La taille de la base devrait être égale au nombre de triplets.");
+
+        assertFalse(store.add(DATA.get(0)), "Un triplet déjà présent ne devrait pas être ajouté.");
+        assertEquals(DATA.size(), store.size(), "Un doublon ne devrait pas changer la taille de la base.");
+
+        Collection<Atom> atoms = store.getAtoms();
+        assertEquals(DATA.size(), atoms.size(), "Tous les atomes devraient être retournés.");
+        assertTrue(atoms.containsAll(DATA), "La base devrait contenir tous les RDFAtoms ajoutés.");
+    }
+
+    @Test
+    public void testMatchAtomSameAsHexaStore() {
+        RDFHexaStore reference = new RDFHexaStore();
+        PrimitiveRDFHexaStore store = new PrimitiveRDFHexaStore();
+        reference.addAll(DATA);
+        store.addAll(DATA);
+
+        List<RDFAtom> patterns = List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_1, VAR_X),
+                new RDFAtom(SUBJECT_1, VAR_X, OBJECT_2),
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_2),
+                new RDFAtom(SUBJECT_1, VAR_X, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Y),
+                new RDFAtom(VAR_X, VAR_Y, OBJECT_2),
+                new RDFAtom(VAR_X, VAR_Y, VAR_Z),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_3)
+        );
+        for (RDFAtom pattern : patterns) {
+            assertEquals(toSet(reference.match(pattern)), toSet(store.match(pattern)),
+                    "Résultats différents pour le motif " + pattern);
+        }
+    }
+
+    @Test
+    public void testMatchStarQuery() {
+        RDFHexaStore reference = new RDFHexaStore();
+        PrimitiveRDFHexaStore store = new PrimitiveRDFHexaStore();
+        reference.addAll(DATA);
+        store.addAll(DATA);
+
+        StarQuery query = new StarQuery("TestStarQuery", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_2),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2)
+        ), List.of(VAR_X));
+
+        Set<Substitution> results = toSet(store.match(query));
+        assertEquals(1, results.size(), "Il devrait y avoir une substitution correspondante.");
+        assertEquals(toSet(reference.match(query)), results,
+                "Les résultats devraient être identiques à ceux du RDFHexaStore.");
+    }
+
+    @Test
+    public void testMatchStarQueryProjection() {
+        RDFHexaStore reference = new RDFHexaStore();
+        PrimitiveRDFHexaStore store = new PrimitiveRDFHexaStore();
+        reference.addAll(DATA);
+        store.addAll(DATA);
+
+        // ?y et ?z sont liées par des triplets différents et ne sont pas des variables réponses
+        StarQuery query = new StarQuery("TestProjection", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Z)
+        ), List.of(VAR_X));
+
+        Set<Substitution> results = toSet(store.match(query));
+        assertFalse(results.isEmpty(), "Les triplets liant des variables différentes devraient être joints.");
+        assertEquals(toSet(reference.match(query)), results,
+                "Les substitutions devraient être projetées sur les variables réponses.");
+        List<Substitution> expected = new ArrayList<>();
+        reference.match(query).forEachRemaining(expected::add);
+        List<Substitution> actual = new ArrayList<>();
+        store.match(query).forEachRemaining(actual::add);
+        assertEquals(3, actual.size(), "Chaque correspondance devrait donner une réponse.");
+        assertEquals(expected.size(), actual.size(), "Les réponses devraient avoir les mêmes multiplicités.");
+    }
+
+    private static Set<Substitution> toSet(Iterator<Substitution> iterator) {
+        Set<Substitution> set = new HashSet<>();
+        iterator.forEachRemaining(set::add);
+        return set;
+    }
+}
@@ -0,0 +1,85 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de la classe {@link RDFDictionary}.
+ */
+public class RDFDictionaryTest {
+
+    @Test
+    public void testEncodeDecode() {
+        RDFDictionary dictionary = new RDFDictionary();
+        Literal<String> a = SameObjectTermFactory.instance().createOrGetLiteral("a");
+        Literal<String> b = SameObjectTermFactory.instance().createOrGetLiteral("b");
+
+        int idA = dictionary.encode(a);
+        int idB = dictionary.encode(b);
+        assertEquals(1, idA, "Le premier identifiant attribué devrait être 1.");
+        assertEquals(2, idB, "Les identifiants devraient être consécutifs.");
+        assertEquals(idA, dictionary.encode(a), "Un terme déjà encodé devrait garder son identifiant.");
+        assertEquals(2, dictionary.size(), "Le dictionnaire devrait contenir deux termes.");
+
+        assertSame(a, dictionary.decode(idA), "Le décodage devrait retourner le terme encodé.");
+        assertSame(b, dictionary.decode(idB), "Le décodage devrait retourner le terme encodé.");
+        assertNull(dictionary.decode(0), "L'identifiant 0 n'est jamais attribué.");
+        assertNull(dictionary.decode(3), "Un identifiant non attribué ne devrait pas être décodé.");
+    }
+
+    @Test
+    public void testLookup() {
+        RDFDictionary dictionary = new RDFDictionary();
+        Literal<String> a = SameObjectTermFactory.instance().createOrGetLiteral("a");
+        Literal<String> absent = SameObjectTermFactory.instance().createOrGetLiteral("absent");
+        int idA = dictionary.encode(a);
+
+        assertEquals(idA, dictionary.lookup(a), "La recherche devrait retourner l'identifiant attribué.");
+        assertEquals(TermDictionary.UNKNOWN, dictionary.lookup(absent), "Un terme absent devrait donner UNKNOWN.");
+        assertEquals(1, dictionary.size(), "La recherche ne devrait pas ajouter de terme.");
+        assertEquals(2, dictionary.encode(absent), "L'identifiant suivant ne devrait pas avoir été consommé.");
+    }
+
+    @Test
+    public void testPredicateSpace() {
+        RDFDictionary dictionary = new RDFDictionary();
+        Literal<String> a = SameObjectTermFactory.instance().createOrGetLiteral("a");
+        Literal<String> p = SameObjectTermFactory.instance().createOrGetLiteral("p");
+
+        int entity = dictionary.encode(a);
+        int predicate = dictionary.encodePredicate(p);
+        assertFalse(TermDictionary.isPredicate(entity), "Un identifiant d'entité ne porte pas la marque des prédicats.");
+        assertTrue(TermDictionary.isPredicate(predicate), "Un identifiant de prédicat porte sa marque.");
+        assertEquals(1, TermDictionary.predicateRank(predicate), "Les prédicats sont numérotés à partir de 1.");
+
+        // Un même terme a un identifiant dans chaque espace
+        int predicateA = dictionary.encodePredicate(a);
+        assertNotEquals(entity, predicateA, "Les deux espaces d'identifiants sont distincts.");
+        assertSame(a, dictionary.decode(entity), "Le décodage devrait retourner le terme encodé.");
+        assertSame(a, dictionary.decode(predicateA), "Le décodage devrait retourner le terme encodé.");
+        assertEquals(TermDictionary.UNKNOWN, dictionary.lookup(p), "Le prédicat n'a pas d'identifiant d'entité.");
+        assertEquals(predicate, dictionary.lookupPredicate(p), "La recherche devrait retourner l'identifiant attribué.");
+        assertEquals(1, dictionary.size(), "Le dictionnaire devrait contenir une entité.");
+        assertEquals(2, dictionary.predicateCount(), "Le dictionnaire devrait contenir deux prédicats.");
+    }
+
+    @Test
+    public void testGrowth() {
+        // Force plusieurs agrandissements du tableau des termes et de la table de hachage
+        RDFDictionary dictionary = new RDFDictionary();
+        Term[] terms = new Term[10_000];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = SameObjectTermFactory.instance().createOrGetLiteral("term" + i);
+            assertEquals(i + 1, dictionary.encode(terms[i]), "Chaque nouveau terme devrait recevoir l'identifiant suivant.");
+        }
+        for (int i = 0; i < terms.length; i++) {
+            assertEquals(i + 1, dictionary.encode(terms[i]), "Les identifiants devraient survivre aux agrandissements.");
+            assertSame(terms[i], dictionary.decode(i + 1), "Le décodage devrait survivre aux agrandissements.");
+        }
+        assertEquals(terms.length, dictionary.size(), "Le dictionnaire devrait contenir tous les termes.");
+    }
+}
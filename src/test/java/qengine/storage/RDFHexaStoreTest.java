@@ -7,9 +7,14 @@ import org.apache.commons.lang3.NotImplementedException;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
 import qengine.storage.RDFHexaStore;
+import qengine.storage.primitive.TripleBuffer;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -85,8 +90,9 @@ public class RDFHexaStoreTest {
         store.add(rdfAtom2);
         assertTrue(store.getAtoms().contains(rdfAtom2), "Le RDFAtom2 devrait être ajouté avec succès.");
 
-        store.add(rdfAtom2);
+        assertFalse(store.add(rdfAtom2), "Un doublon ne devrait pas être ajouté.");
         assertTrue(store.getAtoms().contains(rdfAtom2), "Le RDFAtom2 devrait être ajouté avec succès.");
+        assertEquals(2, store.size(), "Un doublon ne devrait pas être compté.");
     }
 
     @Test
@@ -323,4 +329,653 @@ public class RDFHexaStoreTest {
         assertEquals(1, matchedList.size(), "Il devrait y avoir une substitution correspondante.");
         assertTrue(matchedList.contains(expected1), "Substitution manquante : " + expected1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFreeze() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_3));
+        store.freeze();
+
+        assertTrue(store.isFrozen(), "Le store devrait être gelé.");
+        assertEquals(3, store.size(), "La taille de la base devrait être conservée après le gel.");
+
+        // Les huit motifs d'accès donnent les mêmes résultats qu'avant le gel
+        testMatchAtomCase1(store);
+        testMatchAtomCase2(store);
+        testMatchAtomCase3(store);
+        testMatchAtomCase4(store);
+        testMatchAtomCase5(store);
+        testMatchAtomCase6(store);
+        testMatchAtomCase7(store);
+        testMatchAtomCase8(store);
+
+        assertThrows(IllegalStateException.class, () -> store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3)),
+                "Un store gelé ne devrait pas accepter d'ajout.");
+    }
+
+    @Test
+    public void testCompactDictionary() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_3));
+        assertThrows(IllegalStateException.class, store::compactDictionary,
+                "Le dictionnaire ne devrait être compacté qu'après le gel.");
+
+        store.freeze();
+        store.compactDictionary();
+
+        // Les identifiants sont conservés : les index répondent comme avant
+        testMatchAtomCase1(store);
+        testMatchAtomCase2(store);
+        testMatchAtomCase3(store);
+        testMatchAtomCase4(store);
+        testMatchAtomCase5(store);
+        testMatchAtomCase6(store);
+        testMatchAtomCase7(store);
+        testMatchAtomCase8(store);
+    }
+
+    @Test
+    public void testMatchUnknownConstant() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        Literal<String> unknown = SameObjectTermFactory.instance().createOrGetLiteral("unknown");
+
+        assertFalse(store.match(new RDFAtom(VAR_X, unknown, OBJECT_1)).hasNext(),
+                "Une constante inconnue ne devrait correspondre à aucun triplet.");
+
+        // Une seule constante inconnue suffit à rendre la requête vide
+        StarQuery query = new StarQuery("TestUnknown", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_1, unknown)
+        ), List.of(VAR_X));
+        assertFalse(store.match(query).hasNext(), "La requête devrait être vide.");
+
+        // Le store gelé et compacté (dictionnaire en lecture seule) répond de la même façon
+        store.freeze();
+        store.compactDictionary();
+        assertFalse(store.match(query).hasNext(), "La requête devrait rester vide après compactage.");
+        assertEquals(2, countSubstitutions(store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1))),
+                "Les constantes connues devraient toujours correspondre.");
+    }
+
+    private static int countSubstitutions(Iterator<Substitution> substitutions) {
+        int count = 0;
+        for (; substitutions.hasNext(); substitutions.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testPredicateAsEntity() {
+        // Le même terme est prédicat d'un triplet et sujet ou objet d'autres triplets
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(PREDICATE_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, PREDICATE_1));
+
+        assertEquals(1, countSubstitutions(store.match(new RDFAtom(VAR_X, VAR_X, VAR_Y))),
+                "Seul le triplet dont le sujet est aussi le prédicat devrait correspondre.");
+        assertEquals(1, countSubstitutions(store.match(new RDFAtom(VAR_X, PREDICATE_2, PREDICATE_1))),
+                "Un prédicat devrait être retrouvé en position d'objet.");
+
+        store.freeze();
+        store.compactDictionary();
+        assertEquals(1, countSubstitutions(store.match(new RDFAtom(VAR_X, VAR_X, VAR_Y))),
+                "Le résultat devrait être conservé après gel et compactage.");
+        assertEquals(new HashSet<>(List.of(
+                new RDFAtom(PREDICATE_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, PREDICATE_1))), new HashSet<>(store.getAtoms()),
+                "Les atomes devraient être décodés dans le bon espace.");
+    }
+
+    @Test
+    public void testPlan() {
+        RDFHexaStore store = new RDFHexaStore(Permutation.THREE);
+        for (int i = 0; i < 100; i++) {
+            store.add(new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("s" + i), PREDICATE_1, OBJECT_1));
+        }
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_3));
+
+        RDFAtom frequent = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+        RDFAtom selective = new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2);
+        RDFAtom allOfSubject = new RDFAtom(SUBJECT_1, VAR_Y, VAR_Z);
+        assertEquals(100, store.estimateCardinality(frequent), "L'estimation devrait être la taille de pos[p][o].");
+        assertEquals(1, store.estimateCardinality(selective), "L'estimation devrait être la taille de pos[p][o].");
+        assertEquals(2, store.estimateCardinality(allOfSubject), "L'estimation devrait sommer les listes de spo[s].");
+        assertEquals(2, store.estimateCardinality(new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)),
+                "L'estimation d'un prédicat seul devrait venir du catalogue.");
+        assertEquals(0, store.estimateCardinality(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_2)),
+                "Un couple absent devrait être estimé à 0.");
+
+        StarQuery query = new StarQuery("TestPlan", List.of(frequent, selective), List.of(VAR_X));
+        assertEquals(List.of(selective, frequent), store.plan(query), "L'atome le plus sélectif devrait être évalué d'abord.");
+
+        StarQuery empty = new StarQuery("TestPlanVide", List.of(frequent, new RDFAtom(VAR_X, PREDICATE_1, OBJECT_2)),
+                List.of(VAR_X));
+        assertTrue(store.plan(empty).isEmpty(), "Une estimation nulle devrait vider le plan.");
+        assertFalse(store.match(empty).hasNext(), "La requête devrait être vide.");
+    }
+
+    @Test
+    public void testMatchStarQueryNestedLoop() {
+        RDFHexaStore store = new RDFHexaStore(Permutation.THREE);
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_3));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2));
+
+        // (?x, p1, ?y) n'est pas servi par une liste : la variable centrale est sondée depuis (?x, p2, o3)
+        StarQuery query = new StarQuery("TestNestedLoop", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_3)
+        ), List.of(VAR_X, VAR_Y));
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(query).forEachRemaining(matchedList::add);
+
+        Substitution expected1 = new SubstitutionImpl();
+        expected1.add(VAR_X, SUBJECT_1);
+        expected1.add(VAR_Y, OBJECT_1);
+        Substitution expected2 = new SubstitutionImpl();
+        expected2.add(VAR_X, SUBJECT_1);
+        expected2.add(VAR_Y, OBJECT_2);
+        assertEquals(2, matchedList.size(), "Il devrait y avoir deux substitutions correspondantes.");
+        assertTrue(matchedList.containsAll(List.of(expected1, expected2)), "Substitutions manquantes : " + matchedList);
+
+        // Une variable partagée par deux triplets en plus de la variable centrale doit être liée au même terme
+        StarQuery shared = new StarQuery("TestNestedLoopShared", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)
+        ), List.of(VAR_X, VAR_Y));
+        List<Substitution> sharedList = new ArrayList<>();
+        store.match(shared).forEachRemaining(sharedList::add);
+        Substitution expected3 = new SubstitutionImpl();
+        expected3.add(VAR_X, SUBJECT_2);
+        expected3.add(VAR_Y, OBJECT_2);
+        assertEquals(List.of(expected3), sharedList, "Seul (subject2, object2) est commun aux deux prédicats.");
+
+        // Seules les variables réponses sont liées dans les substitutions
+        StarQuery projected = new StarQuery("TestNestedLoopProjected", query.getRdfAtoms(), List.of(VAR_Y));
+        List<Substitution> projectedList = new ArrayList<>();
+        store.match(projected).forEachRemaining(projectedList::add);
+        Substitution expected4 = new SubstitutionImpl();
+        expected4.add(VAR_Y, OBJECT_1);
+        Substitution expected5 = new SubstitutionImpl();
+        expected5.add(VAR_Y, OBJECT_2);
+        assertEquals(2, projectedList.size(), "Il devrait y avoir deux substitutions projetées.");
+        assertTrue(projectedList.containsAll(List.of(expected4, expected5)), "Substitutions manquantes : " + projectedList);
+    }
+
+    @Test
+    public void testMatchStarQueryLeapfrog() {
+        // Avec PSO, (?x, p1, ?y) et (?x, p2, ?z) fournissent chacun la liste triée de leurs sujets
+        RDFHexaStore reference = new RDFHexaStore(Permutation.THREE);
+        RDFHexaStore mutable = new RDFHexaStore(Permutation.ALL);
+        RDFHexaStore frozen = new RDFHexaStore(Permutation.ALL);
+        for (int i = 0; i < 50; i++) {
+            Term subject = SameObjectTermFactory.instance().createOrGetLiteral("s" + i);
+            for (RDFHexaStore store : List.of(reference, mutable, frozen)) {
+                if (i % 2 == 0) {
+                    store.add(new RDFAtom(subject, PREDICATE_1, OBJECT_1));
+                    store.add(new RDFAtom(subject, PREDICATE_1, OBJECT_2));
+                }
+                if (i % 3 == 0) {
+                    store.add(new RDFAtom(subject, PREDICATE_2, OBJECT_3));
+                }
+            }
+        }
+        frozen.freeze();
+
+        StarQuery query = new StarQuery("TestLeapfrog", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Z)
+        ), List.of(VAR_X, VAR_Y, VAR_Z));
+        Set<Substitution> expected = new HashSet<>();
+        reference.match(query).forEachRemaining(expected::add);
+        assertEquals(18, expected.size(), "Les sujets multiples de 6 ont deux objets pour p1 et un pour p2.");
+        for (RDFHexaStore store : List.of(mutable, frozen)) {
+            Set<Substitution> matched = new HashSet<>();
+            store.match(query).forEachRemaining(matched::add);
+            assertEquals(expected, matched, "L'intersection des listes de sujets devrait donner les mêmes réponses.");
+        }
+    }
+
+    @Test
+    public void testMatchDistinct() {
+        RDFHexaStore store = new RDFHexaStore(Permutation.THREE);
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_3));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2));
+
+        // ?y n'est pas projetée : subject1 est obtenu une fois par objet de p1
+        StarQuery query = new StarQuery("TestDistinct", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Z)
+        ), List.of(VAR_X));
+        assertEquals(3, countSubstitutions(store.match(query)), "Sans DISTINCT, les doublons sont conservés.");
+
+        List<Substitution> distinctList = new ArrayList<>();
+        store.match(query, true).forEachRemaining(distinctList::add);
+        Substitution expected1 = new SubstitutionImpl();
+        expected1.add(VAR_X, SUBJECT_1);
+        Substitution expected2 = new SubstitutionImpl();
+        expected2.add(VAR_X, SUBJECT_2);
+        assertEquals(2, distinctList.size(), "Chaque sujet ne doit apparaître qu'une fois : " + distinctList);
+        assertTrue(distinctList.containsAll(List.of(expected1, expected2)), "Substitutions manquantes : " + distinctList);
+
+        // Sans variable réponse, la seule réponse possible est la substitution vide
+        StarQuery existence = new StarQuery("TestDistinctBoolean", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)
+        ), List.of());
+        assertEquals(2, countSubstitutions(store.match(existence)), "Une substitution vide par sujet attendue.");
+        assertEquals(1, countSubstitutions(store.match(existence, true)), "Une seule substitution vide attendue.");
+    }
+
+    @Test
+    public void testQueryCache() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.enableQueryCache(1, 1 << 20);
+        QueryCache cache = store.getQueryCache();
+
+        StarQuery query = new StarQuery("TestCache", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)
+        ), List.of(VAR_X, VAR_Y));
+        assertEquals(1, countSubstitutions(store.match(query)), "Seul subject1 a les deux prédicats.");
+        assertEquals(1, cache.misses(), "La première évaluation devrait être un échec du cache.");
+
+        // Même requête aux noms des variables et à l'ordre des triplets près
+        StarQuery renamed = new StarQuery("TestCacheRenamed", List.of(
+                new RDFAtom(VAR_Z, PREDICATE_2, VAR_X),
+                new RDFAtom(VAR_Z, PREDICATE_1, OBJECT_1)
+        ), List.of(VAR_Z, VAR_X));
+        List<Substitution> renamedList = new ArrayList<>();
+        store.match(renamed).forEachRemaining(renamedList::add);
+        Substitution expected = new SubstitutionImpl();
+        expected.add(VAR_Z, SUBJECT_1);
+        expected.add(VAR_X, OBJECT_2);
+        assertEquals(List.of(expected), renamedList, "Les réponses du cache devraient porter les variables de la requête.");
+        assertEquals(1, cache.hits(), "La requête renommée devrait être servie par le cache.");
+
+        // Un ajout invalide le cache
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3));
+        assertEquals(0, cache.size(), "Un ajout devrait vider le cache.");
+        assertEquals(2, countSubstitutions(store.match(query)), "Les réponses devraient refléter l'ajout.");
+
+        // Une seule entrée autorisée : la requête précédente est évincée
+        store.match(query, true);
+        assertEquals(1, cache.size(), "Le cache ne devrait pas dépasser une entrée.");
+        assertEquals(1, cache.evictions(), "La requête la moins récemment utilisée devrait être évincée.");
+    }
+
+    @Test
+    public void testQueryCacheConcurrentReaders() throws InterruptedException {
+        RDFHexaStore store = new RDFHexaStore();
+        for (int i = 0; i < 200; i++) {
+            store.add(new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("s" + i),
+                    i % 2 == 0 ? PREDICATE_1 : PREDICATE_2, SameObjectTermFactory.instance().createOrGetLiteral("o" + i % 5)));
+        }
+        // Deux entrées pour trois requêtes : les lectures concurrentes évincent et réordonnent sans cesse
+        store.enableQueryCache(2, 1 << 20);
+        List<StarQuery> queries = new ArrayList<>();
+        for (int o = 0; o < 3; o++) {
+            queries.add(new StarQuery("TestConcurrence" + o, List.of(
+                    new RDFAtom(VAR_X, PREDICATE_1, SameObjectTermFactory.instance().createOrGetLiteral("o" + o))
+            ), List.of(VAR_X)));
+        }
+        int[] expected = queries.stream().mapToInt(q -> countSubstitutions(store.match(q))).toArray();
+        QueryCache cache = store.getQueryCache();
+        long before = cache.hits() + cache.misses();
+
+        int rounds = 500;
+        runConcurrently(4, () -> {
+            for (int i = 0; i < rounds; i++) {
+                int k = i % queries.size();
+                assertEquals(expected[k], countSubstitutions(store.match(queries.get(k))),
+                        "Les réponses partagées devraient rester exactes.");
+            }
+        });
+        assertEquals(before + 4L * rounds, cache.hits() + cache.misses(), "Aucune lecture ne devrait être perdue.");
+        assertTrue(cache.size() <= 2, "Le cache ne devrait pas dépasser ses bornes.");
+    }
+
+    /**
+     * Exécute la même tâche sur plusieurs threads et relance la première erreur rencontrée.
+     */
+    private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(task);
+            worker.setUncaughtExceptionHandler((thread, error) -> errors.add(error));
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (!errors.isEmpty()) {
+            fail("Une évaluation concurrente a échoué : " + errors.get(0), errors.get(0));
+        }
+    }
+
+    @Test
+    public void testIndexPipeline() {
+        RDFHexaStore sequential = new RDFHexaStore();
+        RDFHexaStore pipelined = new RDFHexaStore();
+        long added;
+        // Tampon minimal : le producteur attend régulièrement les index
+        try (IndexPipeline pipeline = pipelined.openPipeline(1)) {
+            TermDictionary dictionary = pipelined.getDictionary();
+            for (int i = 0; i < 10_000; i++) {
+                RDFAtom atom = new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("s" + (i % 700)),
+                        i % 2 == 0 ? PREDICATE_1 : PREDICATE_2,
+                        SameObjectTermFactory.instance().createOrGetLiteral("o" + (i % 900)));
+                sequential.add(atom);
+                pipeline.add(dictionary.encode(atom.getTripleSubject()), dictionary.encodePredicate(atom.getTriplePredicate()),
+                        dictionary.encode(atom.getTripleObject()));
+            }
+            added = pipeline.finish();
+        }
+
+        assertEquals(sequential.size(), added, "Les doublons ne devraient pas être comptés.");
+        assertEquals(sequential.size(), pipelined.size(), "Les statistiques devraient compter chaque triplet nouveau.");
+        assertEquals(new HashSet<>(sequential.getAtoms()), new HashSet<>(pipelined.getAtoms()),
+                "Le chargement en pipeline devrait contenir les mêmes triplets.");
+        StarQuery query = new StarQuery("TestPipeline", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, SameObjectTermFactory.instance().createOrGetLiteral("o4")),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)
+        ), List.of(VAR_X, VAR_Y));
+        assertEquals(countSubstitutions(sequential.match(query)), countSubstitutions(pipelined.match(query)),
+                "Tous les index devraient être construits.");
+    }
+
+    @Test
+    public void testBulkLoad() {
+        RDFHexaStore incremental = new RDFHexaStore();
+        RDFHexaStore bulk = new RDFHexaStore();
+        TermDictionary dictionary = bulk.getDictionary();
+        TripleBuffer triples = new TripleBuffer(16);
+        for (int i = 0; i < 10_000; i++) {
+            RDFAtom atom = new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("s" + (i % 700)),
+                    i % 3 == 0 ? PREDICATE_1 : PREDICATE_2,
+                    SameObjectTermFactory.instance().createOrGetLiteral("o" + (i % 900)));
+            incremental.add(atom);
+            triples.add(dictionary.encode(atom.getTripleSubject()), dictionary.encodePredicate(atom.getTriplePredicate()),
+                    dictionary.encode(atom.getTripleObject()));
+        }
+        incremental.freeze();
+
+        assertEquals(incremental.size(), bulk.bulkLoad(triples.array(), triples.size()),
+                "Les doublons ne devraient pas être comptés.");
+        assertTrue(bulk.isFrozen(), "Le store devrait être gelé après le chargement en bloc.");
+        assertEquals(incremental.size(), bulk.size(), "Les statistiques devraient compter chaque triplet distinct.");
+        assertEquals(new HashSet<>(incremental.getAtoms()), new HashSet<>(bulk.getAtoms()),
+                "Le chargement en bloc devrait contenir les mêmes triplets.");
+        assertEquals(bulk.size(), bulk.getAtoms().size(), "Les index ne devraient pas contenir de doublons.");
+        RDFAtom atom = new RDFAtom(VAR_X, PREDICATE_1, SameObjectTermFactory.instance().createOrGetLiteral("o3"));
+        assertEquals(incremental.estimateCardinality(atom), bulk.estimateCardinality(atom),
+                "Les statistiques devraient être celles d'un chargement incrémental.");
+        StarQuery query = new StarQuery("TestEnBloc", List.of(atom, new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)),
+                List.of(VAR_X, VAR_Y));
+        assertEquals(countSubstitutions(incremental.match(query)), countSubstitutions(bulk.match(query)),
+                "Tous les index devraient être construits.");
+
+        assertThrows(IllegalStateException.class, () -> bulk.bulkLoad(triples.array(), triples.size()),
+                "Un store non vide ne devrait pas accepter de chargement en bloc.");
+    }
+
+    @Test
+    public void testTripleSort() {
+        Random random = new Random(42);
+        int count = 5_000;
+        int[] triples = new int[3 * count];
+        for (int i = 0; i < triples.length; i++) {
+            // Valeurs sur plus de 16 bits, pour trier aussi sur les chiffres de poids fort
+            triples[i] = random.nextInt(1 << 20);
+        }
+        int[][] expected = new int[count][];
+        for (int i = 0; i < count; i++) {
+            expected[i] = Arrays.copyOfRange(triples, 3 * i, 3 * i + 3);
+        }
+        Arrays.sort(expected, Arrays::compare);
+
+        int[] sorted = TripleSort.sort(triples, count, new int[3 * count]);
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(expected[i], Arrays.copyOfRange(sorted, 3 * i, 3 * i + 3),
+                    "Le triplet " + i + " devrait suivre l'ordre lexicographique.");
+        }
+    }
+
+    @Test
+    public void testCandidateCacheConcurrentReaders() throws InterruptedException {
+        RDFHexaStore store = new RDFHexaStore();
+        for (int i = 0; i < 2_000; i++) {
+            store.add(new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("s" + i % 300),
+                    i % 2 == 0 ? PREDICATE_1 : PREDICATE_2, SameObjectTermFactory.instance().createOrGetLiteral("o" + i % 20)));
+        }
+        // Budget de quelques listes : admissions, refus et évictions se succèdent entre les threads
+        store.enableCandidateCache(2_048);
+        List<StarQuery> queries = new ArrayList<>();
+        for (int o = 0; o < 20; o++) {
+            queries.add(new StarQuery("TestCandidatsConcurrence" + o, List.of(
+                    new RDFAtom(VAR_X, PREDICATE_1, SameObjectTermFactory.instance().createOrGetLiteral("o" + o)),
+                    new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)
+            ), List.of(VAR_X, VAR_Y)));
+        }
+        int[] expected = queries.stream().mapToInt(q -> countSubstitutions(store.match(q))).toArray();
+        CandidateCache cache = store.getCandidateCache();
+
+        runConcurrently(4, () -> {
+            for (int i = 0; i < 400; i++) {
+                int k = (i * 7) % queries.size();
+                assertEquals(expected[k], countSubstitutions(store.match(queries.get(k))),
+                        "Les listes partagées devraient rester exactes.");
+            }
+        });
+        assertTrue(cache.bytes() <= 2_048, "Le cache ne devrait pas dépasser son budget.");
+        assertTrue(cache.hits() > 0, "Des listes devraient être servies par le cache.");
+    }
+
+    @Test
+    public void testCandidateCache() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_3));
+        store.enableCandidateCache(1 << 20);
+        CandidateCache cache = store.getCandidateCache();
+
+        StarQuery first = new StarQuery("TestCandidats1", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)
+        ), List.of(VAR_X, VAR_Y));
+        assertEquals(1, countSubstitutions(store.match(first)), "Seul subject1 a les deux prédicats.");
+        assertEquals(2, cache.misses(), "Les deux listes de candidats devraient être lues dans les index.");
+        assertEquals(2, cache.size(), "Les deux listes devraient être conservées.");
+
+        // Une autre requête partage le triplet (?x, predicate1, object1)
+        long hits = cache.hits();
+        StarQuery second = new StarQuery("TestCandidats2", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_3)
+        ), List.of(VAR_X));
+        assertEquals(1, countSubstitutions(store.match(second)), "Seul subject2 a les deux objets.");
+        assertEquals(hits + 1, cache.hits(), "La liste du triplet partagé devrait être servie par le cache.");
+        assertEquals(3, cache.size(), "Seule la nouvelle liste devrait être ajoutée.");
+
+        // Un ajout invalide le cache
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_3));
+        assertEquals(0, cache.size(), "Un ajout devrait vider le cache.");
+        assertEquals(2, countSubstitutions(store.match(second)), "Les réponses devraient refléter l'ajout.");
+
+        // Budget d'une seule liste : une nouvelle liste n'évince la conservée qu'une fois plus demandée qu'elle
+        store.enableCandidateCache(200);
+        cache = store.getCandidateCache();
+        StarQuery frequent = new StarQuery("TestFrequent", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+        StarQuery rare = new StarQuery("TestRare", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_3)), List.of(VAR_X));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, countSubstitutions(store.match(frequent)), "Deux sujets ont (predicate1, object1).");
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, countSubstitutions(store.match(rare)), "Deux sujets ont (predicate1, object3).");
+        }
+        assertEquals(3, cache.rejections(), "La liste moins demandée ne devrait pas être admise.");
+        assertEquals(0, cache.evictions(), "La liste fréquente devrait rester dans le cache.");
+        store.match(rare);
+        assertEquals(1, cache.evictions(), "La liste devenue plus demandée devrait remplacer l'autre.");
+        assertEquals(1, cache.size(), "Le cache ne devrait conserver qu'une liste.");
+    }
+
+    @Test
+    public void testMatchIteratorIsLazy() {
+        AtomicInteger decoded = new AtomicInteger();
+        RDFHexaStore store = new RDFHexaStore(new RDFDictionary() {
+            @Override
+            public Term decode(int id) {
+                decoded.incrementAndGet();
+                return super.decode(id);
+            }
+        });
+        for (int i = 0; i < 1_000; i++) {
+            store.add(new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("s" + i), PREDICATE_1,
+                    SameObjectTermFactory.instance().createOrGetLiteral("o" + (i % 10))));
+        }
+
+        decoded.set(0);
+        Iterator<Substitution> all = store.match(new RDFAtom(VAR_X, VAR_Y, VAR_Z));
+        assertTrue(all.hasNext() && all.hasNext(), "hasNext() ne devrait pas consommer de résultat.");
+        assertEquals(0, decoded.get(), "Aucun terme ne devrait être décodé avant le premier next().");
+        all.next();
+        assertEquals(3, decoded.get(), "Seul le premier triplet devrait avoir été décodé.");
+        assertEquals(999, countSubstitutions(all), "Le parcours complet devrait retourner chaque triplet.");
+        assertThrows(NoSuchElementException.class, all::next, "Un itérateur épuisé ne devrait plus rien retourner.");
+
+        assertEquals(100, countSubstitutions(store.match(new RDFAtom(VAR_X, PREDICATE_1,
+                        SameObjectTermFactory.instance().createOrGetLiteral("o3")))),
+                "Le parcours du troisième niveau devrait retourner chaque sujet.");
+        assertEquals(0, countSubstitutions(store.match(new RDFAtom(VAR_X, VAR_X, VAR_Z))),
+                "Aucun sujet n'est aussi prédicat.");
+    }
+
+    @Test
+    public void testMatchStarQueryFrozen() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_3));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_3));
+        store.freeze();
+
+        StarQuery query = new StarQuery("TestStarQuery", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_2),
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_3)
+        ), List.of(VAR_X));
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(query).forEachRemaining(matchedList::add);
+
+        Substitution expected = new SubstitutionImpl();
+        expected.add(VAR_X, SUBJECT_1);
+        assertEquals(1, matchedList.size(), "Il devrait y avoir une substitution correspondante.");
+        assertTrue(matchedList.contains(expected), "Substitution manquante : " + expected);
+    }
+
+    @Test
+    public void testPermutationSubsets() {
+        for (Set<Permutation> permutations : List.of(Permutation.THREE, Permutation.FOUR, EnumSet.of(Permutation.SPO))) {
+            RDFHexaStore store = new RDFHexaStore(permutations);
+            store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+            store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+            store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_3));
+
+            assertEquals(permutations, store.getPermutations(), "Seules les permutations demandées devraient être indexées.");
+            assertEquals(3, store.size(), "La taille de la base devrait être de 3.");
+
+            // Les huit motifs d'accès donnent les mêmes résultats qu'avec les six index
+            testMatchAtomCase1(store);
+            testMatchAtomCase2(store);
+            testMatchAtomCase3(store);
+            testMatchAtomCase4(store);
+            testMatchAtomCase5(store);
+            testMatchAtomCase6(store);
+            testMatchAtomCase7(store);
+            testMatchAtomCase8(store);
+        }
+    }
+
+    @Test
+    public void testPermutationUsage() {
+        RDFHexaStore store = new RDFHexaStore(EnumSet.of(Permutation.SPO));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+
+        // (?x, p, o) n'est servi par aucun index : parcours de SPO avec filtrage
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(s -> { });
+        // (s, p, ?x) est servi directement par SPO
+        store.match(new RDFAtom(SUBJECT_1, PREDICATE_1, VAR_X)).forEachRemaining(s -> { });
+
+        assertEquals(2L, store.getPermutationUsage().get(Permutation.SPO).longValue(), "L'index SPO devrait avoir été utilisé deux fois.");
+        assertTrue(store.permutationReport().contains("SPO : 2 accès, dont 1 parcours avec filtrage"),
+                "Le rapport devrait indiquer le parcours avec filtrage.");
+
+        store.resetPermutationUsage();
+        assertEquals(0L, store.getPermutationUsage().get(Permutation.SPO).longValue(), "Les compteurs devraient être remis à zéro.");
+    }
+
+    @Test
+    public void testSaveAndOpen() throws IOException {
+        RDFHexaStore store = new RDFHexaStore(Permutation.THREE);
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_3));
+
+        Path directory = Files.createTempDirectory("hexastore");
+        try {
+            store.save(directory);
+            assertTrue(RDFHexaStore.isStoreDirectory(directory), "Le répertoire devrait contenir un store.");
+
+            RDFHexaStore opened = RDFHexaStore.open(directory);
+            assertTrue(opened.isFrozen(), "Un store ouvert devrait être gelé.");
+            assertEquals(Permutation.THREE, opened.getPermutations(), "Les permutations écrites devraient être rouvertes.");
+            assertEquals(3, opened.size(), "La taille de la base devrait être conservée.");
+
+            // Les huit motifs d'accès sont servis depuis les fichiers projetés
+            testMatchAtomCase1(opened);
+            testMatchAtomCase2(opened);
+            testMatchAtomCase3(opened);
+            testMatchAtomCase4(opened);
+            testMatchAtomCase5(opened);
+            testMatchAtomCase6(opened);
+            testMatchAtomCase7(opened);
+            testMatchAtomCase8(opened);
+
+            // Une constante absente du dictionnaire ne correspond à aucun triplet
+            Literal<String> unknown = SameObjectTermFactory.instance().createOrGetLiteral("unknown");
+            assertFalse(opened.match(new RDFAtom(VAR_X, PREDICATE_1, unknown)).hasNext(),
+                    "Une constante inconnue ne devrait correspondre à aucun triplet.");
+            assertEquals(new HashSet<>(store.getAtoms()), new HashSet<>(opened.getAtoms()),
+                    "Les atomes rouverts devraient être ceux écrits.");
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package qengine.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de la classe {@link StatisticsCatalog}.
+ */
+public class StatisticsCatalogTest {
+    private static final int P1 = TermDictionary.predicateId(1);
+    private static final int P2 = TermDictionary.predicateId(2);
+
+    @Test
+    public void testCounts() {
+        StatisticsCatalog catalog = new StatisticsCatalog();
+        catalog.add(1, P1, 10);
+        catalog.add(2, P1, 10);
+        catalog.add(2, P1, 11);
+        catalog.add(1, P2, 2);
+
+        assertEquals(4, catalog.size(), "Le catalogue devrait compter quatre triplets.");
+        assertEquals(2, catalog.distinctSubjects(), "Le catalogue devrait compter deux sujets distincts.");
+        assertEquals(3, catalog.distinctObjects(), "Le catalogue devrait compter trois objets distincts.");
+        assertEquals(2, catalog.distinctPredicates(), "Le catalogue devrait compter deux prédicats.");
+
+        StatisticsCatalog.PredicateStatistics p1 = catalog.predicate(P1);
+        assertEquals(3, p1.triples(), "Le prédicat 1 devrait avoir trois triplets.");
+        assertEquals(2, p1.distinctSubjects(), "Le prédicat 1 devrait avoir deux sujets distincts.");
+        assertEquals(2, p1.distinctObjects(), "Le prédicat 1 devrait avoir deux objets distincts.");
+        assertEquals(new StatisticsCatalog.ObjectFrequency(10, 2, 0), p1.topObjects().get(0),
+                "L'objet 10 devrait être le plus fréquent du prédicat 1.");
+        assertNull(catalog.predicate(TermDictionary.predicateId(3)), "Un prédicat absent n'a pas de statistiques.");
+        assertNull(catalog.predicate(1), "Un identifiant d'entité n'a pas de statistiques de prédicat.");
+    }
+
+    @Test
+    public void testHeavyObjects() {
+        // Un objet très fréquent noyé parmi beaucoup plus d'objets distincts que de compteurs suivis
+        StatisticsCatalog catalog = new StatisticsCatalog();
+        for (int subject = 1; subject <= 10_000; subject++) {
+            catalog.add(subject, P1, subject % 4 == 0 ? 7 : 100 + subject);
+        }
+
+        List<StatisticsCatalog.ObjectFrequency> top = catalog.predicate(P1).topObjects();
+        assertTrue(top.size() <= StatisticsCatalog.TOP_OBJECTS, "Au plus TOP_OBJECTS objets devraient être retournés.");
+        assertEquals(7, top.get(0).object(), "L'objet fréquent devrait être en tête.");
+        assertTrue(top.get(0).count() >= 2_500 && top.get(0).count() - top.get(0).error() <= 2_500,
+                "Le compte estimé devrait encadrer la fréquence réelle.");
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        StatisticsCatalog catalog = new StatisticsCatalog();
+        catalog.add(1, P1, 10);
+        catalog.add(2, P1, 10);
+        catalog.add(1, P2, 2);
+        catalog.freeze();
+        assertThrows(IllegalStateException.class, () -> catalog.add(3, P1, 10),
+                "Un catalogue gelé ne devrait pas accepter d'ajout.");
+
+        Path file = Files.createTempFile("statistics", ".bin");
+        try {
+            catalog.write(file);
+            StatisticsCatalog read = StatisticsCatalog.read(file);
+            assertEquals(3, read.size(), "Le nombre de triplets devrait être relu.");
+            assertEquals(2, read.distinctSubjects(), "Le nombre de sujets distincts devrait être relu.");
+            assertEquals(catalog.predicate(P1).topObjects(), read.predicate(P1).topObjects(),
+                    "Les objets fréquents devraient être relus.");
+            assertEquals(1, read.predicate(P2).triples(), "Les statistiques par prédicat devraient être relues.");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
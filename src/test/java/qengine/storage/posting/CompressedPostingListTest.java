@@ -0,0 +1,91 @@
+package qengine.storage.posting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de {@link CompressedPostingList}.
+ */
+public class CompressedPostingListTest {
+
+    @Test
+    public void testRoundTrip() {
+        assertEquals(0, CompressedPostingList.EMPTY.size(), "La liste vide ne devrait contenir aucune valeur.");
+        assertFalse(CompressedPostingList.EMPTY.iterator().hasNext(), "L'itérateur de la liste vide devrait être épuisé.");
+
+        // Une liste d'un seul bloc, puis une liste de plusieurs blocs avec de grands écarts
+        int[] small = {1, 2, 300, 70_000};
+        assertArrayEquals(small, CompressedPostingList.of(small).toArray(), "Les valeurs devraient être décodées à l'identique.");
+
+        Random random = new Random(3);
+        TreeSet<Integer> values = new TreeSet<>();
+        while (values.size() < 1000) {
+            values.add(1 + random.nextInt(Integer.MAX_VALUE - 1));
+        }
+        int[] large = values.stream().mapToInt(Integer::intValue).toArray();
+        CompressedPostingList list = CompressedPostingList.of(large);
+        assertEquals(1000, list.size(), "La taille devrait être conservée.");
+        assertArrayEquals(large, list.toArray(), "Les valeurs de plusieurs blocs devraient être décodées à l'identique.");
+        assertTrue(list.contains(large[500]), "La liste devrait contenir ses valeurs.");
+        assertFalse(list.contains(0), "La liste ne devrait pas contenir de valeur absente.");
+    }
+
+    @Test
+    public void testAdvanceSkipsBlocks() {
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 10 * (i + 1);
+        }
+        PostingIterator it = CompressedPostingList.of(values).iterator();
+        assertEquals(10, it.advance(5), "advance devrait se positionner sur la première valeur.");
+        assertEquals(5010, it.advance(5001), "advance devrait sauter plusieurs blocs.");
+        assertEquals(5010, it.nextInt(), "advance ne devrait pas consommer la valeur.");
+        assertEquals(5020, it.advance(10), "advance ne devrait pas reculer.");
+        assertEquals(10_000, it.advance(10_000), "advance devrait atteindre la dernière valeur.");
+        assertEquals(PostingIterator.END, it.advance(10_001), "L'itérateur devrait être épuisé.");
+    }
+
+    @Test
+    public void testIntersectWithOtherLists() {
+        CompressedPostingList compressed = CompressedPostingList.of(2, 4, 6, 8, 10, 200, 4000);
+        RoaringBitmap bitmap = RoaringBitmap.of(4, 5, 8, 200, 4000, 5000);
+        SortedIntPostingList sorted = SortedIntPostingList.of(1, 4, 8, 4000);
+
+        assertArrayEquals(new int[]{4, 8, 4000}, PostingList.intersect(List.of(compressed, bitmap, sorted)),
+                "L'intersection de listes de natures différentes devrait être exacte.");
+    }
+
+    @Test
+    public void testLeapfrog() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            int k = 1 + random.nextInt(4);
+            List<PostingList> lists = new ArrayList<>();
+            TreeSet<Integer> expected = null;
+            for (int i = 0; i < k; i++) {
+                TreeSet<Integer> values = new TreeSet<>();
+                int n = 1 + random.nextInt(2000);
+                while (values.size() < n) {
+                    values.add(1 + random.nextInt(5000));
+                }
+                int[] array = values.stream().mapToInt(Integer::intValue).toArray();
+                lists.add(i % 2 == 0 ? CompressedPostingList.of(array) : SortedIntPostingList.of(array));
+                if (expected == null) {
+                    expected = values;
+                } else {
+                    expected.retainAll(values);
+                }
+            }
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), PostingList.leapfrog(lists),
+                    "L'intersection leapfrog de " + k + " listes devrait être exacte.");
+        }
+        assertArrayEquals(new int[0], PostingList.leapfrog(List.of(SortedIntPostingList.of(1, 2), CompressedPostingList.EMPTY)),
+                "L'intersection avec une liste vide devrait être vide.");
+    }
+}
@@ -0,0 +1,53 @@
+package qengine.storage.posting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de {@link IntersectionKernel}.
+ */
+public class IntersectionKernelTest {
+
+    @Test
+    public void testKernelsAgree() {
+        assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "Les tests devraient être lancés avec --add-modules jdk.incubator.vector pour vérifier le noyau vectoriel.");
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            // Tailles déséquilibrées ou non, tranches décalées dans leurs tableaux
+            int[] a = randomSorted(random, random.nextInt(100), 1000);
+            int[] b = randomSorted(random, random.nextInt(round % 2 == 0 ? 100 : 800), 1000);
+            int aFrom = Math.min(1, a.length);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Arrays.stream(a, aFrom, a.length).forEach(expected::add);
+            expected.retainAll(Arrays.stream(b).boxed().toList());
+            int[] expectedArray = expected.stream().mapToInt(Integer::intValue).toArray();
+
+            int[] out = new int[a.length + b.length];
+            int n = IntersectionKernel.intersectScalar(a, aFrom, a.length, b, 0, b.length, out);
+            assertArrayEquals(expectedArray, Arrays.copyOf(out, n), "Le noyau scalaire devrait être exact.");
+            n = IntersectionKernel.intersect(a, aFrom, a.length, b, 0, b.length, out);
+            assertArrayEquals(expectedArray, Arrays.copyOf(out, n), "Le noyau choisi devrait être exact.");
+            n = IntersectionKernel.intersectVector(b, 0, b.length, a, aFrom, a.length, out);
+            assertArrayEquals(expectedArray, Arrays.copyOf(out, n), "Le noyau vectoriel devrait être exact.");
+        }
+    }
+
+    @Test
+    public void testIntersectInPlace() {
+        int[] small = {3, 5, 9, 12, 40};
+        int[] large = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 20, 30, 40, 50, 60};
+        int n = IntersectionKernel.intersect(small, 0, small.length, large, 0, large.length, small);
+        assertArrayEquals(new int[]{3, 5, 9, 40}, Arrays.copyOf(small, n),
+                "L'intersection devrait pouvoir s'écrire dans la plus petite tranche.");
+    }
+
+    private static int[] randomSorted(Random random, int size, int range) {
+        return random.ints(size, 1, range).sorted().distinct().toArray();
+    }
+}
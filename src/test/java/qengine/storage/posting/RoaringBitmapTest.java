@@ -0,0 +1,107 @@
+package qengine.storage.posting;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de {@link RoaringBitmap} et de l'intersection de {@link PostingList}.
+ */
+public class RoaringBitmapTest {
+
+    @Test
+    public void testAddAndContains() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        assertTrue(bitmap.add(3), "La valeur 3 devrait être ajoutée.");
+        assertFalse(bitmap.add(3), "Un doublon ne devrait pas être ajouté.");
+        assertTrue(bitmap.add(70_000), "Une valeur d'un autre conteneur devrait être ajoutée.");
+        assertTrue(bitmap.add(1), "La valeur 1 devrait être ajoutée.");
+
+        assertEquals(3, bitmap.size(), "Le bitmap devrait contenir trois valeurs.");
+        assertTrue(bitmap.contains(70_000), "Le bitmap devrait contenir 70000.");
+        assertFalse(bitmap.contains(2), "Le bitmap ne devrait pas contenir 2.");
+        assertArrayEquals(new int[]{1, 3, 70_000}, bitmap.toArray(), "Les valeurs devraient être triées.");
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1), "Les valeurs négatives devraient être refusées.");
+    }
+
+    @Test
+    public void testDenseContainer() {
+        // Plus de 4096 valeurs dans un même conteneur : passage à la représentation bitmap
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int value = 0; value < 20_000; value += 2) {
+            bitmap.add(value);
+            expected.add(value);
+        }
+        assertEquals(expected.size(), bitmap.size(), "La cardinalité devrait être conservée.");
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), bitmap.toArray(),
+                "Les valeurs devraient être conservées après conversion.");
+        assertTrue(bitmap.contains(19_998), "Le bitmap devrait contenir 19998.");
+        assertFalse(bitmap.contains(19_999), "Le bitmap ne devrait pas contenir 19999.");
+    }
+
+    @Test
+    public void testAndOrAgainstSets() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // Alterne des ensembles creux et denses sur plusieurs conteneurs
+            int range = round % 2 == 0 ? 300_000 : 20_000;
+            int count = random.nextInt(12_000);
+            TreeSet<Integer> left = new TreeSet<>();
+            TreeSet<Integer> right = new TreeSet<>();
+            RoaringBitmap a = new RoaringBitmap();
+            RoaringBitmap b = new RoaringBitmap();
+            for (int i = 0; i < count; i++) {
+                int x = random.nextInt(range);
+                int y = random.nextInt(range);
+                left.add(x);
+                a.add(x);
+                right.add(y);
+                b.add(y);
+            }
+
+            TreeSet<Integer> and = new TreeSet<>(left);
+            and.retainAll(right);
+            TreeSet<Integer> or = new TreeSet<>(left);
+            or.addAll(right);
+
+            assertArrayEquals(and.stream().mapToInt(Integer::intValue).toArray(), a.and(b).toArray(),
+                    "Le ET devrait correspondre à l'intersection des ensembles.");
+            assertEquals(and.size(), a.and(b).size(), "La cardinalité du ET devrait être exacte.");
+            assertArrayEquals(or.stream().mapToInt(Integer::intValue).toArray(), a.or(b).toArray(),
+                    "Le OU devrait correspondre à l'union des ensembles.");
+            assertEquals(or.size(), a.or(b).size(), "La cardinalité du OU devrait être exacte.");
+        }
+    }
+
+    @Test
+    public void testIteratorAdvance() {
+        RoaringBitmap bitmap = RoaringBitmap.of(5, 10, 65_535, 65_536, 200_000);
+        PostingIterator it = bitmap.iterator();
+        assertEquals(5, it.advance(0), "advance ne devrait pas reculer.");
+        assertEquals(65_535, it.advance(11), "advance devrait sauter à la première valeur supérieure ou égale.");
+        assertEquals(65_535, it.nextInt(), "advance ne devrait pas consommer la valeur.");
+        assertEquals(200_000, it.advance(70_000), "advance devrait sauter au conteneur suivant.");
+        assertEquals(PostingIterator.END, it.advance(200_001), "L'itérateur devrait être épuisé.");
+        assertFalse(it.hasNext(), "L'itérateur ne devrait plus avoir de valeur.");
+    }
+
+    @Test
+    public void testIntersectMixedLists() {
+        RoaringBitmap bitmap = RoaringBitmap.of(1, 4, 7, 9, 12, 100_000);
+        SortedIntPostingList run = new SortedIntPostingList(IntBuffer.wrap(new int[]{0, 4, 9, 12, 50, 100_000}), 1, 6);
+        RoaringBitmap other = RoaringBitmap.of(4, 12, 100_000, 100_001);
+
+        assertArrayEquals(new int[]{4, 12, 100_000}, PostingList.intersect(List.of(bitmap, run, other)),
+                "L'intersection d'une tranche et de bitmaps devrait être exacte.");
+        assertArrayEquals(new int[]{4, 12, 100_000}, PostingList.intersect(List.of(bitmap, other)),
+                "L'intersection de bitmaps devrait être exacte.");
+        assertArrayEquals(new int[0], PostingList.intersect(List.of(bitmap, new RoaringBitmap())),
+                "L'intersection avec une liste vide devrait être vide.");
+    }
+}